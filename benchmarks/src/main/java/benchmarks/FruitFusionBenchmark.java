@@ -0,0 +1,129 @@
+package benchmarks;
+
+import customdatatypes.Apple;
+import customdatatypes.Banana;
+import customdatatypes.Fruit;
+import customdatatypes.FruitBasket;
+import customdatatypes.Tomato;
+import customoperators.FilterFruitByRipeOp;
+import customoperators.JoinFruitBasketOp;
+import fusion.PipelineFuser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Evaluation of one window by the R2R chain of the FruitAdvancedGuide with an extra filter (filter -> filter -> union):
+ *  - interpreted: every operator is evaluated on the result of the previous ones, looked up by name, as the DAG does
+ *  - fused: the single operator returned by the PipelineFuser
+ *
+ * Only the R2R stage is measured: the S2R filter and the R2S operator are not fused (see PipelineFuser), so they cost the same in
+ * both forms. The setup checks that both forms give the same result.
+ *
+ *   mvn -B -pl benchmarks -am package
+ *   java -jar benchmarks/target/benchmarks.jar FruitFusionBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgs = {"-Xms1g", "-Xmx1g"})
+public class FruitFusionBenchmark {
+
+    //Fruits in each of the two windows
+    @Param({"1000", "10000"})
+    private int windowSize;
+
+    private List<RelationToRelationOperator<FruitBasket>> chain;
+    private List<RelationToRelationOperator<FruitBasket>> fused;
+    private Map<String, FruitBasket> windows;
+
+    @Setup
+    public void setup() {
+        chain = List.of(
+                new FilterFruitByRipeOp("underripe", Collections.singletonList("TumblingWindow_one"), "not_underripe"),
+                new FilterFruitByRipeOp("overripe", Collections.singletonList("not_underripe"), "filtered_fruit"),
+                new JoinFruitBasketOp(List.of("filtered_fruit", "TumblingWindow_two"), "joined_fruit"));
+        fused = PipelineFuser.fuse(chain);
+        if (fused.size() != 1)
+            throw new IllegalStateException("The chain was not fused");
+
+        windows = new HashMap<>();
+        windows.put("TumblingWindow_one", randomBasket(new Random(1336), windowSize));
+        windows.put("TumblingWindow_two", randomBasket(new Random(1337), windowSize));
+
+        long expected = expectedSize(windows);
+        if (evaluate(chain).getSize() != expected || evaluate(fused).getSize() != expected)
+            throw new IllegalStateException("The fused pipeline does not compute the same result");
+    }
+
+    @Benchmark
+    public FruitBasket interpreted() {
+        return evaluate(chain);
+    }
+
+    @Benchmark
+    public FruitBasket fused() {
+        return evaluate(fused);
+    }
+
+    //Evaluates the operators in order on the windows, every operand looked up by name
+    private FruitBasket evaluate(List<RelationToRelationOperator<FruitBasket>> r2rs) {
+        Map<String, FruitBasket> relations = new HashMap<>(windows);
+        FruitBasket res = null;
+        for (RelationToRelationOperator<FruitBasket> op : r2rs) {
+            List<FruitBasket> operands = new ArrayList<>();
+            for (String name : op.getTvgNames())
+                operands.add(relations.get(name));
+            res = op.eval(operands);
+            relations.put(op.getResName(), res);
+        }
+        return res;
+    }
+
+    private static long expectedSize(Map<String, FruitBasket> windows) {
+        long size = windows.get("TumblingWindow_two").getSize();
+        for (Fruit f : windows.get("TumblingWindow_one"))
+            if (f.getStatus().equals("ripe"))
+                size++;
+        return size;
+    }
+
+    private static FruitBasket randomBasket(Random random, int size) {
+        String[] statuses = {"underripe", "ripe", "overripe"};
+        FruitBasket basket = new FruitBasket();
+        for (int i = 0; i < size; i++) {
+            float weight = random.nextFloat() * 5;
+            String status = statuses[random.nextInt(3)];
+            switch (random.nextInt(3)) {
+                case 0:
+                    basket.addFruit(new Apple(weight, status));
+                    break;
+                case 1:
+                    basket.addFruit(new Banana(weight, status));
+                    break;
+                default:
+                    basket.addFruit(new Tomato(weight, status));
+            }
+        }
+        return basket;
+    }
+}
@@ -0,0 +1,52 @@
+#!/usr/bin/env bash
+#
+# Records an AppCDS archive of the launcher and compares its startup time with and without class-data sharing.
+#
+#   ./appcds.sh [plan] [runs]
+#
+# 1. a training run of 'launcher.jar --startup' dumps every class it loaded (JDK, polyflow, quickstart) in target/launcher.jsa
+# 2. the same startup is timed RUNS times with CDS off, with the default JDK archive only, and with the application archive
+#
+# The medians it prints go in the startup figures table of README.md.
+#
+# The archive is only valid for the same JDK and the same jars: rebuild it after every build of the launcher.
+set -euo pipefail
+
+cd "$(dirname "$0")"
+PLAN=${1:-plans/fruit_advanced.plan}
+RUNS=${2:-5}
+JAR=target/launcher.jar
+ARCHIVE=target/launcher.jsa
+
+if [ ! -f "$JAR" ]; then
+    (cd .. && mvn -B -q -pl launcher -am package -DskipTests)
+fi
+
+java -cp "$JAR" plan.PlanValidator "$PLAN"
+
+echo "Training run, recording $ARCHIVE"
+java -XX:ArchiveClassesAtExit="$ARCHIVE" -jar "$JAR" --startup "$PLAN" > /dev/null
+
+# Prints the median of the wall-clock time of the runs, and of the startup measured by the launcher itself
+measure() {
+    local label=$1
+    shift
+    local walls=() totals=()
+    for _ in $(seq "$RUNS"); do
+        local begin end total
+        begin=$(date +%s%N)
+        total=$(java "$@" -jar "$JAR" --startup "$PLAN" | awk '/total since JVM start/ {print $(NF-1)}')
+        end=$(date +%s%N)
+        walls+=($(( (end - begin) / 1000000 )))
+        totals+=("$total")
+    done
+    local wall_median total_median
+    wall_median=$(printf '%s\n' "${walls[@]}" | sort -n | sed -n "$(( (RUNS + 1) / 2 ))p")
+    total_median=$(printf '%s\n' "${totals[@]}" | sort -n | sed -n "$(( (RUNS + 1) / 2 ))p")
+    printf '%-22s wall %6s ms   first output after %6s ms\n' "$label" "$wall_median" "$total_median"
+}
+
+echo "Median of $RUNS runs of $PLAN:"
+measure "no CDS" -Xshare:off
+measure "JDK CDS" -Xshare:auto
+measure "AppCDS" -XX:SharedArchiveFile="$ARCHIVE" -Xshare:auto
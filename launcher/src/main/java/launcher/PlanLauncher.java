@@ -0,0 +1,104 @@
+package launcher;
+
+import customdatatypes.Apple;
+import customdatatypes.Fruit;
+import customdatatypes.FruitBasket;
+import customdatatypes.FruitDataStream;
+import org.streamreasoning.rsp4j.api.coordinators.ContinuousProgram;
+import org.streamreasoning.rsp4j.api.querying.Task;
+import org.streamreasoning.rsp4j.api.secret.time.Time;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import plan.PlanCompiler;
+import plan.PlanValidator;
+import plan.TaskPlan;
+import shared.coordinators.ContinuousProgramImpl;
+import stream.FruitStreamGenerator;
+
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Entry point of the workers: reads a task plan, builds its Task and starts streaming, reporting how long each startup phase took.
+ *
+ *   java -jar launcher.jar <plan> [seconds]    runs the plan on the fruit generator for the given seconds (20 by default)
+ *   java -jar launcher.jar --startup <plan>    pushes fruits through the Task until its first output, prints the timings and exits
+ *
+ * The second form exercises every class of a real startup without waiting for the generator: appcds.sh uses it to record
+ * the class-data archive, and to compare the startup times with and without it.
+ */
+public class PlanLauncher {
+
+    public static void main(String[] args) throws Exception {
+        long jvmToMain = ManagementFactory.getRuntimeMXBean().getUptime();
+        boolean startupOnly = args.length > 0 && args[0].equals("--startup");
+        int first = startupOnly ? 1 : 0;
+        if (args.length <= first) {
+            System.err.println("Usage: PlanLauncher [--startup] <plan file> [seconds]");
+            System.exit(2);
+        }
+        long seconds = args.length > first + 1 ? Long.parseLong(args[first + 1]) : 20;
+
+        /*------------Plan------------*/
+
+        long start = System.nanoTime();
+        TaskPlan plan = TaskPlan.read(Path.of(args[first]));
+        List<String> errors = PlanValidator.validate(plan);
+        if (!errors.isEmpty()) {
+            errors.forEach(e -> System.err.println(args[first] + ": " + e));
+            System.exit(1);
+        }
+        long planned = System.nanoTime();
+
+        /*------------Task------------*/
+
+        FruitStreamGenerator generator = new FruitStreamGenerator();
+        Time time = PlanCompiler.time(plan);
+        Map<String, DataStream<Fruit>> inputs = PlanCompiler.inputs(plan, generator::getStream);
+        Task<Fruit, Fruit, FruitBasket, Fruit> task = PlanCompiler.compile(plan, time, inputs);
+        long compiled = System.nanoTime();
+
+        /*------------Continuous Program------------*/
+
+        AtomicLong firstOutput = new AtomicLong();
+        List<DataStream<Fruit>> outputStreams = new ArrayList<>();
+        for (String name : plan.getOutputs()) {
+            DataStream<Fruit> out = new FruitDataStream(name);
+            out.addConsumer((stream, el, ts) -> {
+                firstOutput.compareAndSet(0, System.nanoTime());
+                if (!startupOnly)
+                    System.out.println("Output Element: [" + el + "]" + " @ " + ts);
+            });
+            outputStreams.add(out);
+        }
+        ContinuousProgram<Fruit, Fruit, FruitBasket, Fruit> cp = new ContinuousProgramImpl<>();
+        cp.buildTask(task, new ArrayList<>(inputs.values()), outputStreams);
+        long ready = System.nanoTime();
+
+        if (startupOnly) {
+            //Ripe and heavy fruits go through any filter of the plans, a few windows are enough to get an output
+            for (long ts = 0; firstOutput.get() == 0 && ts <= 10_000; ts += 400)
+                for (DataStream<Fruit> input : inputs.values())
+                    input.put(new Apple(3, "ripe"), ts);
+        }
+
+        System.out.println("Startup of " + plan.getName() + ":");
+        System.out.println(String.format("  JVM start -> main           %6d ms", jvmToMain));
+        System.out.println(String.format("  read and validate the plan  %6d ms", (planned - start) / 1_000_000));
+        System.out.println(String.format("  compile the Task            %6d ms", (compiled - planned) / 1_000_000));
+        System.out.println(String.format("  build the program           %6d ms", (ready - compiled) / 1_000_000));
+        if (firstOutput.get() != 0)
+            System.out.println(String.format("  ready -> first output       %6d ms", (firstOutput.get() - ready) / 1_000_000));
+        System.out.println(String.format("  total since JVM start       %6d ms", ManagementFactory.getRuntimeMXBean().getUptime()));
+
+        if (startupOnly)
+            System.exit(0);
+
+        generator.startStreaming();
+        Thread.sleep(seconds * 1_000);
+        generator.stopStreaming();
+    }
+}
@@ -0,0 +1,147 @@
+package adaptive;
+
+import customdatatypes.FilteredFruitBasket;
+import customdatatypes.Fruit;
+import customdatatypes.FruitBasket;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import org.streamreasoning.rsp4j.api.secret.content.Content;
+import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
+import shared.contentimpl.EmptyContent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Predicate;
+
+/*
+ * A filter that decides at runtime whether to run before the window (in the window content, like the CustomFilterContent)
+ * or after it (as an R2R operator, like the FilterFruitByRipeOp).
+ *
+ * Filtering before the window pays off when the predicate rejects many fruits: they are never stored and never reach the query.
+ * When it rejects few, testing every fruit on the ingestion path only adds latency, and one pass over the window at evaluation is
+ * cheaper. The rejection rate is measured in both modes and rolled at every window evaluation: pre-window filtering is switched on
+ * above 'threshold' and off below half of it, so the plan does not flap around the threshold.
+ *
+ * Switches are safe at window boundaries: the mode of a window is fixed when its content is created, and a pre-filtered window
+ * produces a FilteredFruitBasket, which the R2R side of the filter passes through unchanged. A window created before a switch is
+ * therefore always filtered exactly once.
+ */
+public class AdaptivePreFilter {
+
+    private final String name;
+    private final Predicate<Fruit> predicate;
+    private final double threshold;
+    private final OperatorStats stats;
+    private volatile boolean preWindow = false;
+
+    public AdaptivePreFilter(String name, Predicate<Fruit> predicate, double threshold) {
+        if(threshold <= 0 || threshold >= 1)
+            throw new IllegalArgumentException("The rejection threshold must be in (0, 1)");
+        this.name = name;
+        this.predicate = predicate;
+        this.threshold = threshold;
+        this.stats = new OperatorStats(name);
+    }
+
+    //Content factory for the window in front of the filter
+    public ContentFactory<Fruit, Fruit, FruitBasket> contentFactory() {
+        return new ContentFactory<>() {
+            @Override
+            public Content<Fruit, Fruit, FruitBasket> createEmpty() {
+                return new EmptyContent<>(new FruitBasket());
+            }
+
+            @Override
+            public Content<Fruit, Fruit, FruitBasket> create() {
+                return new PreFilterContent(preWindow);
+            }
+        };
+    }
+
+    //R2R side of the filter, it keeps the fruits satisfying the predicate
+    public RelationToRelationOperator<FruitBasket> postWindowOp(List<String> tvgNames, String resName) {
+        return new RelationToRelationOperator<>() {
+            @Override
+            public FruitBasket eval(List<FruitBasket> datasets) {
+                FruitBasket op = datasets.get(0);
+                FruitBasket res = op;
+                if(!(op instanceof FilteredFruitBasket && ((FilteredFruitBasket) op).isFilteredBy(name))){
+                    long start = System.nanoTime();
+                    res = new FruitBasket();
+                    for(Fruit fruit : op){
+                        if(predicate.test(fruit))
+                            res.addFruit(fruit);
+                    }
+                    stats.record(op.getSize(), res.getSize(), System.nanoTime() - start);
+                }
+                replan();
+                return res;
+            }
+
+            @Override
+            public List<String> getTvgNames() {
+                return tvgNames;
+            }
+
+            @Override
+            public String getResName() {
+                return resName;
+            }
+        };
+    }
+
+    //Called when a window was evaluated, the new mode applies to the windows created from now on
+    private void replan() {
+        stats.roll();
+        if(!stats.isObserved())
+            return;
+        double rejection = stats.getRejectionRate();
+        boolean next = preWindow ? rejection >= threshold / 2 : rejection >= threshold;
+        if(next != preWindow){
+            preWindow = next;
+            System.out.println("Re-planned " + name + ": " + (next ? "pre-window" : "post-window") + " filtering, rejection rate "
+                    + String.format("%.3f", rejection));
+        }
+    }
+
+    public boolean isPreWindow() {
+        return preWindow;
+    }
+
+    public OperatorStats getStats() {
+        return stats;
+    }
+
+    private final class PreFilterContent implements Content<Fruit, Fruit, FruitBasket> {
+
+        private final boolean filtering;
+        private final List<Fruit> content = new ArrayList<>();
+
+        PreFilterContent(boolean filtering) {
+            this.filtering = filtering;
+        }
+
+        @Override
+        public int size() {
+            return content.size();
+        }
+
+        @Override
+        public void add(Fruit e) {
+            if(!filtering){
+                content.add(e);
+                return;
+            }
+            boolean keep = predicate.test(e);
+            stats.record(1, keep ? 1 : 0, 0);
+            if(keep)
+                content.add(e);
+        }
+
+        @Override
+        public FruitBasket coalesce() {
+            FruitBasket res = filtering ? new FilteredFruitBasket(name) : new FruitBasket();
+            content.forEach(res::addFruit);
+            return res;
+        }
+    }
+}
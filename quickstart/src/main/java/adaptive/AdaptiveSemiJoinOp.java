@@ -0,0 +1,105 @@
+package adaptive;
+
+import customdatatypes.Fruit;
+import customdatatypes.FruitBasket;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * Hash semi-join on the kind of fruit: the result holds the fruits of the first operand whose kind also appears in the second one
+ * (e.g. "the fruits of market one that market two sells as well").
+ *
+ * A hash join builds a table on one side and probes it with the other, and building on the smaller side is cheaper. Both plans give
+ * the same result here:
+ *  - build on the second operand: the set of its kinds, probed by every fruit of the first one
+ *  - build on the first operand: its fruits grouped by kind, probed by the kinds of the second one (each group is emitted once)
+ *
+ * The build side is chosen at every window boundary from the average sizes of the operands in the previous windows, as a pipelined
+ * engine would do before the probe side is complete. The sizes are averaged with the same weighting as the OperatorStats.
+ */
+public class AdaptiveSemiJoinOp implements RelationToRelationOperator<FruitBasket> {
+
+    List<String> tvgNames;
+    String resName;
+    private final OperatorStats left;
+    private final OperatorStats right;
+    private boolean buildLeft = false;
+
+    public AdaptiveSemiJoinOp(List<String> tvgNames, String resName) {
+        if(tvgNames.size() != 2)
+            throw new IllegalArgumentException("A join has exactly two operands");
+        this.tvgNames = tvgNames;
+        this.resName = resName;
+        this.left = new OperatorStats(tvgNames.get(0));
+        this.right = new OperatorStats(tvgNames.get(1));
+    }
+
+    @Override
+    public FruitBasket eval(List<FruitBasket> datasets) {
+        replan();
+        FruitBasket left_op = datasets.get(0);
+        FruitBasket right_op = datasets.get(1);
+
+        //Only the sizes of the operands are used
+        left.record(left_op.getSize(), left_op.getSize(), 0);
+        right.record(right_op.getSize(), right_op.getSize(), 0);
+        return buildLeft ? buildOnLeft(left_op, right_op) : buildOnRight(left_op, right_op);
+    }
+
+    private static FruitBasket buildOnRight(FruitBasket left_op, FruitBasket right_op) {
+        Set<String> kinds = new HashSet<>();
+        for(Fruit f : right_op)
+            kinds.add(f.getName());
+        FruitBasket res = new FruitBasket();
+        for(Fruit f : left_op){
+            if(kinds.contains(f.getName()))
+                res.addFruit(f);
+        }
+        return res;
+    }
+
+    private static FruitBasket buildOnLeft(FruitBasket left_op, FruitBasket right_op) {
+        Map<String, List<Fruit>> byKind = new HashMap<>();
+        for(Fruit f : left_op)
+            byKind.computeIfAbsent(f.getName(), k -> new ArrayList<>()).add(f);
+        FruitBasket res = new FruitBasket();
+        for(Fruit f : right_op){
+            List<Fruit> matches = byKind.remove(f.getName());
+            if(matches != null)
+                matches.forEach(res::addFruit);
+        }
+        return res;
+    }
+
+    private void replan() {
+        left.roll();
+        right.roll();
+        if(!left.isObserved() && !right.isObserved())
+            return;
+        boolean next = left.getWindowAverageIn() < right.getWindowAverageIn();
+        if(next != buildLeft){
+            buildLeft = next;
+            System.out.println("Re-planned " + resName + ": build side " + (next ? tvgNames.get(0) : tvgNames.get(1)));
+        }
+    }
+
+    public boolean isBuildingLeft() {
+        return buildLeft;
+    }
+
+    @Override
+    public List<String> getTvgNames() {
+        return tvgNames;
+    }
+
+    @Override
+    public String getResName() {
+        return resName;
+    }
+}
@@ -0,0 +1,114 @@
+package adaptive;
+
+import customdatatypes.FruitBasket;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/*
+ * Sequence of commutative unary filters on a FruitBasket (e.g. several FilterFruitByRipeOp), evaluated as a single R2R operator
+ * in the order the statistics say is the cheapest.
+ *
+ * Every filter keeps its own OperatorStats (out/in ratio and time per input fruit). Every 'replanEvery' windows, before evaluating a
+ * window, the filters are sorted by rank = cost / (1 - selectivity), the classic ordering of independent predicates: cheap filters that
+ * reject a lot go first. A filter that rejects nothing goes last. The order never changes while a window is being evaluated.
+ *
+ * The selectivity of a filter is measured on what the previous filters left, so correlated filters are only approximately ranked.
+ */
+public class FilterChainOp implements RelationToRelationOperator<FruitBasket> {
+
+    // Name of the operands (one operand in this case)
+    List<String> tvgNames;
+    //Name of the result
+    String resName;
+    private final List<Filter> order = new ArrayList<>();
+    private final int replanEvery;
+    private long windows = 0;
+
+    public FilterChainOp(List<RelationToRelationOperator<FruitBasket>> filters, List<String> tvgNames, String resName) {
+        this(filters, tvgNames, resName, 1);
+    }
+
+    public FilterChainOp(List<RelationToRelationOperator<FruitBasket>> filters, List<String> tvgNames, String resName, int replanEvery) {
+        if(replanEvery < 1)
+            throw new IllegalArgumentException("The chain must be re-planned at least every window");
+        this.tvgNames = tvgNames;
+        this.resName = resName;
+        this.replanEvery = replanEvery;
+        for(RelationToRelationOperator<FruitBasket> f : filters)
+            order.add(new Filter(f, new OperatorStats(f.getResName())));
+    }
+
+    @Override
+    public FruitBasket eval(List<FruitBasket> datasets) {
+        //Window boundary: the previous window is done, this one is evaluated with a single plan
+        if(windows > 0 && windows % replanEvery == 0)
+            replan();
+        windows++;
+
+        FruitBasket res = datasets.get(0);
+        for(Filter f : order){
+            if(res.getSize() == 0)
+                break;
+            long start = System.nanoTime();
+            FruitBasket filtered = f.op.eval(Collections.singletonList(res));
+            f.stats.record(res.getSize(), filtered.getSize(), System.nanoTime() - start);
+            res = filtered;
+        }
+        return res;
+    }
+
+    private void replan() {
+        List<Filter> previous = new ArrayList<>(order);
+        for(Filter f : order)
+            f.stats.roll();
+        order.sort(Comparator.comparingDouble(Filter::rank));
+        if(!order.equals(previous))
+            System.out.println("Re-planned " + resName + ": filter order " + getOrder());
+    }
+
+    public List<String> getOrder() {
+        List<String> res = new ArrayList<>();
+        for(Filter f : order)
+            res.add(f.op.getResName());
+        return res;
+    }
+
+    public List<OperatorStats> getStats() {
+        List<OperatorStats> res = new ArrayList<>();
+        for(Filter f : order)
+            res.add(f.stats);
+        return res;
+    }
+
+    @Override
+    public List<String> getTvgNames() {
+        return tvgNames;
+    }
+
+    @Override
+    public String getResName() {
+        return resName;
+    }
+
+    private static final class Filter {
+        final RelationToRelationOperator<FruitBasket> op;
+        final OperatorStats stats;
+
+        Filter(RelationToRelationOperator<FruitBasket> op, OperatorStats stats) {
+            this.op = op;
+            this.stats = stats;
+        }
+
+        double rank() {
+            double rejection = stats.getRejectionRate();
+            if(rejection <= 0)
+                return Double.POSITIVE_INFINITY;
+            //Keep the rank meaningful when the time per fruit is below the timer resolution
+            return Math.max(stats.getCost(), 1.0) / rejection;
+        }
+    }
+}
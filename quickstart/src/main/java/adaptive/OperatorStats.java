@@ -0,0 +1,106 @@
+package adaptive;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Runtime statistics of an operator: elements in, elements out and time spent.
+ *
+ * Counters are cumulative and can be updated by any thread (e.g. a window content on the ingestion path) without locks.
+ * The planner calls roll() at window boundaries: the counts of the last window(s) are folded into exponentially weighted averages
+ * of the selectivity (out / in) and of the cost per input element, so the estimates follow a drifting stream while ignoring the
+ * noise of a single window.
+ */
+public class OperatorStats {
+
+    private final String name;
+    //Weight of the last rolled window in the averages
+    private final double alpha;
+    private final LongAdder in = new LongAdder();
+    private final LongAdder out = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private long rolled_in = 0;
+    private long rolled_out = 0;
+    private long rolled_nanos = 0;
+    //Until something is observed, an operator is assumed to keep everything at no cost
+    private double selectivity = 1.0;
+    private double cost = 0.0;
+    private double windowIn = 0.0;
+    private boolean observed = false;
+    private long rolls = 0;
+
+    public OperatorStats(String name) {
+        this(name, 0.3);
+    }
+
+    public OperatorStats(String name, double alpha) {
+        if (alpha <= 0 || alpha > 1)
+            throw new IllegalArgumentException("Alpha must be in (0, 1]");
+        this.name = name;
+        this.alpha = alpha;
+    }
+
+    public void record(long elementsIn, long elementsOut, long elapsedNanos) {
+        in.add(elementsIn);
+        out.add(elementsOut);
+        nanos.add(elapsedNanos);
+    }
+
+    //Folds what was recorded since the last roll into the averages, a window without input leaves them unchanged
+    public synchronized void roll() {
+        long total_in = in.sum();
+        long total_out = out.sum();
+        long total_nanos = nanos.sum();
+        long d_in = total_in - rolled_in;
+        windowIn = rolls++ > 0 ? alpha * d_in + (1 - alpha) * windowIn : d_in;
+        if (d_in > 0) {
+            double window_selectivity = (double) (total_out - rolled_out) / d_in;
+            double window_cost = (double) (total_nanos - rolled_nanos) / d_in;
+            selectivity = observed ? alpha * window_selectivity + (1 - alpha) * selectivity : window_selectivity;
+            cost = observed ? alpha * window_cost + (1 - alpha) * cost : window_cost;
+            observed = true;
+        }
+        rolled_in = total_in;
+        rolled_out = total_out;
+        rolled_nanos = total_nanos;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getIn() {
+        return in.sum();
+    }
+
+    public long getOut() {
+        return out.sum();
+    }
+
+    public synchronized double getSelectivity() {
+        return selectivity;
+    }
+
+    public synchronized double getRejectionRate() {
+        return 1 - selectivity;
+    }
+
+    //Average nanoseconds per input element
+    public synchronized double getCost() {
+        return cost;
+    }
+
+    //Average number of input elements between two rolls, i.e. per window
+    public synchronized double getWindowAverageIn() {
+        return windowIn;
+    }
+
+    public synchronized boolean isObserved() {
+        return observed;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return name + ": in " + getIn() + ", out " + getOut() + ", selectivity " + String.format("%.3f", selectivity)
+                + ", cost " + String.format("%.1f", cost) + " ns/element";
+    }
+}
@@ -0,0 +1,23 @@
+package codec;
+
+import customdatatypes.FruitAggregateTable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/*
+ * Codec of the FruitAggregateTable, the table itself knows its layout: only the non-empty groups are encoded.
+ */
+public class FruitAggregateTableCodec implements RelationCodec<FruitAggregateTable> {
+
+    @Override
+    public void write(FruitAggregateTable relation, DataOutput out) throws IOException {
+        relation.writeTo(out);
+    }
+
+    @Override
+    public FruitAggregateTable read(DataInput in) throws IOException {
+        return FruitAggregateTable.readFrom(in);
+    }
+}
@@ -0,0 +1,60 @@
+package codec;
+
+import customdatatypes.*;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/*
+ * Codec of the FruitBasket: the number of fruits, then kind (dictionary code), status and weight of every fruit.
+ */
+public class FruitBasketCodec implements RelationCodec<FruitBasket> {
+
+    @Override
+    public void write(FruitBasket relation, DataOutput out) throws IOException {
+        out.writeInt(relation.getSize());
+        for (Fruit f : relation) {
+            int kind = FruitDictionary.kindId(f.getName());
+            if (kind == FruitDictionary.KIND_OTHER)
+                throw new IOException("Cannot encode a fruit of unknown kind " + f.getName());
+            out.writeByte(kind);
+            out.writeUTF(f.getStatus());
+            out.writeFloat(f.getWeight());
+        }
+    }
+
+    @Override
+    public FruitBasket read(DataInput in) throws IOException {
+        FruitBasket basket = new FruitBasket();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            int kind = in.readUnsignedByte();
+            String status = in.readUTF();
+            float weight = in.readFloat();
+            basket.addFruit(newFruit(kind, weight, status));
+        }
+        return basket;
+    }
+
+    private static Fruit newFruit(int kind, float weight, String status) throws IOException {
+        if (kind >= FruitDictionary.KIND_COUNT)
+            throw new IOException("Unknown fruit kind " + kind);
+        switch (FruitDictionary.kindName(kind)) {
+            case "Apple":
+                return new Apple(weight, status);
+            case "Banana":
+                return new Banana(weight, status);
+            case "Peach":
+                return new Peach(weight, status);
+            case "Pear":
+                return new Pear(weight, status);
+            case "Pineapple":
+                return new Pineapple(weight, status);
+            case "Tomato":
+                return new Tomato(weight, status);
+            default:
+                throw new IOException("Unknown fruit kind " + kind);
+        }
+    }
+}
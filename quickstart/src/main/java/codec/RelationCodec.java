@@ -0,0 +1,41 @@
+package codec;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/*
+ * Binary encoding of an 'R' data type, used whenever a relation leaves the JVM heap (sent to another process, written to disk).
+ *
+ * Codecs write with DataOutput, so the encoding is big-endian and independent of the platform, and they must be able to read
+ * back whatever they wrote without any external schema.
+ */
+public interface RelationCodec<R> {
+
+    void write(R relation, DataOutput out) throws IOException;
+
+    R read(DataInput in) throws IOException;
+
+    default byte[] encode(R relation) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            write(relation, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    default R decode(byte[] bytes) {
+        try {
+            return read(new DataInputStream(new ByteArrayInputStream(bytes)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
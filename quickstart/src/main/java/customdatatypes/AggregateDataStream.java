@@ -0,0 +1,35 @@
+package customdatatypes;
+
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.Consumer;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Output stream for the groups produced by aggregation queries, it works exactly as the FruitDataStream
+ */
+public class AggregateDataStream implements DataStream<FruitAggregateTable.Group> {
+
+    List<Consumer<FruitAggregateTable.Group>> consumerList = new ArrayList<>();
+    String name;
+
+    public AggregateDataStream(String name){
+        this.name = name;
+    }
+
+    @Override
+    public void addConsumer(Consumer<FruitAggregateTable.Group> consumer) {
+        this.consumerList.add(consumer);
+    }
+
+    @Override
+    public void put(FruitAggregateTable.Group group, long ts) {
+        consumerList.forEach(c->c.notify(this, group, ts));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,54 @@
+package customdatatypes;
+
+import java.util.List;
+
+/*
+ * A fruit joined with its reference data: the price per kg of its kind and the suppliers that sell it.
+ * It keeps the kind, weight and status of the original fruit (so it is encoded, filtered and aggregated like it), and its latency marker.
+ */
+public class EnrichedFruit extends Fruit {
+
+    private final Fruit fruit;
+    //NaN if the kind has no price
+    private final float pricePerKg;
+    private final List<String> suppliers;
+
+    public EnrichedFruit(Fruit fruit, float pricePerKg, List<String> suppliers) {
+        super(fruit.getWeight(), fruit.getStatus());
+        this.fruit = fruit;
+        this.pricePerKg = pricePerKg;
+        this.suppliers = suppliers;
+        setMarker(fruit.getMarker());
+    }
+
+    public Fruit getFruit() {
+        return fruit;
+    }
+
+    @Override
+    public String getName() {
+        return fruit.getName();
+    }
+
+    public boolean hasPrice() {
+        return !Float.isNaN(pricePerKg);
+    }
+
+    public float getPricePerKg() {
+        return pricePerKg;
+    }
+
+    //Price of the fruit given its weight, NaN if the kind has no price
+    public float getPrice() {
+        return pricePerKg * getWeight();
+    }
+
+    public List<String> getSuppliers() {
+        return suppliers;
+    }
+
+    @Override
+    public String toString(){
+        return fruit + ", price: " + (hasPrice() ? getPrice() : "n/a") + ", suppliers: " + suppliers;
+    }
+}
@@ -0,0 +1,35 @@
+package customdatatypes;
+
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.Consumer;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Output stream for the estimates produced by approximate queries, it works exactly as the FruitDataStream
+ */
+public class EstimateDataStream implements DataStream<FruitSketchSummary.Estimate> {
+
+    List<Consumer<FruitSketchSummary.Estimate>> consumerList = new ArrayList<>();
+    String name;
+
+    public EstimateDataStream(String name){
+        this.name = name;
+    }
+
+    @Override
+    public void addConsumer(Consumer<FruitSketchSummary.Estimate> consumer) {
+        this.consumerList.add(consumer);
+    }
+
+    @Override
+    public void put(FruitSketchSummary.Estimate estimate, long ts) {
+        consumerList.forEach(c->c.notify(this, estimate, ts));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
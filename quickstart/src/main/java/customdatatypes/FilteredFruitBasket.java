@@ -0,0 +1,18 @@
+package customdatatypes;
+
+/*
+ * A FruitBasket that remembers which filter was already applied to its fruits before the window, e.g. by an AdaptivePreFilter content.
+ * The R2R operator of the same filter can then return it as it is, instead of testing every fruit a second time.
+ */
+public class FilteredFruitBasket extends FruitBasket {
+
+    private final String filter;
+
+    public FilteredFruitBasket(String filter) {
+        this.filter = filter;
+    }
+
+    public boolean isFilteredBy(String filter) {
+        return this.filter.equals(filter);
+    }
+}
@@ -1,14 +1,20 @@
 package customdatatypes;
 
+import tracing.LatencyMarker;
+import tracing.Traced;
+
 /*
  * Fruit Abstract class!
  * All of our custom Fruits will extend it.
  * We have methods to return the weight of the fruit, its name (banana, apple etc...) and its status (underripe, ripe, overripe)
+ * A fruit sampled by the LatencyTracer also carries a latency marker through the pipeline.
  */
-public abstract class Fruit {
+public abstract class Fruit implements Traced {
 
     private float weight;
     private String status;
+    //Null unless the fruit was sampled for latency tracing
+    private volatile LatencyMarker marker;
 
     public Fruit(float weight, String status){
         this.weight = weight;
@@ -28,6 +34,16 @@ public abstract class Fruit {
         return status;
     }
 
+    @Override
+    public LatencyMarker getMarker() {
+        return marker;
+    }
+
+    @Override
+    public void setMarker(LatencyMarker marker) {
+        this.marker = marker;
+    }
+
 
 
 }
@@ -0,0 +1,295 @@
+package customdatatypes;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+ * This class is an alternative 'R' data type to the FruitBasket: instead of holding the fruits, it holds per-group aggregates
+ * (count, sum, min, max, average and approximate number of distinct weights) where a group is a (kind, status) pair.
+ *
+ * Kinds and statuses are dictionary-encoded (see FruitDictionary), so every aggregate lives in a dense primitive array indexed by
+ * kind * STATUS_COUNT + status: adding a fruit never allocates nor boxes a value.
+ *
+ * Like the FruitBasket, it is algebraically a monoid:
+ *  - The identity element is the empty table
+ *  - The associative binary operation is merge, which combines the aggregates group by group
+ *
+ * The distinct count uses linear counting over a 256 bit bitmap per group: it is mergeable (bitwise or), its error stays within a few
+ * percent up to a couple hundred distinct weights per group, and it saturates at about 1400 distinct values.
+ *
+ * Iterating the table returns one Group for every non-empty group, which is what the Relation To Stream operator sends out.
+ */
+public class FruitAggregateTable implements Iterable<FruitAggregateTable.Group> {
+
+    private static final int GROUPS = FruitDictionary.KIND_COUNT * FruitDictionary.STATUS_COUNT;
+    private static final int DISTINCT_WORDS = 4;
+    private static final int DISTINCT_BITS = DISTINCT_WORDS * Long.SIZE;
+
+    private final long[] count = new long[GROUPS];
+    private final double[] sum = new double[GROUPS];
+    private final float[] min = new float[GROUPS];
+    private final float[] max = new float[GROUPS];
+    private final long[] distinct = new long[GROUPS * DISTINCT_WORDS];
+
+    public FruitAggregateTable() {
+        Arrays.fill(min, Float.POSITIVE_INFINITY);
+        Arrays.fill(max, Float.NEGATIVE_INFINITY);
+    }
+
+    public static FruitAggregateTable of(Iterable<Fruit> fruits) {
+        FruitAggregateTable table = new FruitAggregateTable();
+        for (Fruit f : fruits)
+            table.add(f);
+        return table;
+    }
+
+    public void add(Fruit f) {
+        add(FruitDictionary.kindId(f.getName()), FruitDictionary.statusId(f.getStatus()), f.getWeight());
+    }
+
+    public void add(int kindId, int statusId, float weight) {
+        int g = group(kindId, statusId);
+        count[g]++;
+        sum[g] += weight;
+        if (weight < min[g])
+            min[g] = weight;
+        if (weight > max[g])
+            max[g] = weight;
+        int bit = mix(Float.floatToIntBits(weight)) & (DISTINCT_BITS - 1);
+        distinct[g * DISTINCT_WORDS + (bit >>> 6)] |= 1L << bit;
+    }
+
+    //Merges the other table into this one and returns this table
+    public FruitAggregateTable merge(FruitAggregateTable other) {
+        for (int g = 0; g < GROUPS; g++) {
+            if (other.count[g] == 0)
+                continue;
+            mergeGroup(g, other, g);
+        }
+        return this;
+    }
+
+    /*
+     * Returns a new table where the dimensions that are not kept are rolled up into the ALL code,
+     * e.g. rollUp(true, false) gives the aggregates per kind, regardless of the status.
+     */
+    public FruitAggregateTable rollUp(boolean byKind, boolean byStatus) {
+        FruitAggregateTable res = new FruitAggregateTable();
+        for (int k = 0; k < FruitDictionary.KIND_COUNT; k++) {
+            for (int s = 0; s < FruitDictionary.STATUS_COUNT; s++) {
+                int g = group(k, s);
+                if (count[g] == 0)
+                    continue;
+                res.mergeGroup(group(byKind ? k : FruitDictionary.KIND_ALL, byStatus ? s : FruitDictionary.STATUS_ALL), this, g);
+            }
+        }
+        return res;
+    }
+
+    private void mergeGroup(int g, FruitAggregateTable other, int og) {
+        count[g] += other.count[og];
+        sum[g] += other.sum[og];
+        min[g] = Math.min(min[g], other.min[og]);
+        max[g] = Math.max(max[g], other.max[og]);
+        for (int w = 0; w < DISTINCT_WORDS; w++)
+            distinct[g * DISTINCT_WORDS + w] |= other.distinct[og * DISTINCT_WORDS + w];
+    }
+
+    public long count(int kindId, int statusId) {
+        return count[group(kindId, statusId)];
+    }
+
+    public double sum(int kindId, int statusId) {
+        return sum[group(kindId, statusId)];
+    }
+
+    public float min(int kindId, int statusId) {
+        return min[group(kindId, statusId)];
+    }
+
+    public float max(int kindId, int statusId) {
+        return max[group(kindId, statusId)];
+    }
+
+    public double avg(int kindId, int statusId) {
+        int g = group(kindId, statusId);
+        return count[g] == 0 ? Double.NaN : sum[g] / count[g];
+    }
+
+    public long approxDistinct(int kindId, int statusId) {
+        int g = group(kindId, statusId);
+        int zeros = 0;
+        for (int w = 0; w < DISTINCT_WORDS; w++)
+            zeros += Long.SIZE - Long.bitCount(distinct[g * DISTINCT_WORDS + w]);
+        //Saturated bitmap: report the largest value linear counting can tell apart
+        if (zeros == 0)
+            return Math.round(DISTINCT_BITS * Math.log(DISTINCT_BITS));
+        return Math.min(count[g], Math.round(-DISTINCT_BITS * Math.log((double) zeros / DISTINCT_BITS)));
+    }
+
+    public long totalCount() {
+        long total = 0;
+        for (int g = 0; g < GROUPS; g++)
+            total += count[g];
+        return total;
+    }
+
+    public boolean isEmpty() {
+        return totalCount() == 0;
+    }
+
+    //Binary form of the table: only the non-empty groups are written, so a sparse table is a few bytes
+    public void writeTo(DataOutput out) throws IOException {
+        int groups = 0;
+        for (int g = 0; g < GROUPS; g++)
+            if (count[g] != 0)
+                groups++;
+        out.writeShort(groups);
+        for (int g = 0; g < GROUPS; g++) {
+            if (count[g] == 0)
+                continue;
+            out.writeShort(g);
+            out.writeLong(count[g]);
+            out.writeDouble(sum[g]);
+            out.writeFloat(min[g]);
+            out.writeFloat(max[g]);
+            for (int w = 0; w < DISTINCT_WORDS; w++)
+                out.writeLong(distinct[g * DISTINCT_WORDS + w]);
+        }
+    }
+
+    public static FruitAggregateTable readFrom(DataInput in) throws IOException {
+        FruitAggregateTable table = new FruitAggregateTable();
+        int groups = in.readUnsignedShort();
+        for (int i = 0; i < groups; i++) {
+            int g = in.readUnsignedShort();
+            if (g >= GROUPS)
+                throw new IOException("Unknown group " + g);
+            table.count[g] = in.readLong();
+            table.sum[g] = in.readDouble();
+            table.min[g] = in.readFloat();
+            table.max[g] = in.readFloat();
+            for (int w = 0; w < DISTINCT_WORDS; w++)
+                table.distinct[g * DISTINCT_WORDS + w] = in.readLong();
+        }
+        return table;
+    }
+
+    private static int group(int kindId, int statusId) {
+        return kindId * FruitDictionary.STATUS_COUNT + statusId;
+    }
+
+    //Murmur3 finalizer, spreads the float bits before picking a bit of the bitmap
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    @Override
+    public Iterator<Group> iterator() {
+        return new Iterator<>() {
+            private int next = advance(0);
+
+            private int advance(int from) {
+                while (from < GROUPS && count[from] == 0)
+                    from++;
+                return from;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next < GROUPS;
+            }
+
+            @Override
+            public Group next() {
+                if (!hasNext())
+                    throw new NoSuchElementException();
+                int k = next / FruitDictionary.STATUS_COUNT;
+                int s = next % FruitDictionary.STATUS_COUNT;
+                Group res = new Group(FruitDictionary.kindName(k), FruitDictionary.statusName(s), count[next], sum[next],
+                        min[next], max[next], approxDistinct(k, s));
+                next = advance(next + 1);
+                return res;
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (Group g : this)
+            sb.append(sb.length() > 1 ? ", " : "").append(g);
+        return sb.append("]").toString();
+    }
+
+    /*
+     * Snapshot of the aggregates of a single group, this is the element type of the output stream
+     */
+    public static class Group {
+
+        private final String kind;
+        private final String status;
+        private final long count;
+        private final double sum;
+        private final float min;
+        private final float max;
+        private final long approxDistinct;
+
+        public Group(String kind, String status, long count, double sum, float min, float max, long approxDistinct) {
+            this.kind = kind;
+            this.status = status;
+            this.count = count;
+            this.sum = sum;
+            this.min = min;
+            this.max = max;
+            this.approxDistinct = approxDistinct;
+        }
+
+        public String getKind() {
+            return kind;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public double getSum() {
+            return sum;
+        }
+
+        public float getMin() {
+            return min;
+        }
+
+        public float getMax() {
+            return max;
+        }
+
+        public double getAvg() {
+            return sum / count;
+        }
+
+        public long getApproxDistinct() {
+            return approxDistinct;
+        }
+
+        @Override
+        public String toString() {
+            return "kind: " + kind + ", status: " + status + ", count: " + count + ", avg weight: " + getAvg()
+                    + ", min: " + min + ", max: " + max + ", ~distinct weights: " + approxDistinct;
+        }
+    }
+}
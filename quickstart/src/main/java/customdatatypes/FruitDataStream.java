@@ -2,11 +2,14 @@ package customdatatypes;
 
 import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.Consumer;
 import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import runtime.FlowControlled;
+import runtime.Punctuation;
+import tracing.LatencyTracer;
 
 import java.util.ArrayList;
 import java.util.List;
 
-public class FruitDataStream implements DataStream<Fruit> {
+public class FruitDataStream implements DataStream<Fruit>, FlowControlled {
 
     List<Consumer<Fruit>> consumerList = new ArrayList<>();
     String name;
@@ -22,9 +25,21 @@ public class FruitDataStream implements DataStream<Fruit> {
 
     @Override
     public void put(Fruit fruit, long ts) {
+        //Marks the fruit if this is a traced source stream, or closes its trace if it was emitted by a Task
+        if(LatencyTracer.isOn() && !(fruit instanceof Punctuation))
+            LatencyTracer.onPut(name, fruit, ts);
         consumerList.forEach(c->c.notify(this, fruit, ts));
     }
 
+    //The stream can accept as many elements as its slowest flow-controlled consumer
+    @Override
+    public long credits() {
+        long credits = Long.MAX_VALUE;
+        for (Consumer<Fruit> c : consumerList)
+            credits = Math.min(credits, FlowControlled.creditsOf(c));
+        return credits;
+    }
+
     @Override
     public String getName() {
         return name;
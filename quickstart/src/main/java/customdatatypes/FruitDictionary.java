@@ -0,0 +1,67 @@
+package customdatatypes;
+
+/*
+ * Dictionary encoding of the two low-cardinality attributes of a Fruit: its kind (the name) and its status.
+ * Each value is mapped to a small dense integer, so that aggregations can use plain arrays indexed by the code
+ * instead of hash maps keyed by Strings.
+ *
+ * Both dimensions reserve two extra codes:
+ *  - OTHER, for values we do not know about (e.g. a new kind of fruit)
+ *  - ALL, used by roll-ups to represent "any value" of a dimension that is not part of the grouping
+ */
+public final class FruitDictionary {
+
+    public static final String[] KINDS = {"Apple", "Banana", "Peach", "Pear", "Pineapple", "Tomato", "Other", "*"};
+    public static final String[] STATUSES = {"underripe", "ripe", "overripe", "other", "*"};
+
+    public static final int KIND_OTHER = 6;
+    public static final int KIND_ALL = 7;
+    public static final int KIND_COUNT = KINDS.length;
+
+    public static final int STATUS_OTHER = 3;
+    public static final int STATUS_ALL = 4;
+    public static final int STATUS_COUNT = STATUSES.length;
+
+    private FruitDictionary() {
+    }
+
+    public static int kindId(String name) {
+        switch (name) {
+            case "Apple":
+                return 0;
+            case "Banana":
+                return 1;
+            case "Peach":
+                return 2;
+            case "Pear":
+                return 3;
+            case "Pineapple":
+                return 4;
+            case "Tomato":
+                return 5;
+            default:
+                return KIND_OTHER;
+        }
+    }
+
+    public static int statusId(String status) {
+        switch (status) {
+            case "underripe":
+                return 0;
+            case "ripe":
+                return 1;
+            case "overripe":
+                return 2;
+            default:
+                return STATUS_OTHER;
+        }
+    }
+
+    public static String kindName(int kindId) {
+        return KINDS[kindId];
+    }
+
+    public static String statusName(int statusId) {
+        return STATUSES[statusId];
+    }
+}
@@ -0,0 +1,22 @@
+package customdatatypes;
+
+import runtime.Punctuation;
+
+/*
+ * Punctuation of the fruit streams: not a fruit, only a timestamp (see ProcessingTimeDriver).
+ */
+public class FruitPunctuation extends Fruit implements Punctuation {
+    public FruitPunctuation() {
+        super(0, "none");
+    }
+
+    @Override
+    public String getName() {
+        return "Punctuation";
+    }
+
+    @Override
+    public String toString(){
+        return "punctuation";
+    }
+}
@@ -0,0 +1,104 @@
+package customdatatypes;
+
+import sketches.HyperLogLogSketch;
+import sketches.KllQuantileSketch;
+import sketches.SpaceSavingSketch;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/*
+ * This class is an approximate 'R' data type for very large windows: it summarizes the fruits with three mergeable sketches
+ *  - a KLL sketch of the weights, to answer quantile queries (p50, p99..)
+ *  - a SpaceSaving sketch of the kinds, to find the most frequent fruits
+ *  - a HyperLogLog sketch of (kind, status, weight), to count the distinct fruits
+ * so the memory used by a window does not depend on how many fruits it receives. The accuracy of each estimate is documented
+ * in the corresponding sketch.
+ *
+ * It is a monoid: the identity element is the empty summary, and the associative binary operation is merge.
+ *
+ * Iterating the summary returns the estimates a report is made of: weight quantiles, top kinds and number of distinct fruits.
+ */
+public class FruitSketchSummary implements Iterable<FruitSketchSummary.Estimate> {
+
+    private static final double[] REPORTED_QUANTILES = {0.5, 0.9, 0.99};
+    private static final int REPORTED_TOP_KINDS = 3;
+
+    private final KllQuantileSketch weights = new KllQuantileSketch();
+    private final SpaceSavingSketch kinds = new SpaceSavingSketch();
+    private final HyperLogLogSketch distinctFruits = new HyperLogLogSketch();
+
+    public void add(Fruit f) {
+        weights.update(f.getWeight());
+        kinds.update(f.getName());
+        distinctFruits.update(((long) FruitDictionary.kindId(f.getName()) << 40)
+                | ((long) FruitDictionary.statusId(f.getStatus()) << 32)
+                | (Float.floatToIntBits(f.getWeight()) & 0xFFFFFFFFL));
+    }
+
+    //Merges the other summary into this one and returns this summary
+    public FruitSketchSummary merge(FruitSketchSummary other) {
+        weights.merge(other.weights);
+        kinds.merge(other.kinds);
+        distinctFruits.merge(other.distinctFruits);
+        return this;
+    }
+
+    public KllQuantileSketch getWeights() {
+        return weights;
+    }
+
+    public SpaceSavingSketch getKinds() {
+        return kinds;
+    }
+
+    public HyperLogLogSketch getDistinctFruits() {
+        return distinctFruits;
+    }
+
+    public long getCount() {
+        return weights.getN();
+    }
+
+    @Override
+    public Iterator<Estimate> iterator() {
+        List<Estimate> estimates = new ArrayList<>();
+        if (weights.isEmpty())
+            return estimates.iterator();
+        estimates.add(new Estimate("count", weights.getN()));
+        for (double q : REPORTED_QUANTILES)
+            estimates.add(new Estimate("p" + Math.round(q * 100) + " weight", weights.getQuantile(q)));
+        for (SpaceSavingSketch.HeavyHitter hh : kinds.topK(REPORTED_TOP_KINDS))
+            estimates.add(new Estimate("top kind " + hh.getKey(), hh.getCount()));
+        estimates.add(new Estimate("distinct fruits", distinctFruits.estimate()));
+        return estimates.iterator();
+    }
+
+    /*
+     * A single named estimate of the summary, this is the element type of the output stream
+     */
+    public static class Estimate {
+
+        private final String name;
+        private final double value;
+
+        public Estimate(String name, double value) {
+            this.name = name;
+            this.value = value;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return name + ": " + value;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package customoperators;
 
+import adaptive.OperatorStats;
 import org.streamreasoning.rsp4j.api.secret.content.Content;
 
 import java.util.ArrayList;
@@ -53,13 +54,21 @@ public class CustomFilterContent<I, W, R> implements Content<I, W, R> {
     //Element of type R that represents an empty content
     R emptyContent;
 
+    //Optional statistics of the predicate (elements tested and accepted), used by the adaptive planner
+    OperatorStats stats;
+
 
     public CustomFilterContent(Function<I, W> f1, Function<W, R> f2, BiFunction<R, R, R> sumR, R emptyContent, Predicate<I> filterCondition){
+        this(f1, f2, sumR, emptyContent, filterCondition, null);
+    }
+
+    public CustomFilterContent(Function<I, W> f1, Function<W, R> f2, BiFunction<R, R, R> sumR, R emptyContent, Predicate<I> filterCondition, OperatorStats stats){
         this.f1 = f1;
         this.f2 = f2;
         this.sumR = sumR;
         this.emptyContent = emptyContent;
         this.filterCondition = filterCondition;
+        this.stats = stats;
     }
 
 
@@ -70,7 +79,10 @@ public class CustomFilterContent<I, W, R> implements Content<I, W, R> {
 
     @Override
     public void add(I e) {
-        if(filterCondition.test(e))
+        boolean accepted = filterCondition.test(e);
+        if(stats != null)
+            stats.record(1, accepted ? 1 : 0, 0);
+        if(accepted)
             content.add(f1.apply(e));
         else System.out.print("Not adding element "+e.toString()+" to window content\n");
     }
@@ -1,5 +1,6 @@
 package customoperators;
 
+import adaptive.OperatorStats;
 import shared.contentimpl.EmptyContent;
 import org.streamreasoning.rsp4j.api.secret.content.Content;
 import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
@@ -26,12 +27,20 @@ public class CustomFilterContentFactory<I, W, R> implements ContentFactory<I, W,
     //Element of type R that represents an empty content
     R emptyContent;
 
+    //Optional statistics of the predicate (elements tested and accepted), used by the adaptive planner
+    OperatorStats stats;
+
     public CustomFilterContentFactory(Function<I, W> f1, Function<W, R> f2, BiFunction<R, R, R> sumR, R emptyContent, Predicate<I> filterCondition){
+        this(f1, f2, sumR, emptyContent, filterCondition, null);
+    }
+
+    public CustomFilterContentFactory(Function<I, W> f1, Function<W, R> f2, BiFunction<R, R, R> sumR, R emptyContent, Predicate<I> filterCondition, OperatorStats stats){
         this.f1 = f1;
         this.f2 = f2;
         this.sumR = sumR;
         this.emptyContent = emptyContent;
         this.filterCondition = filterCondition;
+        this.stats = stats;
     }
 
 
@@ -42,6 +51,6 @@ public class CustomFilterContentFactory<I, W, R> implements ContentFactory<I, W,
 
     @Override
     public Content<I, W, R> create() {
-        return new CustomFilterContent<>(f1, f2, sumR, emptyContent, filterCondition);
+        return new CustomFilterContent<>(f1, f2, sumR, emptyContent, filterCondition, stats);
     }
 }
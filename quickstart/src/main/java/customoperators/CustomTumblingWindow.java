@@ -1,4 +1,9 @@
 package customoperators;
+import runtime.ConcurrentTime;
+import runtime.Punctuation;
+import tracing.LatencyMarker;
+import tracing.LatencyTracer;
+import tracing.TracedContent;
 import shared.sds.TimeVaryingObject;
 import org.streamreasoning.rsp4j.api.RDFUtils;
 import org.streamreasoning.rsp4j.api.enums.ReportGrain;
@@ -12,9 +17,9 @@ import org.streamreasoning.rsp4j.api.secret.content.Content;
 import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
 import org.streamreasoning.rsp4j.api.secret.report.Report;
 import org.streamreasoning.rsp4j.api.secret.time.Time;
-import org.streamreasoning.rsp4j.api.secret.time.TimeInstant;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentSkipListMap;
 
 
 
@@ -42,6 +47,13 @@ import java.util.*;
  *
  * For the sake of the example, the operator has been simplified a lot (no Ticker o ReportGrain are being used), refer to the official documentation
  * to have more information about advanced features
+ *
+ * While the LatencyTracer is on, the window collects the latency markers of its elements: they are stamped when the window closes,
+ * and the reported content is wrapped in a TracedContent that stamps them again around the coalesce.
+ *
+ * With a ConcurrentTime the evaluation may run on the thread of another stream, so the window never hands out its active content:
+ * the closed windows are kept by closing time, and content(t) returns the last one closed at or before t (the ConcurrentTime only
+ * releases t once this stream passed it). Older closed windows are dropped as soon as a later one is read.
  */
 
 
@@ -57,6 +69,13 @@ public class CustomTumblingWindow<I, W, R extends Iterable<?>> implements Stream
     private Content<I, W, R> active_content;
     private Content<I, W, R> reported_content;
     private long t0;
+    //Latency markers of the elements of the active and of the reported window, empty unless tracing is on
+    private List<LatencyMarker> active_markers = new ArrayList<>();
+    private List<LatencyMarker> reported_markers = Collections.emptyList();
+    //With a ConcurrentTime: the closed windows and their contents by closing time, and the window of the last content read
+    private final boolean shared;
+    private final NavigableMap<Long, Map.Entry<Window, Content<I, W, R>>> closed = new ConcurrentSkipListMap<>();
+    private volatile Window evaluated_window;
     public CustomTumblingWindow(Time time, String name, ContentFactory<I, W, R> cf, Report report,
                                          long width) {
 
@@ -66,6 +85,8 @@ public class CustomTumblingWindow<I, W, R extends Iterable<?>> implements Stream
         this.report = report;
         this.width = width;
         this.t0 = time.getScope();
+        this.shared = time instanceof ConcurrentTime;
+        ConcurrentTime.register(time, name);
     }
 
 
@@ -91,8 +112,10 @@ public class CustomTumblingWindow<I, W, R extends Iterable<?>> implements Stream
 
     @Override
     public Content<I, W, R> content(long t_e) {
+        if(shared)
+            return closedContent(t_e);
         if(reported_content!=null)
-            return reported_content;
+            return reported_markers.isEmpty() ? reported_content : new TracedContent<>(reported_content, reported_markers);
         //If I need the content when the reported_content is null, it means that someone else triggered the computation, so we just return the active content if present
         if(active_content != null)
             return active_content;
@@ -101,11 +124,28 @@ public class CustomTumblingWindow<I, W, R extends Iterable<?>> implements Stream
 
     @Override
     public List<Content<I, W, R>> getContents(long t_e) {
+        if(shared)
+            return Collections.singletonList(closedContent(t_e));
         if(reported_content!= null)
             return Collections.singletonList(reported_content);
         else return Collections.singletonList(cf.createEmpty());
     }
 
+    //Window whose content is being reported, null between two reports (with a ConcurrentTime, the window of the last content read)
+    public Window getReportedWindow() {
+        return shared ? evaluated_window : reported_window;
+    }
+
+    //Last window closed at or before t_e; the evaluations come in time order, so the windows closed before it are not read again
+    private Content<I, W, R> closedContent(long t_e) {
+        Map.Entry<Long, Map.Entry<Window, Content<I, W, R>>> last = closed.floorEntry(t_e);
+        if(last == null)
+            return cf.createEmpty();
+        closed.headMap(last.getKey()).clear();
+        evaluated_window = last.getValue().getKey();
+        return last.getValue().getValue();
+    }
+
     //Helper method to open a window given a timestamp
     private Window scope(long t_e) {
         long c_sup = (long) Math.ceil(((double) Math.abs(t_e - t0) / (double) width)) * width;
@@ -116,14 +156,19 @@ public class CustomTumblingWindow<I, W, R extends Iterable<?>> implements Stream
     @Override
     public void compute(I arg, long ts) {
 
-        if (time.getAppTime() > ts) {
+        //Windows closed by the next element ignore the punctuations of the time-driven ones, but a ConcurrentTime
+        //learns from them that the stream passed ts
+        if (arg instanceof Punctuation) {
+            if (shared && ConcurrentTime.lastTime(time, name) <= ts)
+                ConcurrentTime.advanceTime(time, name, ts);
+            return;
+        }
+
+        if (ConcurrentTime.lastTime(time, name) > ts) {
             throw new OutOfOrderElementException("(" + arg + "," + ts + ")");
         }
         System.out.println("Received element (" + arg + ") at time " + ts + " ms at window "+name);
 
-        //We received an element at time ts, advance the application time
-        time.setAppTime(ts);
-
         if(active_window == null){
             active_window = scope(ts);
             active_content = cf.create();
@@ -131,21 +176,45 @@ public class CustomTumblingWindow<I, W, R extends Iterable<?>> implements Stream
 
         if(active_window.getO()<=ts && active_window.getC()>ts){
             active_content.add(arg);
+            trace(arg);
         }
 
         //If the report strategy matches (in this case, onWindowClose) then we need to report the current window and content
         if(report.report(active_window, active_content, ts, System.currentTimeMillis())){
             reported_window = active_window;
             reported_content = active_content;
+            reported_markers = active_markers;
+            active_markers = new ArrayList<>();
+            LatencyTracer.stampMarkers(reported_markers, LatencyTracer.WINDOW);
+            if(shared){
+                closed.put(reported_window.getC(), new AbstractMap.SimpleImmutableEntry<>(reported_window,
+                        reported_markers.isEmpty() ? reported_content : new TracedContent<>(reported_content, reported_markers)));
+                reported_window = null;
+                reported_content = null;
+                reported_markers = Collections.emptyList();
+            }
             //Adding an evaluation Time Instant to the Time object will tell the system that a computation needs to happen
-            time.addEvaluationTimeInstants(new TimeInstant(ts));
+            ConcurrentTime.addEvaluationTime(time, ts);
         }
 
         if (active_window.getC()<ts){
             active_window = scope(ts);
             active_content = cf.create();
             active_content.add(arg);
+            trace(arg);
         }
+
+        //We received an element at time ts, advance the application time (last: a ConcurrentTime may evaluate ts right away)
+        ConcurrentTime.advanceTime(time, name, ts);
+    }
+
+    //Stamps the arrival of a marked element at the window, and keeps its marker until the window closes
+    private void trace(I arg) {
+        if(!LatencyTracer.isOn())
+            return;
+        LatencyMarker marker = LatencyTracer.stamp(arg, LatencyTracer.INGEST_QUEUE);
+        if(marker != null)
+            active_markers.add(marker);
     }
 
     @Override
@@ -165,8 +234,12 @@ public class CustomTumblingWindow<I, W, R extends Iterable<?>> implements Stream
 
     @Override
     public void evict(long ts) {
+        //The active window belongs to the thread of the stream, the closed ones are dropped when read
+        if(shared)
+            return;
         reported_window = null;
         reported_content = null;
+        reported_markers = Collections.emptyList();
         if(active_window.getC() < ts){
             active_window = null;
             reported_content = null;
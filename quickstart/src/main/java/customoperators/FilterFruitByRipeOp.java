@@ -2,11 +2,13 @@ package customoperators;
 
 import customdatatypes.Fruit;
 import customdatatypes.FruitBasket;
+import fusion.FusibleFruitFilter;
 import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import tracing.LatencyTracer;
 
 import java.util.List;
 
-public class FilterFruitByRipeOp implements RelationToRelationOperator<FruitBasket> {
+public class FilterFruitByRipeOp implements RelationToRelationOperator<FruitBasket>, FusibleFruitFilter {
 
     // Name of the operands (one operand in this case)
     List<String> tvgNames;
@@ -27,12 +29,20 @@ public class FilterFruitByRipeOp implements RelationToRelationOperator<FruitBask
         FruitBasket res = new FruitBasket();
         //Add only the fruits with a status different from the one passed to the query
         for(Fruit fruit : op){
-            if(!fruit.getStatus().equals(query))
+            if(keep(fruit))
                 res.addFruit(fruit);
         }
+        //Only the fruits that passed the filter crossed this stage
+        if(LatencyTracer.isOn())
+            LatencyTracer.stampAll(res, LatencyTracer.R2R_PREFIX + resName);
         return res;
     }
 
+    @Override
+    public boolean keep(Fruit fruit) {
+        return !fruit.getStatus().equals(query);
+    }
+
     @Override
     public List<String> getTvgNames() {
         return tvgNames;
@@ -0,0 +1,51 @@
+package customoperators;
+
+import customdatatypes.Fruit;
+import customdatatypes.FruitAggregateTable;
+import org.streamreasoning.rsp4j.api.secret.content.Content;
+
+import java.util.function.Predicate;
+
+/*
+ * Pre-aggregating window content: instead of storing the fruits that enter the window and merging them on coalesce
+ * (as the AccumulatorContent and the CustomFilterContent do), each fruit is folded into a FruitAggregateTable as soon as it arrives.
+ * The memory used by a window is therefore constant, no matter how many fruits it receives, and coalesce is free.
+ *
+ * As in the CustomFilterContent, a predicate can be used to filter the elements before they enter the window.
+ *
+ * Notice that coalesce returns the table held by the content, not a copy: the operators downstream should not modify it
+ * (the GroupByFruitAggregateOp always creates a new table).
+ */
+public class FruitAggregateContent implements Content<Fruit, Fruit, FruitAggregateTable> {
+
+    //Aggregates of the fruits that entered the window
+    FruitAggregateTable table = new FruitAggregateTable();
+
+    //Predicate used to filter the elements entering the window
+    Predicate<Fruit> filterCondition;
+
+    //Number of elements added to the content
+    int size = 0;
+
+    public FruitAggregateContent(Predicate<Fruit> filterCondition){
+        this.filterCondition = filterCondition;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void add(Fruit e) {
+        if(filterCondition.test(e)) {
+            table.add(e);
+            size++;
+        }
+    }
+
+    @Override
+    public FruitAggregateTable coalesce() {
+        return table;
+    }
+}
@@ -0,0 +1,34 @@
+package customoperators;
+
+import customdatatypes.Fruit;
+import customdatatypes.FruitAggregateTable;
+import shared.contentimpl.EmptyContent;
+import org.streamreasoning.rsp4j.api.secret.content.Content;
+import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
+
+import java.util.function.Predicate;
+
+public class FruitAggregateContentFactory implements ContentFactory<Fruit, Fruit, FruitAggregateTable> {
+
+    //Predicate used to filter the elements entering the window
+    Predicate<Fruit> filterCondition;
+
+    public FruitAggregateContentFactory(){
+        this(fruit -> true);
+    }
+
+    public FruitAggregateContentFactory(Predicate<Fruit> filterCondition){
+        this.filterCondition = filterCondition;
+    }
+
+
+    @Override
+    public Content<Fruit, Fruit, FruitAggregateTable> createEmpty() {
+        return new EmptyContent<>(new FruitAggregateTable());
+    }
+
+    @Override
+    public Content<Fruit, Fruit, FruitAggregateTable> create() {
+        return new FruitAggregateContent(filterCondition);
+    }
+}
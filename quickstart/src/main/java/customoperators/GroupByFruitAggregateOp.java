@@ -0,0 +1,59 @@
+package customoperators;
+
+import customdatatypes.FruitAggregateTable;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+
+import java.util.List;
+
+/*
+ * Group-by/aggregate operator on FruitAggregateTables.
+ * The operands are merged together (so the operator can be applied to the windows of more than one stream) and the result is
+ * rolled up to the requested grouping, e.g. KIND gives count, sum, min, max, avg and approximate distinct weights per fruit kind.
+ *
+ * All the work is done on the dense arrays of the tables: the cost of the operator does not depend on the number of fruits
+ * in the windows, but only on the (tiny) number of groups.
+ */
+public class GroupByFruitAggregateOp implements RelationToRelationOperator<FruitAggregateTable> {
+
+    public enum GroupBy {KIND, STATUS, KIND_AND_STATUS, NONE}
+
+    // Name of the operands
+    List<String> tvgNames;
+    //Name of the result
+    String resName;
+    //Attributes to group by
+    GroupBy groupBy;
+
+    public GroupByFruitAggregateOp(GroupBy groupBy, List<String> tvgNames, String resName){
+        this.groupBy = groupBy;
+        this.tvgNames = tvgNames;
+        this.resName = resName;
+    }
+
+    @Override
+    public FruitAggregateTable eval(List<FruitAggregateTable> datasets) {
+        FruitAggregateTable merged = new FruitAggregateTable();
+        for(FruitAggregateTable table : datasets)
+            merged.merge(table);
+        switch (groupBy){
+            case KIND:
+                return merged.rollUp(true, false);
+            case STATUS:
+                return merged.rollUp(false, true);
+            case NONE:
+                return merged.rollUp(false, false);
+            default:
+                return merged;
+        }
+    }
+
+    @Override
+    public List<String> getTvgNames() {
+        return tvgNames;
+    }
+
+    @Override
+    public String getResName() {
+        return resName;
+    }
+}
@@ -2,6 +2,7 @@ package customoperators;
 
 import customdatatypes.FruitBasket;
 import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import tracing.LatencyTracer;
 
 import java.util.List;
 
@@ -19,6 +20,8 @@ public class JoinFruitBasketOp implements RelationToRelationOperator<FruitBasket
         FruitBasket res = new FruitBasket();
         res.addAll(datasets.get(0));
         res.addAll(datasets.get(1));
+        if(LatencyTracer.isOn())
+            LatencyTracer.stampAll(res, LatencyTracer.R2R_PREFIX + resName);
         return res;
     }
 
@@ -0,0 +1,38 @@
+package customoperators;
+
+import customdatatypes.FruitSketchSummary;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+
+import java.util.List;
+
+/*
+ * Union of FruitSketchSummaries: the result summarizes the fruits of all the operands, with the same accuracy guarantees.
+ * The operands are not modified, they are merged into a new summary.
+ */
+public class MergeFruitSketchOp implements RelationToRelationOperator<FruitSketchSummary> {
+    List<String> tvgNames;
+    String resName;
+
+    public MergeFruitSketchOp(List<String> tvgNames, String resName){
+        this.tvgNames = tvgNames;
+        this.resName = resName;
+    }
+
+    @Override
+    public FruitSketchSummary eval(List<FruitSketchSummary> datasets) {
+        FruitSketchSummary res = new FruitSketchSummary();
+        for(FruitSketchSummary summary : datasets)
+            res.merge(summary);
+        return res;
+    }
+
+    @Override
+    public List<String> getTvgNames() {
+        return tvgNames;
+    }
+
+    @Override
+    public String getResName() {
+        return resName;
+    }
+}
@@ -0,0 +1,7 @@
+package customoperators;
+
+import customdatatypes.FruitAggregateTable;
+import org.streamreasoning.rsp4j.api.operators.r2s.RelationToStreamOperator;
+
+public class RelationToStreamAggregateOp implements RelationToStreamOperator<FruitAggregateTable, FruitAggregateTable.Group> {
+}
@@ -0,0 +1,7 @@
+package customoperators;
+
+import customdatatypes.FruitSketchSummary;
+import org.streamreasoning.rsp4j.api.operators.r2s.RelationToStreamOperator;
+
+public class RelationToStreamEstimateOp implements RelationToStreamOperator<FruitSketchSummary, FruitSketchSummary.Estimate> {
+}
@@ -0,0 +1,51 @@
+package customoperators;
+
+import org.streamreasoning.rsp4j.api.secret.content.Content;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/*
+ * Window content backed by a sketch: every element is transformed into an element of type W (f1) and folded into a single sketch of
+ * type R (update), so no element is ever stored and the memory of a window is the memory of its sketch.
+ * Coalesce just returns the sketch, which is already the 'R' representation of the whole window.
+ *
+ * Sketches are mergeable: R2R operators such as MergeFruitSketchOp merge the sketches of different windows (or of different
+ * workers) into one that summarizes all of their elements.
+ */
+public class SketchContent<I, W, R> implements Content<I, W, R> {
+
+    //Sketch summarizing the elements that entered the window
+    R sketch;
+
+    //Function to convert an element of type I in an element of type W
+    Function<I, W> f1;
+
+    //Function to add an element of type W to the sketch
+    BiConsumer<R, W> update;
+
+    //Number of elements added to the content
+    int size = 0;
+
+    public SketchContent(Function<I, W> f1, BiConsumer<R, W> update, R sketch){
+        this.f1 = f1;
+        this.update = update;
+        this.sketch = sketch;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void add(I e) {
+        update.accept(sketch, f1.apply(e));
+        size++;
+    }
+
+    @Override
+    public R coalesce() {
+        return sketch;
+    }
+}
@@ -0,0 +1,37 @@
+package customoperators;
+
+import shared.contentimpl.EmptyContent;
+import org.streamreasoning.rsp4j.api.secret.content.Content;
+import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
+
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+public class SketchContentFactory<I, W, R> implements ContentFactory<I, W, R> {
+
+    //Function to convert an element of type I in an element of type W
+    Function<I, W> f1;
+
+    //Function to create a new, empty, sketch
+    Supplier<R> newSketch;
+
+    //Function to add an element of type W to a sketch
+    BiConsumer<R, W> update;
+
+    public SketchContentFactory(Function<I, W> f1, Supplier<R> newSketch, BiConsumer<R, W> update){
+        this.f1 = f1;
+        this.newSketch = newSketch;
+        this.update = update;
+    }
+
+    @Override
+    public Content<I, W, R> createEmpty() {
+        return new EmptyContent<>(newSketch.get());
+    }
+
+    @Override
+    public Content<I, W, R> create() {
+        return new SketchContent<>(f1, update, newSketch.get());
+    }
+}
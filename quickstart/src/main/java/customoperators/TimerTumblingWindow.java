@@ -0,0 +1,221 @@
+package customoperators;
+import runtime.ConcurrentTime;
+import runtime.HierarchicalTimingWheel;
+import runtime.Punctuation;
+import shared.sds.TimeVaryingObject;
+import org.streamreasoning.rsp4j.api.RDFUtils;
+import org.streamreasoning.rsp4j.api.enums.ReportGrain;
+import org.streamreasoning.rsp4j.api.enums.Tick;
+import org.streamreasoning.rsp4j.api.exceptions.OutOfOrderElementException;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.StreamToRelationOperator;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.instance.Window;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.instance.WindowImpl;
+import org.streamreasoning.rsp4j.api.sds.timevarying.TimeVarying;
+import org.streamreasoning.rsp4j.api.secret.content.Content;
+import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
+import org.streamreasoning.rsp4j.api.secret.report.Report;
+import org.streamreasoning.rsp4j.api.secret.time.Time;
+
+import java.util.AbstractMap;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+
+/*
+ * Time-driven version of the CustomTumblingWindow.
+ *
+ * The CustomTumblingWindow closes a window only when an element with a later timestamp arrives, so on a quiet stream the last window
+ * is never reported. Here, opening a window schedules a timer at its closing time on a HierarchicalTimingWheel, and the window is
+ * closed (and reported, if the Report agrees) as soon as the clock reaches that time, whatever moves the clock:
+ *  - the timestamp of a new element (event time)
+ *  - a Punctuation pushed in the stream: it advances the time without adding anything to the window.
+ *    The ProcessingTimeDriver pushes punctuations on wall-clock timers, which bounds the result latency on sparse streams.
+ *
+ * Windows are aligned to the scope of the Time object: an element at ts belongs to [o, o + width) with o <= ts.
+ *
+ * A wheel can be shared by many windows (e.g. one per key) as long as all of them are driven by the same thread.
+ *
+ * With a ConcurrentTime the closed windows are kept by closing time and content(t) returns the last one closed at or before t, as in
+ * the CustomTumblingWindow: the evaluation may run on the thread of another stream, and never sees the active content.
+ */
+
+
+public class TimerTumblingWindow<I, W, R extends Iterable<?>> implements StreamToRelationOperator<I, W, R> {
+
+    protected final Time time;
+    protected final String name;
+    protected final ContentFactory<I, W, R> cf;
+    protected Report report;
+    private final long width;
+    private final HierarchicalTimingWheel wheel;
+    private Window active_window;
+    private Window reported_window;
+    private Content<I, W, R> active_content;
+    private Content<I, W, R> reported_content;
+    private long t0;
+    //With a ConcurrentTime: the closed windows and their contents by closing time, and the window of the last content read
+    private final boolean shared;
+    private final NavigableMap<Long, Map.Entry<Window, Content<I, W, R>>> closed = new ConcurrentSkipListMap<>();
+    private volatile Window evaluated_window;
+
+    public TimerTumblingWindow(Time time, String name, ContentFactory<I, W, R> cf, Report report,
+                               long width) {
+        this(time, name, cf, report, width, new HierarchicalTimingWheel(1, 64, time.getScope()));
+    }
+
+    public TimerTumblingWindow(Time time, String name, ContentFactory<I, W, R> cf, Report report,
+                               long width, HierarchicalTimingWheel wheel) {
+
+        this.time = time;
+        this.name = name;
+        this.cf = cf;
+        this.report = report;
+        this.width = width;
+        this.wheel = wheel;
+        this.t0 = time.getScope();
+        this.shared = time instanceof ConcurrentTime;
+        ConcurrentTime.register(time, name);
+    }
+
+
+    @Override
+    public Report report() {
+        return report;
+    }
+
+    @Override
+    public Tick tick() {
+        return Tick.TIME_DRIVEN;
+    }
+
+    @Override
+    public Time time() {
+        return time;
+    }
+
+    @Override
+    public ReportGrain grain() {
+        return ReportGrain.SINGLE;
+    }
+
+    @Override
+    public Content<I, W, R> content(long t_e) {
+        if(shared)
+            return closedContent(t_e);
+        if(reported_content!=null)
+            return reported_content;
+        if(active_content != null)
+            return active_content;
+        return cf.createEmpty();
+    }
+
+    @Override
+    public List<Content<I, W, R>> getContents(long t_e) {
+        if(shared)
+            return Collections.singletonList(closedContent(t_e));
+        if(reported_content!= null)
+            return Collections.singletonList(reported_content);
+        else return Collections.singletonList(cf.createEmpty());
+    }
+
+    public long getWidth() {
+        return width;
+    }
+
+    //Window whose content is being reported (with a ConcurrentTime, the window of the last content read)
+    public Window getReportedWindow() {
+        return shared ? evaluated_window : reported_window;
+    }
+
+    //Last window closed at or before t_e; the evaluations come in time order, so the windows closed before it are not read again
+    private Content<I, W, R> closedContent(long t_e) {
+        Map.Entry<Long, Map.Entry<Window, Content<I, W, R>>> last = closed.floorEntry(t_e);
+        if(last == null)
+            return cf.createEmpty();
+        closed.headMap(last.getKey()).clear();
+        evaluated_window = last.getValue().getKey();
+        return last.getValue().getValue();
+    }
+
+    //Helper method to open the window that contains the given timestamp
+    private Window scope(long t_e) {
+        long o_i = t0 + Math.floorDiv(t_e - t0, width) * width;
+        return new WindowImpl(o_i, o_i + width);
+    }
+
+    @Override
+    public void compute(I arg, long ts) {
+
+        boolean punctuation = arg instanceof Punctuation;
+
+        if (ConcurrentTime.lastTime(time, name) > ts) {
+            //A late punctuation carries no information
+            if(punctuation)
+                return;
+            throw new OutOfOrderElementException("(" + arg + "," + ts + ")");
+        }
+
+        //Fire the timers up to ts: the active window is closed (and reported) before the element is assigned to a window
+        wheel.advanceTo(ts);
+
+        if(!punctuation){
+            System.out.println("Received element (" + arg + ") at time " + ts + " ms at window "+name);
+
+            if(active_window == null){
+                active_window = scope(ts);
+                active_content = cf.create();
+                Window opened = active_window;
+                wheel.schedule(opened.getC(), now -> close(opened));
+            }
+            active_content.add(arg);
+        }
+
+        //Last: a ConcurrentTime may evaluate the windows closed above as soon as the watermark passes them
+        ConcurrentTime.advanceTime(time, name, ts);
+    }
+
+    //Timer action: the clock reached the closing time of the window
+    private void close(Window window) {
+        if(window != active_window)
+            return;
+        if(report.report(active_window, active_content, window.getC(), System.currentTimeMillis())){
+            if(shared){
+                closed.put(window.getC(), new AbstractMap.SimpleImmutableEntry<>(active_window, active_content));
+            } else {
+                reported_window = active_window;
+                reported_content = active_content;
+            }
+            //Adding an evaluation Time Instant to the Time object will tell the system that a computation needs to happen
+            ConcurrentTime.addEvaluationTime(time, window.getC());
+        }
+        active_window = null;
+        active_content = null;
+    }
+
+    @Override
+    public TimeVarying<R> get() {
+        return new TimeVaryingObject<>(this, RDFUtils.createIRI(name));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void evict() {
+
+    }
+
+    @Override
+    public void evict(long ts) {
+        //The closed windows of a ConcurrentTime are dropped when read
+        if(shared)
+            return;
+        reported_window = null;
+        reported_content = null;
+    }
+}
@@ -0,0 +1,287 @@
+package distributed;
+
+import codec.RelationCodec;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.BinaryOperator;
+
+/*
+ * Coordinator of a distributed window: it receives the partial window contents of the WorkerNodes over localhost sockets and merges
+ * the partials of the same window with the sumR monoid of the content (e.g. FruitAggregateTable::merge), exactly as a window would
+ * coalesce the contents of a single JVM.
+ *
+ * A merged window is emitted when it is closed on every worker, i.e. when its closing time is at or before the low watermark of the
+ * workers (the minimum of their watermarks, a worker that left counts as done). Windows are therefore emitted in event-time order,
+ * once, and only when complete, which is what OnWindowClose gives in a single JVM. Nothing is emitted until all the expected workers
+ * have connected, so a slow-starting worker cannot make its own partials late.
+ *
+ * Every merged window is put in the output stream as a single element, with the closing time of the window as timestamp. The stream
+ * is the input of the coordinator Task, whose S2R operator is a MergedTumblingWindow: the R2R and R2S operators of the Task run on
+ * the merged windows, as they would on the windows of a single JVM (see FruitDistributedGuide).
+ * The coordinator uses a single selector thread for all the connections, the output stream is only written by that thread.
+ *
+ * A connection is bound to the worker id of its HELLO frame: the id carried by the later frames is ignored, so a worker can only
+ * move its own watermark, and a second HELLO with an id already seen is refused.
+ */
+public class CoordinatorNode<R> implements AutoCloseable {
+
+    private final int expectedWorkers;
+    private final RelationCodec<R> codec;
+    private final BinaryOperator<R> sumR;
+    private final DataStream<R> out;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread loop;
+
+    //Watermark of every worker that connected, Long.MAX_VALUE once it left
+    private final Map<Integer, Long> watermarks = new HashMap<>();
+    //Partially merged windows by closing time
+    private final TreeMap<Long, R> pending = new TreeMap<>();
+    private long t0;
+    private long width = -1;
+    //Every window closing at or before this time was emitted
+    private volatile long closedUpTo = Long.MIN_VALUE;
+    //Only written by the selector thread
+    private volatile long mergedWindows = 0;
+    private volatile long latePartials = 0;
+    private volatile long receivedBytes = 0;
+    private volatile boolean running = true;
+
+    public CoordinatorNode(int port, int expectedWorkers, RelationCodec<R> codec, BinaryOperator<R> sumR, DataStream<R> out)
+            throws IOException {
+        if (expectedWorkers < 1)
+            throw new IllegalArgumentException("At least one worker is required");
+        this.expectedWorkers = expectedWorkers;
+        this.codec = codec;
+        this.sumR = sumR;
+        this.out = out;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        this.server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        this.server.configureBlocking(false);
+        this.server.register(selector, SelectionKey.OP_ACCEPT);
+        this.loop = new Thread(this::run, "coordinator-" + getPort());
+    }
+
+    public void start() {
+        loop.start();
+    }
+
+    //The actual port, useful when the coordinator was created on port 0
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    private void run() {
+        try {
+            while (running) {
+                selector.select(100);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid())
+                        continue;
+                    if (key.isAcceptable())
+                        accept();
+                    else if (key.isReadable())
+                        read(key);
+                }
+            }
+        } catch (IOException e) {
+            if (running)
+                e.printStackTrace();
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = server.accept();
+        if (channel == null)
+            return;
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ, new Connection());
+    }
+
+    private void read(SelectionKey key) {
+        Connection c = (Connection) key.attachment();
+        SocketChannel channel = (SocketChannel) key.channel();
+        try {
+            int read = channel.read(c.buffer);
+            if (read < 0) {
+                disconnect(key, c);
+                return;
+            }
+            receivedBytes += read;
+            c.buffer.flip();
+            while (c.buffer.remaining() >= 4) {
+                int length = c.buffer.getInt(c.buffer.position());
+                if (length < Frames.HEADER || length > Frames.MAX_FRAME)
+                    throw new IOException("Malformed frame of " + length + " bytes");
+                if (c.buffer.remaining() < 4 + length) {
+                    c.ensureCapacity(4 + length);
+                    break;
+                }
+                c.buffer.getInt();
+                byte type = c.buffer.get();
+                int worker = c.buffer.getInt();
+                long a = c.buffer.getLong();
+                long b = c.buffer.getLong();
+                byte[] payload = new byte[length - Frames.HEADER];
+                c.buffer.get(payload);
+                if (!handle(c, type, worker, a, b, payload)) {
+                    disconnect(key, c);
+                    return;
+                }
+            }
+            c.buffer.compact();
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Dropping worker " + c.worker + ": " + e.getMessage());
+            disconnect(key, c);
+        }
+    }
+
+    //Returns false if the connection must be closed; 'worker' is only read by HELLO, the other frames belong to c.worker
+    private boolean handle(Connection c, byte type, int worker, long a, long b, byte[] payload) {
+        switch (type) {
+            case Frames.HELLO:
+                if (width < 0) {
+                    t0 = a;
+                    width = b;
+                } else if (t0 != a || width != b) {
+                    System.err.println("Worker " + worker + " windows (scope " + a + ", width " + b + ") are not aligned with (scope "
+                            + t0 + ", width " + width + ")");
+                    return false;
+                }
+                if (c.worker != null || watermarks.containsKey(worker)) {
+                    System.err.println("Worker " + worker + " is already connected");
+                    return false;
+                }
+                c.worker = worker;
+                watermarks.put(worker, Long.MIN_VALUE);
+                break;
+            case Frames.PARTIAL:
+                if (c.worker == null)
+                    return false;
+                if (b <= closedUpTo || b - a != width || Math.floorMod(a - t0, width) != 0) {
+                    latePartials++;
+                    break;
+                }
+                pending.merge(b, codec.decode(payload), sumR);
+                advance(c.worker, b);
+                break;
+            case Frames.WATERMARK:
+                if (c.worker == null)
+                    return false;
+                advance(c.worker, a);
+                break;
+            case Frames.BYE:
+                if (c.worker != null)
+                    advance(c.worker, Long.MAX_VALUE);
+                return false;
+            default:
+                return false;
+        }
+        emitClosedWindows();
+        return true;
+    }
+
+    private void advance(int worker, long watermark) {
+        watermarks.merge(worker, watermark, Math::max);
+    }
+
+    private void emitClosedWindows() {
+        if (watermarks.size() < expectedWorkers)
+            return;
+        long low = Long.MAX_VALUE;
+        for (long w : watermarks.values())
+            low = Math.min(low, w);
+        while (!pending.isEmpty() && pending.firstKey() <= low) {
+            Map.Entry<Long, R> window = pending.pollFirstEntry();
+            out.put(window.getValue(), window.getKey());
+            mergedWindows++;
+        }
+        closedUpTo = Math.max(closedUpTo, low);
+        if (closedUpTo == Long.MAX_VALUE)
+            synchronized (this) {
+                notifyAll();
+            }
+    }
+
+    //A worker that disconnects without saying goodbye will not send anything else either
+    private void disconnect(SelectionKey key, Connection c) {
+        key.cancel();
+        try {
+            key.channel().close();
+        } catch (IOException ignored) {
+        }
+        if (c.worker != null) {
+            advance(c.worker, Long.MAX_VALUE);
+            emitClosedWindows();
+        }
+    }
+
+    //Waits until all the expected workers connected and left, returns false on timeout
+    public synchronized boolean awaitCompletion(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        while (closedUpTo != Long.MAX_VALUE) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0)
+                return false;
+            wait(left);
+        }
+        return true;
+    }
+
+    public long getMergedWindows() {
+        return mergedWindows;
+    }
+
+    public long getLatePartials() {
+        return latePartials;
+    }
+
+    public long getReceivedBytes() {
+        return receivedBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        selector.wakeup();
+        try {
+            loop.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (SelectionKey key : selector.keys())
+            key.channel().close();
+        selector.close();
+    }
+
+    private static final class Connection {
+        private ByteBuffer buffer = ByteBuffer.allocate(64 * 1024);
+        private Integer worker;
+
+        //Called on a flipped buffer that does not hold a whole frame
+        void ensureCapacity(int frame) {
+            if (buffer.capacity() >= frame)
+                return;
+            ByteBuffer larger = ByteBuffer.allocate(Integer.highestOneBit(frame - 1) << 1);
+            larger.put(buffer);
+            larger.flip();
+            buffer = larger;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package distributed;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+
+/*
+ * Wire format between workers and coordinator. Every frame is
+ *
+ *   int length | byte type | int worker | long a | long b | payload
+ *
+ * where length counts the bytes after itself, worker is only trusted in HELLO (the coordinator binds the connection to it),
+ * and a, b depend on the type:
+ *  - HELLO     a = scope (t0) of the worker windows, b = window width: the coordinator refuses workers with a different alignment
+ *  - PARTIAL   a = opening time, b = closing time of the window, the payload is the partial content encoded by a RelationCodec
+ *  - WATERMARK a = event time the worker reached: it will not send partials of windows closing at or before it
+ *  - BYE       the worker stops, it will not send anything else
+ */
+final class Frames {
+
+    static final byte HELLO = 1;
+    static final byte PARTIAL = 2;
+    static final byte WATERMARK = 3;
+    static final byte BYE = 4;
+
+    static final int HEADER = 1 + 4 + 8 + 8;
+    static final int MAX_FRAME = 64 * 1024 * 1024;
+
+    private Frames() {
+    }
+
+    static void write(SocketChannel channel, byte type, int worker, long a, long b, byte[] payload) throws IOException {
+        int length = HEADER + payload.length;
+        ByteBuffer frame = ByteBuffer.allocate(4 + length);
+        frame.putInt(length).put(type).putInt(worker).putLong(a).putLong(b).put(payload).flip();
+        while (frame.hasRemaining())
+            channel.write(frame);
+    }
+}
@@ -0,0 +1,153 @@
+package distributed;
+
+import org.streamreasoning.rsp4j.api.RDFUtils;
+import org.streamreasoning.rsp4j.api.enums.ReportGrain;
+import org.streamreasoning.rsp4j.api.enums.Tick;
+import org.streamreasoning.rsp4j.api.exceptions.OutOfOrderElementException;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.StreamToRelationOperator;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.instance.Window;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.instance.WindowImpl;
+import org.streamreasoning.rsp4j.api.sds.timevarying.TimeVarying;
+import org.streamreasoning.rsp4j.api.secret.content.Content;
+import org.streamreasoning.rsp4j.api.secret.report.Report;
+import org.streamreasoning.rsp4j.api.secret.time.Time;
+import org.streamreasoning.rsp4j.api.secret.time.TimeInstant;
+import shared.sds.TimeVaryingObject;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/*
+ * Coordinator side of a distributed tumbling window: the S2R operator of the coordinator Task, fed by the CoordinatorNode.
+ *
+ * The workers evaluate the S2R operator of the Task (a TimerTumblingWindow) on their own streams; the coordinator merges their
+ * partials and puts every merged window in its output stream, with the closing time of the window as timestamp. This operator reads
+ * that stream: every element is the whole content of the window [ts - width, ts), so the window closes as soon as it arrives, and it
+ * is reported (and evaluated by the R2R and R2S operators of the Task) if the Report agrees, e.g. with OnWindowClose.
+ *
+ * Give it the name of the window on the workers: the R2R operators of the Task refer to the windows by name, and they see the same
+ * relation they would see with a single JVM. The width must be the width of the worker windows.
+ */
+public class MergedTumblingWindow<R extends Iterable<?>> implements StreamToRelationOperator<R, R, R> {
+
+    protected final Time time;
+    protected final String name;
+    protected Report report;
+    private final long width;
+    //Relation of an empty content, and sumR used by the content to add a relation
+    private final Supplier<R> empty;
+    private final BinaryOperator<R> sumR;
+    private Window reported_window;
+    private Content<R, R, R> reported_content;
+
+    public MergedTumblingWindow(Time time, String name, Supplier<R> empty, BinaryOperator<R> sumR, Report report, long width) {
+        this.time = time;
+        this.name = name;
+        this.empty = empty;
+        this.sumR = sumR;
+        this.report = report;
+        this.width = width;
+    }
+
+    @Override
+    public Report report() {
+        return report;
+    }
+
+    @Override
+    public Tick tick() {
+        return Tick.TIME_DRIVEN;
+    }
+
+    @Override
+    public Time time() {
+        return time;
+    }
+
+    @Override
+    public ReportGrain grain() {
+        return ReportGrain.SINGLE;
+    }
+
+    @Override
+    public Content<R, R, R> content(long t_e) {
+        if(reported_content != null)
+            return reported_content;
+        return new MergedContent();
+    }
+
+    @Override
+    public List<Content<R, R, R>> getContents(long t_e) {
+        return Collections.singletonList(content(t_e));
+    }
+
+    public Window getReportedWindow() {
+        return reported_window;
+    }
+
+    @Override
+    public void compute(R merged, long ts) {
+
+        if (time.getAppTime() > ts) {
+            throw new OutOfOrderElementException("(" + merged + "," + ts + ")");
+        }
+        time.setAppTime(ts);
+
+        Window window = new WindowImpl(ts - width, ts);
+        MergedContent content = new MergedContent();
+        content.add(merged);
+
+        //The element arrives when its window closes on every worker, the Report decides whether it is reported
+        if(report.report(window, content, ts, System.currentTimeMillis())){
+            reported_window = window;
+            reported_content = content;
+            time.addEvaluationTimeInstants(new TimeInstant(ts));
+        }
+    }
+
+    @Override
+    public TimeVarying<R> get() {
+        return new TimeVaryingObject<>(this, RDFUtils.createIRI(name));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void evict() {
+
+    }
+
+    @Override
+    public void evict(long ts) {
+        reported_window = null;
+        reported_content = null;
+    }
+
+    //Content of a merged window: the merged relation itself
+    private final class MergedContent implements Content<R, R, R> {
+
+        private R relation;
+        private int size = 0;
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public void add(R e) {
+            relation = relation == null ? e : sumR.apply(relation, e);
+            size++;
+        }
+
+        @Override
+        public R coalesce() {
+            return relation == null ? empty.get() : relation;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package distributed;
+
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.Consumer;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Stream of the merged windows of a CoordinatorNode, one element per window, it works exactly as the FruitDataStream.
+ * It is the input stream of the coordinator Task (see MergedTumblingWindow).
+ */
+public class MergedWindowStream<R> implements DataStream<R> {
+
+    List<Consumer<R>> consumerList = new ArrayList<>();
+    String name;
+
+    public MergedWindowStream(String name){
+        this.name = name;
+    }
+
+    @Override
+    public void addConsumer(Consumer<R> consumer) {
+        this.consumerList.add(consumer);
+    }
+
+    @Override
+    public void put(R window, long ts) {
+        consumerList.forEach(c->c.notify(this, window, ts));
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+}
@@ -0,0 +1,19 @@
+package distributed;
+
+/*
+ * Assignment of the input streams to the workers: every worker evaluates the windows of the streams it owns,
+ * and all the workers compute the same assignment without talking to each other.
+ */
+public final class StreamPartitioner {
+
+    private StreamPartitioner() {
+    }
+
+    public static int owner(String stream, int workers) {
+        return Math.floorMod(stream.hashCode(), workers);
+    }
+
+    public static boolean owns(int worker, String stream, int workers) {
+        return owner(stream, workers) == worker;
+    }
+}
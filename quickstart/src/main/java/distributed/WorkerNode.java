@@ -0,0 +1,108 @@
+package distributed;
+
+import codec.RelationCodec;
+import customoperators.TimerTumblingWindow;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.Consumer;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.instance.Window;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import runtime.ConcurrentTime;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.SocketChannel;
+
+/*
+ * Worker side of a distributed window: it runs the S2R operator of the Task on the streams assigned to this worker (see
+ * StreamPartitioner) and ships the content of every closed window (a partial aggregate) to the CoordinatorNode, which merges the
+ * partials of all the workers and feeds them to the R2R and R2S operators of the Task (see MergedTumblingWindow).
+ *
+ * The S2R operator is a TimerTumblingWindow on a ConcurrentTime (the streams of a worker are fed by different threads). With an
+ * OnWindowClose report, a partial is shipped exactly when the window closes, in event time, and punctuations close windows on quiet
+ * streams. Windows are aligned to the scope of the Time: all the workers of a coordinator must use the same scope and width, which
+ * the coordinator checks when the worker connects.
+ *
+ * Partials are always sent before the watermark that follows them on the same connection, so the coordinator never closes a window
+ * that a worker still has to contribute to.
+ */
+public class WorkerNode<I, W, R extends Iterable<?>> implements Consumer<I>, AutoCloseable {
+
+    private final int workerId;
+    private final RelationCodec<R> codec;
+    private final long t0;
+    private final long width;
+    private final ConcurrentTime time;
+    private final TimerTumblingWindow<I, W, R> window;
+    private final SocketChannel channel;
+    //Index of the last window boundary announced to the coordinator
+    private long announced_slot;
+    private long shipped = 0;
+    private boolean closed = false;
+
+    public WorkerNode(int workerId, InetSocketAddress coordinator, TimerTumblingWindow<I, W, R> s2r, RelationCodec<R> codec)
+            throws IOException {
+        if (!(s2r.time() instanceof ConcurrentTime))
+            throw new IllegalArgumentException("The window " + s2r.getName() + " of a worker needs a ConcurrentTime");
+        this.workerId = workerId;
+        this.codec = codec;
+        this.time = (ConcurrentTime) s2r.time();
+        this.t0 = time.getScope();
+        this.width = s2r.getWidth();
+        this.window = s2r;
+        this.announced_slot = Long.MIN_VALUE;
+
+        this.channel = SocketChannel.open(coordinator);
+        this.channel.socket().setTcpNoDelay(true);
+        Frames.write(channel, Frames.HELLO, workerId, t0, width, new byte[0]);
+    }
+
+    @Override
+    public synchronized void notify(DataStream<I> inputStream, I arg, long ts) {
+        if(closed)
+            return;
+        window.compute(arg, ts);
+        try {
+            shipClosedWindows();
+            long slot = Math.floorDiv(ts - t0, width);
+            if(slot > announced_slot){
+                Frames.write(channel, Frames.WATERMARK, workerId, ts, 0, new byte[0]);
+                announced_slot = slot;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lost the connection to the coordinator", e);
+        }
+    }
+
+    private void shipClosedWindows() throws IOException {
+        while(time.hasEvaluationInstant()){
+            //One evaluation instant is added for every window closed by the last element
+            time.getEvaluationTime();
+            R partial = window.content(time.getEvaluatedTime()).coalesce();
+            Window closed = window.getReportedWindow();
+            Frames.write(channel, Frames.PARTIAL, workerId, closed.getO(), closed.getC(), codec.encode(partial));
+            window.evict(closed.getC());
+            shipped++;
+        }
+    }
+
+    public int getWorkerId() {
+        return workerId;
+    }
+
+    public synchronized long getShippedPartials() {
+        return shipped;
+    }
+
+    //The window still open is not shipped: with OnWindowClose semantics, an incomplete window is never reported
+    @Override
+    public synchronized void close() throws IOException {
+        if(closed)
+            return;
+        closed = true;
+        try {
+            Frames.write(channel, Frames.BYE, workerId, 0, 0, new byte[0]);
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package examples;
+
+import adaptive.AdaptivePreFilter;
+import adaptive.AdaptiveSemiJoinOp;
+import adaptive.FilterChainOp;
+import adaptive.OperatorStats;
+import customdatatypes.Fruit;
+import customdatatypes.FruitBasket;
+import customdatatypes.FruitDataStream;
+import customoperators.CustomTumblingWindow;
+import customoperators.FilterFruitByRipeOp;
+import customoperators.RelationToStreamFruitOp;
+import org.streamreasoning.rsp4j.api.coordinators.ContinuousProgram;
+import shared.coordinators.ContinuousProgramImpl;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import org.streamreasoning.rsp4j.api.operators.r2s.RelationToStreamOperator;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.StreamToRelationOperator;
+import org.streamreasoning.rsp4j.api.querying.Task;
+import shared.querying.TaskImpl;
+import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
+import org.streamreasoning.rsp4j.api.secret.report.Report;
+import org.streamreasoning.rsp4j.api.secret.report.ReportImpl;
+import org.streamreasoning.rsp4j.api.secret.report.strategies.OnWindowClose;
+import org.streamreasoning.rsp4j.api.secret.time.Time;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import runtime.ConcurrentTime;
+import shared.contentimpl.factories.AccumulatorContentFactory;
+import shared.operatorsimpl.r2r.DAG.DAGImpl;
+import shared.sds.SDSDefault;
+import stream.FruitStreamGenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * The query of the FruitAdvancedGuide, re-planned at runtime from the statistics of its operators:
+ *  - the weight filter of market one moves before or after the window depending on how many fruits it rejects
+ *  - the semi-join with market two builds its hash table on the operand that is smaller on average
+ *  - the two status filters are evaluated in the order that discards the most fruits first
+ * The plan only changes between two windows, the "Re-planned" lines show when.
+ */
+
+public class FruitAdaptiveGuide {
+
+    public static void main(String[] args) throws InterruptedException {
+
+        /*------------Input and Output Stream definitions------------*/
+
+        FruitStreamGenerator generator = new FruitStreamGenerator();
+
+        DataStream<Fruit> inputStreamFruit_one = generator.getStream("fruit_market_one");
+        DataStream<Fruit> inputStreamFruit_two = generator.getStream("fruit_market_two");
+
+        DataStream<Fruit> outStream = new FruitDataStream("fruit_consumer");
+
+        /*------------Window Content------------*/
+
+        //The weight filter decides by itself whether to filter in the window content or in the query
+        AdaptivePreFilter heavy_fruit = new AdaptivePreFilter("heavy_fruit", (fruit) -> fruit.getWeight() > 1.5, 0.25);
+
+        ContentFactory<Fruit, Fruit, FruitBasket> accumulatorContentFactory = new AccumulatorContentFactory<>(
+                (fruit) -> fruit,
+                (fruit) -> {
+                    FruitBasket fb = new FruitBasket();
+                    fb.addFruit(fruit);
+                    return fb;
+                },
+                (basket_1, basket_2) -> {
+                    if(basket_1.getSize()>basket_2.getSize()){
+                        basket_1.addAll(basket_2);
+                        return basket_1;
+                    }
+                    else{
+                        basket_2.addAll(basket_1);
+                        return basket_2;
+                    }
+                },
+                new FruitBasket()
+        );
+
+
+        /*------------Window Properties------------*/
+
+        Report report = new ReportImpl();
+        report.add(new OnWindowClose());
+
+        Time instance = new ConcurrentTime(0);
+
+
+        /*------------S2R, R2R and R2S Operators------------*/
+
+        StreamToRelationOperator<Fruit, Fruit, FruitBasket> fruit_s2r_one =
+                new CustomTumblingWindow<>(instance, "TumblingWindow_one", heavy_fruit.contentFactory(), report, 4000);
+
+        StreamToRelationOperator<Fruit, Fruit, FruitBasket> fruit_s2r_two =
+                new CustomTumblingWindow<>(instance, "TumblingWindow_two", accumulatorContentFactory, report, 4000);
+
+        RelationToRelationOperator<FruitBasket> r2r_heavy = heavy_fruit.postWindowOp(Collections.singletonList(fruit_s2r_one.getName()), "heavy_fruit");
+        AdaptiveSemiJoinOp r2r_join = new AdaptiveSemiJoinOp(List.of("heavy_fruit", fruit_s2r_two.getName()), "shared_kinds");
+
+        //The status filters are commutative, the chain chooses their order
+        List<RelationToRelationOperator<FruitBasket>> status_filters = List.of(
+                new FilterFruitByRipeOp("overripe", Collections.singletonList("shared_kinds"), "not_overripe"),
+                new FilterFruitByRipeOp("underripe", Collections.singletonList("shared_kinds"), "not_underripe"));
+        FilterChainOp r2r_status = new FilterChainOp(status_filters, Collections.singletonList("shared_kinds"), "fresh_fruit");
+
+        RelationToStreamOperator<FruitBasket, Fruit> r2sOp = new RelationToStreamFruitOp();
+
+
+        /*------------Task definition------------*/
+
+        Task<Fruit, Fruit, FruitBasket, Fruit> task = new TaskImpl<>();
+        task = task.addS2ROperator(fruit_s2r_one, inputStreamFruit_one)
+                .addS2ROperator(fruit_s2r_two, inputStreamFruit_two)
+                .addR2ROperator(r2r_heavy)
+                .addR2ROperator(r2r_join)
+                .addR2ROperator(r2r_status)
+                .addR2SOperator(r2sOp)
+                .addDAG(new DAGImpl<>())
+                .addSDS(new SDSDefault<>())
+                .addTime(instance);
+        task.initialize();
+
+
+        /*------------Continuous Program definition------------*/
+
+        ContinuousProgram<Fruit, Fruit, FruitBasket, Fruit> cp = new ContinuousProgramImpl<>();
+
+        List<DataStream<Fruit>> inputStreams = new ArrayList<>();
+        inputStreams.add(inputStreamFruit_one);
+        inputStreams.add(inputStreamFruit_two);
+
+        List<DataStream<Fruit>> outputStreams = new ArrayList<>();
+        outputStreams.add(outStream);
+
+        cp.buildTask(task, inputStreams, outputStreams);
+
+
+        /*------------Output Stream consumer------------*/
+
+        outStream.addConsumer((out, el, ts) -> System.out.println("Output Element: ["+el+ "]" + " @ " + ts));
+
+        generator.startStreaming();
+        Thread.sleep(40_000);
+        generator.stopStreaming();
+
+        System.out.println(heavy_fruit.getStats() + ", pre-window: " + heavy_fruit.isPreWindow());
+        System.out.println("Semi-join building on " + (r2r_join.isBuildingLeft() ? "heavy_fruit" : fruit_s2r_two.getName()));
+        for (OperatorStats stats : r2r_status.getStats())
+            System.out.println(stats);
+    }
+
+}
@@ -16,8 +16,8 @@ import org.streamreasoning.rsp4j.api.secret.report.Report;
 import org.streamreasoning.rsp4j.api.secret.report.ReportImpl;
 import org.streamreasoning.rsp4j.api.secret.report.strategies.OnWindowClose;
 import org.streamreasoning.rsp4j.api.secret.time.Time;
-import org.streamreasoning.rsp4j.api.secret.time.TimeImpl;
 import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import runtime.ConcurrentTime;
 import shared.contentimpl.factories.AccumulatorContentFactory;
 import shared.operatorsimpl.r2r.DAG.DAGImpl;
 import shared.sds.SDSDefault;
@@ -97,8 +97,9 @@ public class FruitAdvancedGuide {
         Report report = new ReportImpl();
         report.add(new OnWindowClose());
 
-        //Time object used to represent the time in our application
-        Time instance = new TimeImpl(0);
+        //Time object used to represent the time in our application.
+        //The two windows share it: ConcurrentTime checks the order per stream, and only evaluates an instant once both streams passed it
+        Time instance = new ConcurrentTime(0);
 
 
         /*------------S2R, R2R and R2S Operators------------*/
@@ -0,0 +1,123 @@
+package examples;
+
+import customdatatypes.AggregateDataStream;
+import customdatatypes.Fruit;
+import customdatatypes.FruitAggregateTable;
+import customoperators.CustomTumblingWindow;
+import customoperators.FruitAggregateContentFactory;
+import customoperators.GroupByFruitAggregateOp;
+import customoperators.RelationToStreamAggregateOp;
+import org.streamreasoning.rsp4j.api.coordinators.ContinuousProgram;
+import shared.coordinators.ContinuousProgramImpl;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import org.streamreasoning.rsp4j.api.operators.r2s.RelationToStreamOperator;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.StreamToRelationOperator;
+import org.streamreasoning.rsp4j.api.querying.Task;
+import shared.querying.TaskImpl;
+import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
+import org.streamreasoning.rsp4j.api.secret.report.Report;
+import org.streamreasoning.rsp4j.api.secret.report.ReportImpl;
+import org.streamreasoning.rsp4j.api.secret.report.strategies.OnWindowClose;
+import org.streamreasoning.rsp4j.api.secret.time.Time;
+import org.streamreasoning.rsp4j.api.secret.time.TimeImpl;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import shared.operatorsimpl.r2r.DAG.DAGImpl;
+import shared.sds.SDSDefault;
+import stream.FruitStreamGenerator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * "Count and average weight per fruit kind and status per window", using the pre-aggregating window content:
+ * the fruits are never stored in the window, only their aggregates.
+ */
+
+public class FruitAggregationGuide {
+
+    public static void main(String[] args) throws InterruptedException {
+
+        /*------------Input and Output Stream definitions------------*/
+
+        // Define a generator to create input elements
+        FruitStreamGenerator generator = new FruitStreamGenerator();
+
+        // Define an input stream
+        DataStream<Fruit> inputStreamFruit = generator.getStream("fruit_market_one");
+
+        // define an output stream, this time it carries one element per group
+        DataStream<FruitAggregateTable.Group> outStream = new AggregateDataStream("fruit_stats_consumer");
+
+        /*------------Window Content------------*/
+
+        // Factory object to create pre-aggregating window contents
+        ContentFactory<Fruit, Fruit, FruitAggregateTable> aggregateContentFactory = new FruitAggregateContentFactory();
+
+
+        /*------------Window Properties------------*/
+
+        // Window properties (report)
+        Report report = new ReportImpl();
+        report.add(new OnWindowClose());
+
+        //Time object used to represent the time in our application
+        Time instance = new TimeImpl(0);
+
+
+        /*------------S2R, R2R and R2S Operators------------*/
+
+        //Define the Stream to Relation operator (blueprint of the windows)
+        StreamToRelationOperator<Fruit, Fruit, FruitAggregateTable> fruit_s2r_one =
+                new CustomTumblingWindow<>(
+                        instance,
+                        "AggregateTumblingWindow",
+                        aggregateContentFactory,
+                        report,
+                        2000);
+
+        //Define the Relation to Relation operator: group by kind and status
+        RelationToRelationOperator<FruitAggregateTable> r2r_group_by = new GroupByFruitAggregateOp(GroupByFruitAggregateOp.GroupBy.KIND_AND_STATUS, Collections.singletonList(fruit_s2r_one.getName()), "fruit_stats");
+
+        //Relation to Stream operator, send out one element per group
+        RelationToStreamOperator<FruitAggregateTable, FruitAggregateTable.Group> r2sOp = new RelationToStreamAggregateOp();
+
+
+        /*------------Task definition------------*/
+
+        //Define the Tasks, each of which represent a query
+        Task<Fruit, Fruit, FruitAggregateTable, FruitAggregateTable.Group> task = new TaskImpl<>();
+        task = task.addS2ROperator(fruit_s2r_one, inputStreamFruit)
+                .addR2ROperator(r2r_group_by)
+                .addR2SOperator(r2sOp)
+                .addDAG(new DAGImpl<>())
+                .addSDS(new SDSDefault<>())
+                .addTime(instance);
+        task.initialize();
+
+
+        /*------------Continuous Program definition------------*/
+
+        //Define the Continuous Program, which acts as the coordinator of the whole system
+        ContinuousProgram<Fruit, Fruit, FruitAggregateTable, FruitAggregateTable.Group> cp = new ContinuousProgramImpl<>();
+
+        List<DataStream<Fruit>> inputStreams = new ArrayList<>();
+        inputStreams.add(inputStreamFruit);
+
+        List<DataStream<FruitAggregateTable.Group>> outputStreams = new ArrayList<>();
+        outputStreams.add(outStream);
+
+
+        cp.buildTask(task, inputStreams, outputStreams);
+
+
+        /*------------Output Stream consumer------------*/
+
+        outStream.addConsumer((out, el, ts) -> System.out.println("Output Group: ["+el+ "]" + " @ " + ts));
+
+        generator.startStreaming();
+        Thread.sleep(20_000);
+        generator.stopStreaming();
+    }
+
+}
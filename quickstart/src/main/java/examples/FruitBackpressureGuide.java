@@ -0,0 +1,158 @@
+package examples;
+
+import customdatatypes.Fruit;
+import customdatatypes.FruitBasket;
+import customoperators.CustomTumblingWindow;
+import customoperators.FilterFruitByRipeOp;
+import customoperators.RelationToStreamFruitOp;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import org.streamreasoning.rsp4j.api.operators.r2s.RelationToStreamOperator;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.StreamToRelationOperator;
+import org.streamreasoning.rsp4j.api.querying.Task;
+import shared.querying.TaskImpl;
+import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
+import org.streamreasoning.rsp4j.api.secret.report.Report;
+import org.streamreasoning.rsp4j.api.secret.report.ReportImpl;
+import org.streamreasoning.rsp4j.api.secret.report.strategies.OnWindowClose;
+import org.streamreasoning.rsp4j.api.secret.time.Time;
+import org.streamreasoning.rsp4j.api.secret.time.TimeImpl;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import runtime.BoundedOutputStream;
+import runtime.QueueMetrics;
+import runtime.TaskRuntime;
+import shared.contentimpl.factories.AccumulatorContentFactory;
+import shared.operatorsimpl.r2r.DAG.DAGImpl;
+import shared.sds.SDSDefault;
+import stream.FruitStreamGenerator;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * The step-by-step guide with a slow output consumer and credit-based flow control:
+ * the consumer fills the buffer of the output stream, the Task stops advertising credits and the generator slows down,
+ * instead of piling up elements in unbounded queues.
+ */
+
+public class FruitBackpressureGuide {
+
+    public static void main(String[] args) throws Exception {
+
+        /*------------Input and Output Stream definitions------------*/
+
+        // Define a generator to create input elements
+        FruitStreamGenerator generator = new FruitStreamGenerator();
+
+        // The runtime decouples the generator from the task, small mailboxes make the throttling visible
+        TaskRuntime runtime = new TaskRuntime(1, 4, 1);
+
+        // Define an input stream
+        DataStream<Fruit> inputStreamFruit = runtime.ingest(generator.getStream("fruit_market_one"));
+
+        // define an output stream with room for 2 pending elements per consumer
+        BoundedOutputStream<Fruit> outStream = new BoundedOutputStream<>("fruit_consumer", 2);
+
+        /*------------Window Content------------*/
+
+        //Entity that represents a neutral element for our operations on the 'R' data type
+        FruitBasket emptyBasket = new FruitBasket();
+
+        // Factory object to manage the window content, more informations on our GitHub guide!
+        ContentFactory<Fruit, Fruit, FruitBasket> accumulatorContentFactory = new AccumulatorContentFactory<>(
+                (fruit) -> fruit,
+                (fruit) -> {
+                    FruitBasket fb = new FruitBasket();
+                    fb.addFruit(fruit);
+                    return fb;
+                },
+                (basket_1, basket_2) -> {
+                    if(basket_1.getSize()>basket_2.getSize()){
+                        basket_1.addAll(basket_2);
+                        return basket_1;
+                    }
+                    else{
+                        basket_2.addAll(basket_1);
+                        return basket_2;
+                    }
+                },
+                emptyBasket
+        );
+
+
+        /*------------Window Properties------------*/
+
+        // Window properties (report)
+        Report report = new ReportImpl();
+        report.add(new OnWindowClose());
+
+        //Time object used to represent the time in our application
+        Time instance = new TimeImpl(0);
+
+
+        /*------------S2R, R2R and R2S Operators------------*/
+
+        //Define the Stream to Relation operator (blueprint of the windows)
+        StreamToRelationOperator<Fruit, Fruit, FruitBasket> fruit_s2r_one =
+                new CustomTumblingWindow<>(
+                        instance,
+                        "TumblingWindow",
+                        accumulatorContentFactory,
+                        report,
+                        1000);
+
+        //Define Relation to Relation operators and chain them together. Here we filter out fruits that are underripe
+        RelationToRelationOperator<FruitBasket> r2r_filter_underripe = new FilterFruitByRipeOp("underripe", Collections.singletonList(fruit_s2r_one.getName()), "filtered_fruit");
+
+        //Relation to Stream operator, take the final fruit basket and send out each fruit
+        RelationToStreamOperator<FruitBasket, Fruit> r2sOp = new RelationToStreamFruitOp();
+
+
+        /*------------Task definition------------*/
+
+        //Define the Tasks, each of which represent a query
+        Task<Fruit, Fruit, FruitBasket, Fruit> task = new TaskImpl<>();
+        task = task.addS2ROperator(fruit_s2r_one, inputStreamFruit)
+                .addR2ROperator(r2r_filter_underripe)
+                .addR2SOperator(r2sOp)
+                .addDAG(new DAGImpl<>())
+                .addSDS(new SDSDefault<>())
+                .addTime(instance);
+        task.initialize();
+
+
+
+
+        /*------------Task registration------------*/
+
+        runtime.register("backpressure_query", task, List.of(inputStreamFruit), List.of(outStream));
+
+
+        /*------------Output Stream consumer------------*/
+
+        // A slow consumer: it takes 3 seconds to process each element
+        outStream.addConsumer((out, el, ts) -> {
+            System.out.println("Output Element: ["+el+ "]" + " @ " + ts);
+            try {
+                Thread.sleep(3_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        generator.startStreaming();
+        for (int i = 0; i < 6; i++) {
+            Thread.sleep(5_000);
+            for (QueueMetrics m : runtime.queueMetrics())
+                System.out.println("Mailbox " + m);
+            for (QueueMetrics m : outStream.queueMetrics())
+                System.out.println("Output buffer " + m);
+            System.out.println("Generator throttled for " + generator.getThrottledMillis() + " ms");
+        }
+        generator.stopStreaming();
+        runtime.close();
+        outStream.close();
+    }
+
+
+
+}
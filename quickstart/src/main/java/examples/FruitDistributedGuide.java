@@ -0,0 +1,184 @@
+package examples;
+
+import codec.FruitAggregateTableCodec;
+import customdatatypes.AggregateDataStream;
+import customdatatypes.Fruit;
+import customdatatypes.FruitAggregateTable;
+import customoperators.FruitAggregateContentFactory;
+import customoperators.GroupByFruitAggregateOp;
+import customoperators.RelationToStreamAggregateOp;
+import customoperators.TimerTumblingWindow;
+import distributed.CoordinatorNode;
+import distributed.MergedTumblingWindow;
+import distributed.MergedWindowStream;
+import distributed.StreamPartitioner;
+import distributed.WorkerNode;
+import org.streamreasoning.rsp4j.api.coordinators.ContinuousProgram;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import org.streamreasoning.rsp4j.api.operators.r2s.RelationToStreamOperator;
+import org.streamreasoning.rsp4j.api.querying.Task;
+import org.streamreasoning.rsp4j.api.secret.report.Report;
+import org.streamreasoning.rsp4j.api.secret.report.ReportImpl;
+import org.streamreasoning.rsp4j.api.secret.report.strategies.OnWindowClose;
+import org.streamreasoning.rsp4j.api.secret.time.Time;
+import org.streamreasoning.rsp4j.api.secret.time.TimeImpl;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import runtime.ConcurrentTime;
+import shared.coordinators.ContinuousProgramImpl;
+import shared.operatorsimpl.r2r.DAG.DAGImpl;
+import shared.querying.TaskImpl;
+import shared.sds.SDSDefault;
+import stream.FruitStreamGenerator;
+
+import java.io.File;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * "Count and average weight per fruit kind and status per window" over many markets, evaluated by several JVMs.
+ *
+ * The query is the one of the FruitAggregationGuide, and its Task is split between the two roles:
+ *  - every worker runs the S2R operator of the Task on the markets assigned to it, and ships the partial tables of the closed
+ *    windows to the coordinator
+ *  - the coordinator merges the partials of every window and feeds the merged windows to the rest of the Task: a
+ *    MergedTumblingWindow with the name of the worker windows, the group-by R2R operator and the R2S operator, which prints one
+ *    line per group and window.
+ *
+ * Run without arguments, this class starts a coordinator and launches WORKERS worker JVMs on the same machine (same classpath).
+ * The roles can also be started by hand, e.g. in different terminals:
+ *   FruitDistributedGuide coordinator <port> <workers>
+ *   FruitDistributedGuide worker <id> <port> <workers>
+ */
+
+public class FruitDistributedGuide {
+
+    private static final int WORKERS = 3;
+    private static final int MARKETS = 6;
+    private static final long WIDTH = 4000;
+    private static final long RUN_MILLIS = 20_000;
+    //Name of the window of the Task, the same on the workers and on the coordinator
+    private static final String WINDOW = "AggregateTumblingWindow";
+
+    public static void main(String[] args) throws Exception {
+        if (args.length == 4 && args[0].equals("worker")) {
+            runWorker(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Integer.parseInt(args[3]));
+        } else if (args.length == 3 && args[0].equals("coordinator")) {
+            runCoordinator(Integer.parseInt(args[1]), Integer.parseInt(args[2]), false);
+        } else {
+            runCoordinator(0, WORKERS, true);
+        }
+    }
+
+    private static void runCoordinator(int port, int workers, boolean launchWorkers) throws Exception {
+
+        /*------------Input and Output Stream definitions------------*/
+
+        // The coordinator puts the merged windows in this stream, it is the input stream of the coordinator Task
+        DataStream<FruitAggregateTable> mergedStream = new MergedWindowStream<>("fruit_markets_merged");
+
+        // define an output stream, it carries one element per group
+        DataStream<FruitAggregateTable.Group> outStream = new AggregateDataStream("fruit_stats_consumer");
+
+        /*------------S2R, R2R and R2S Operators------------*/
+
+        Time instance = new TimeImpl(0);
+
+        // Stands for the windows of the workers: every element of the merged stream is a whole window, reported when it closes
+        MergedTumblingWindow<FruitAggregateTable> fruit_s2r_merged = new MergedTumblingWindow<>(
+                instance, WINDOW, FruitAggregateTable::new, FruitAggregateTable::merge, onWindowClose(), WIDTH);
+
+        //Define the Relation to Relation operator: group by kind and status
+        RelationToRelationOperator<FruitAggregateTable> r2r_group_by = new GroupByFruitAggregateOp(GroupByFruitAggregateOp.GroupBy.KIND_AND_STATUS, Collections.singletonList(fruit_s2r_merged.getName()), "fruit_stats");
+
+        //Relation to Stream operator, send out one element per group
+        RelationToStreamOperator<FruitAggregateTable, FruitAggregateTable.Group> r2sOp = new RelationToStreamAggregateOp();
+
+        /*------------Task definition------------*/
+
+        Task<FruitAggregateTable, FruitAggregateTable, FruitAggregateTable, FruitAggregateTable.Group> task = new TaskImpl<>();
+        task = task.addS2ROperator(fruit_s2r_merged, mergedStream)
+                .addR2ROperator(r2r_group_by)
+                .addR2SOperator(r2sOp)
+                .addDAG(new DAGImpl<>())
+                .addSDS(new SDSDefault<>())
+                .addTime(instance);
+        task.initialize();
+
+        /*------------Continuous Program definition------------*/
+
+        ContinuousProgram<FruitAggregateTable, FruitAggregateTable, FruitAggregateTable, FruitAggregateTable.Group> cp = new ContinuousProgramImpl<>();
+
+        List<DataStream<FruitAggregateTable>> inputStreams = new ArrayList<>();
+        inputStreams.add(mergedStream);
+
+        List<DataStream<FruitAggregateTable.Group>> outputStreams = new ArrayList<>();
+        outputStreams.add(outStream);
+
+        cp.buildTask(task, inputStreams, outputStreams);
+
+        /*------------Output Stream consumer------------*/
+
+        outStream.addConsumer((out, el, ts) -> System.out.println("Output Group: [" + el + "]" + " @ " + ts));
+
+        try (CoordinatorNode<FruitAggregateTable> coordinator =
+                     new CoordinatorNode<>(port, workers, new FruitAggregateTableCodec(), FruitAggregateTable::merge, mergedStream)) {
+            coordinator.start();
+            System.out.println("Coordinator listening on port " + coordinator.getPort() + ", waiting for " + workers + " workers");
+
+            List<Process> processes = new ArrayList<>();
+            if (launchWorkers) {
+                String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+                for (int id = 0; id < workers; id++) {
+                    processes.add(new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                            FruitDistributedGuide.class.getName(), "worker", String.valueOf(id),
+                            String.valueOf(coordinator.getPort()), String.valueOf(workers))
+                            .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                            .redirectError(ProcessBuilder.Redirect.INHERIT)
+                            .start());
+                }
+            }
+
+            if (!coordinator.awaitCompletion(RUN_MILLIS * 2))
+                System.out.println("Some workers did not complete");
+            for (Process p : processes)
+                p.destroy();
+
+            System.out.println("Merged windows: " + coordinator.getMergedWindows() + ", late partials: " + coordinator.getLatePartials()
+                    + ", received bytes: " + coordinator.getReceivedBytes());
+        }
+    }
+
+    private static void runWorker(int id, int port, int workers) throws Exception {
+
+        FruitStreamGenerator generator = new FruitStreamGenerator();
+
+        // S2R operator of the Task: the markets of a worker are fed by different threads, hence the ConcurrentTime
+        TimerTumblingWindow<Fruit, Fruit, FruitAggregateTable> fruit_s2r = new TimerTumblingWindow<>(
+                new ConcurrentTime(0), WINDOW, new FruitAggregateContentFactory(), onWindowClose(), WIDTH);
+
+        try (WorkerNode<Fruit, Fruit, FruitAggregateTable> worker = new WorkerNode<>(id,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), port), fruit_s2r, new FruitAggregateTableCodec())) {
+
+            // Every worker only creates (and consumes) the markets it owns
+            for (int m = 0; m < MARKETS; m++) {
+                String market = "fruit_market_" + m;
+                if (StreamPartitioner.owns(id, market, workers))
+                    generator.getStream(market).addConsumer(worker);
+            }
+
+            generator.startStreaming();
+            Thread.sleep(RUN_MILLIS);
+            generator.stopStreaming();
+            System.err.println("Worker " + id + " shipped " + worker.getShippedPartials() + " partial windows");
+        }
+    }
+
+    private static Report onWindowClose() {
+        Report report = new ReportImpl();
+        report.add(new OnWindowClose());
+        return report;
+    }
+}
@@ -0,0 +1,182 @@
+package examples;
+
+import customdatatypes.Fruit;
+import customdatatypes.FruitBasket;
+import customdatatypes.FruitDataStream;
+import customoperators.CustomTumblingWindow;
+import customoperators.FilterFruitByRipeOp;
+import customoperators.RelationToStreamFruitOp;
+import org.streamreasoning.rsp4j.api.coordinators.ContinuousProgram;
+import shared.coordinators.ContinuousProgramImpl;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import org.streamreasoning.rsp4j.api.operators.r2s.RelationToStreamOperator;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.StreamToRelationOperator;
+import org.streamreasoning.rsp4j.api.querying.Task;
+import shared.querying.TaskImpl;
+import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
+import org.streamreasoning.rsp4j.api.secret.report.Report;
+import org.streamreasoning.rsp4j.api.secret.report.ReportImpl;
+import org.streamreasoning.rsp4j.api.secret.report.strategies.OnWindowClose;
+import org.streamreasoning.rsp4j.api.secret.time.Time;
+import org.streamreasoning.rsp4j.api.secret.time.TimeImpl;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import shared.contentimpl.factories.AccumulatorContentFactory;
+import shared.operatorsimpl.r2r.DAG.DAGImpl;
+import shared.sds.SDSDefault;
+import lookup.FruitReferenceLoaders;
+import lookup.LookupJoinFruitOp;
+import lookup.StaticRelation;
+import lookup.StaticRelationRegistry;
+import stream.FruitStreamGenerator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * The step-by-step guide enriching the fruits of every window with reference data: the price list and the supplier table are static
+ * relations loaded from local files, and a lookup join adds the price and the suppliers of each fruit before the filter.
+ *
+ * Half-way through, the price list is rewritten: the registry reloads it in the background and the next windows see the new prices.
+ */
+
+public class FruitEnrichmentGuide {
+
+    public static void main(String[] args) throws Exception {
+
+        /*------------Input and Output Stream definitions------------*/
+
+        // Define a generator to create input elements
+        FruitStreamGenerator generator = new FruitStreamGenerator();
+
+        // Define an input stream
+        DataStream<Fruit> inputStreamFruit = generator.getStream("fruit_market_one");
+
+        // define an output stream
+        DataStream<Fruit> outStream = new FruitDataStream("fruit_consumer");
+
+        /*------------Static relations------------*/
+
+        // Reference data, written in a temporary directory for the sake of the example
+        Path referenceDir = Files.createTempDirectory("fruit-reference");
+        Path priceFile = referenceDir.resolve("prices.csv");
+        Path supplierFile = referenceDir.resolve("suppliers.csv");
+        Files.writeString(priceFile, "# kind,price per kg\nApple,2.40\nBanana,1.80\nPeach,3.10\nPear,2.70\nPineapple,4.50\n");
+        Files.writeString(supplierFile, "# kind,supplier\nApple,Orchard Hill\nApple,Green Valley\nBanana,Tropical Co\nPineapple,Tropical Co\nTomato,Green Valley\n");
+
+        // The registry checks the files for changes every second
+        StaticRelationRegistry registry = new StaticRelationRegistry(1_000);
+        StaticRelation<Float> prices = registry.register(new StaticRelation<>("prices", priceFile, FruitReferenceLoaders.prices()));
+        StaticRelation<List<String>> suppliers = registry.register(new StaticRelation<>("suppliers", supplierFile, FruitReferenceLoaders.suppliers()));
+
+        /*------------Window Content------------*/
+
+        //Entity that represents a neutral element for our operations on the 'R' data type
+        FruitBasket emptyBasket = new FruitBasket();
+
+        // Factory object to manage the window content, more informations on our GitHub guide!
+        ContentFactory<Fruit, Fruit, FruitBasket> accumulatorContentFactory = new AccumulatorContentFactory<>(
+                (fruit) -> fruit,
+                (fruit) -> {
+                    FruitBasket fb = new FruitBasket();
+                    fb.addFruit(fruit);
+                    return fb;
+                },
+                (basket_1, basket_2) -> {
+                    if(basket_1.getSize()>basket_2.getSize()){
+                        basket_1.addAll(basket_2);
+                        return basket_1;
+                    }
+                    else{
+                        basket_2.addAll(basket_1);
+                        return basket_2;
+                    }
+                },
+                emptyBasket
+        );
+
+
+        /*------------Window Properties------------*/
+
+        // Window properties (report)
+        Report report = new ReportImpl();
+        report.add(new OnWindowClose());
+
+        //Time object used to represent the time in our application
+        Time instance = new TimeImpl(0);
+
+
+        /*------------S2R, R2R and R2S Operators------------*/
+
+        //Define the Stream to Relation operator (blueprint of the windows)
+        StreamToRelationOperator<Fruit, Fruit, FruitBasket> fruit_s2r_one =
+                new CustomTumblingWindow<>(
+                        instance,
+                        "TumblingWindow",
+                        accumulatorContentFactory,
+                        report,
+                        1000);
+
+        //Join the fruits with their price and suppliers (tomatoes have no price and are dropped), then filter out fruits that are underripe
+        RelationToRelationOperator<FruitBasket> r2r_lookup = new LookupJoinFruitOp(prices, suppliers, true, Collections.singletonList(fruit_s2r_one.getName()), "priced_fruit");
+        RelationToRelationOperator<FruitBasket> r2r_filter_underripe = new FilterFruitByRipeOp("underripe", Collections.singletonList("priced_fruit"), "filtered_fruit");
+
+        //Relation to Stream operator, take the final fruit basket and send out each fruit
+        RelationToStreamOperator<FruitBasket, Fruit> r2sOp = new RelationToStreamFruitOp();
+
+
+        /*------------Task definition------------*/
+
+        //Define the Tasks, each of which represent a query
+        Task<Fruit, Fruit, FruitBasket, Fruit> task = new TaskImpl<>();
+        task = task.addS2ROperator(fruit_s2r_one, inputStreamFruit)
+                .addR2ROperator(r2r_lookup)
+                .addR2ROperator(r2r_filter_underripe)
+                .addR2SOperator(r2sOp)
+                .addDAG(new DAGImpl<>())
+                .addSDS(new SDSDefault<>())
+                .addTime(instance);
+        task.initialize();
+
+
+
+
+        /*------------Continuous Program definition------------*/
+
+        //Define the Continuous Program, which acts as the coordinator of the whole system
+        ContinuousProgram<Fruit, Fruit, FruitBasket, Fruit> cp = new ContinuousProgramImpl<>();
+
+        List<DataStream<Fruit>> inputStreams = new ArrayList<>();
+        inputStreams.add(inputStreamFruit);
+
+        List<DataStream<Fruit>> outputStreams = new ArrayList<>();
+        outputStreams.add(outStream);
+
+
+        cp.buildTask(task, inputStreams, outputStreams);
+
+
+        /*------------Output Stream consumer------------*/
+
+        outStream.addConsumer((out, el, ts) -> System.out.println("Output Element: ["+el+ "]" + " @ " + ts));
+
+        generator.startStreaming();
+        Thread.sleep(10_000);
+
+        // New price list, written aside and moved over the old one: the running windows keep the old prices, the next ones get the new ones
+        Path newPrices = referenceDir.resolve("prices.csv.new");
+        Files.writeString(newPrices, "# kind,price per kg\nApple,2.90\nBanana,1.80\nPeach,3.10\nPear,2.70\nPineapple,4.50\nTomato,3.20\n");
+        Files.move(newPrices, priceFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Thread.sleep(10_000);
+        generator.stopStreaming();
+
+        System.out.println("Price list version " + prices.getVersion() + ", supplier table version " + suppliers.getVersion());
+        registry.close();
+    }
+
+
+
+}
@@ -0,0 +1,115 @@
+package examples;
+
+import customdatatypes.Fruit;
+import customdatatypes.FruitBasket;
+import customdatatypes.FruitDataStream;
+import customoperators.CustomTumblingWindow;
+import customoperators.FilterFruitByRipeOp;
+import customoperators.RelationToStreamFruitOp;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import org.streamreasoning.rsp4j.api.operators.r2s.RelationToStreamOperator;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.StreamToRelationOperator;
+import org.streamreasoning.rsp4j.api.querying.Task;
+import shared.querying.TaskImpl;
+import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
+import org.streamreasoning.rsp4j.api.secret.report.Report;
+import org.streamreasoning.rsp4j.api.secret.report.ReportImpl;
+import org.streamreasoning.rsp4j.api.secret.report.strategies.OnWindowClose;
+import org.streamreasoning.rsp4j.api.secret.time.Time;
+import org.streamreasoning.rsp4j.api.secret.time.TimeImpl;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import runtime.TaskMailbox;
+import runtime.TaskRuntime;
+import shared.contentimpl.factories.AccumulatorContentFactory;
+import shared.operatorsimpl.r2r.DAG.DAGImpl;
+import shared.sds.SDSDefault;
+import stream.FruitStreamGenerator;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Many queries on the same streams, each one evaluated by the TaskRuntime on its own mailbox:
+ * the generator thread only enqueues the fruits, the windows and the queries run on the runtime threads.
+ */
+
+public class FruitRuntimeGuide {
+
+    private static final int QUERIES = 1000;
+    private static final String[] STATUSES = {"underripe", "ripe", "overripe"};
+
+    public static void main(String[] args) throws Exception {
+
+        FruitStreamGenerator generator = new FruitStreamGenerator();
+
+        try (TaskRuntime runtime = new TaskRuntime()) {
+
+            // The input streams of the queries are served by the runtime
+            DataStream<Fruit> inputStreamFruit = runtime.ingest(generator.getStream("fruit_market_one"));
+
+            // All the queries write in the same output stream
+            DataStream<Fruit> outStream = new FruitDataStream("fruit_consumer");
+            AtomicLong outputs = new AtomicLong();
+            outStream.addConsumer((out, el, ts) -> outputs.incrementAndGet());
+
+            for (int i = 0; i < QUERIES; i++) {
+                Task<Fruit, Fruit, FruitBasket, Fruit> task = buildTask("query_" + i, STATUSES[i % STATUSES.length], inputStreamFruit);
+                runtime.register("query_" + i, task, List.of(inputStreamFruit), List.of(outStream));
+            }
+
+            generator.startStreaming();
+            Thread.sleep(20_000);
+            generator.stopStreaming();
+
+            for (TaskMailbox<?> mailbox : runtime.getMailboxes().subList(0, 5))
+                System.out.println(mailbox.getName() + ": processed " + mailbox.getProcessed() + ", pending " + mailbox.getDepth());
+            System.out.println("Output elements of " + QUERIES + " queries: " + outputs.get());
+        }
+    }
+
+    //Each query filters out the fruits with a given status on a tumbling window of its own
+    private static Task<Fruit, Fruit, FruitBasket, Fruit> buildTask(String name, String status, DataStream<Fruit> input) {
+
+        ContentFactory<Fruit, Fruit, FruitBasket> accumulatorContentFactory = new AccumulatorContentFactory<>(
+                (fruit) -> fruit,
+                (fruit) -> {
+                    FruitBasket fb = new FruitBasket();
+                    fb.addFruit(fruit);
+                    return fb;
+                },
+                (basket_1, basket_2) -> {
+                    if(basket_1.getSize()>basket_2.getSize()){
+                        basket_1.addAll(basket_2);
+                        return basket_1;
+                    }
+                    else{
+                        basket_2.addAll(basket_1);
+                        return basket_2;
+                    }
+                },
+                new FruitBasket()
+        );
+
+        Report report = new ReportImpl();
+        report.add(new OnWindowClose());
+
+        //Every query has its own Time, queries run concurrently
+        Time instance = new TimeImpl(0);
+
+        StreamToRelationOperator<Fruit, Fruit, FruitBasket> s2r =
+                new CustomTumblingWindow<>(instance, name + "_window", accumulatorContentFactory, report, 1000);
+        RelationToRelationOperator<FruitBasket> r2r = new FilterFruitByRipeOp(status, Collections.singletonList(s2r.getName()), name + "_filtered");
+        RelationToStreamOperator<FruitBasket, Fruit> r2sOp = new RelationToStreamFruitOp();
+
+        Task<Fruit, Fruit, FruitBasket, Fruit> task = new TaskImpl<>();
+        task = task.addS2ROperator(s2r, input)
+                .addR2ROperator(r2r)
+                .addR2SOperator(r2sOp)
+                .addDAG(new DAGImpl<>())
+                .addSDS(new SDSDefault<>())
+                .addTime(instance);
+        task.initialize();
+        return task;
+    }
+}
@@ -0,0 +1,151 @@
+package examples;
+
+import customdatatypes.AggregateDataStream;
+import customdatatypes.Fruit;
+import customdatatypes.FruitAggregateTable;
+import customdatatypes.FruitBasket;
+import customdatatypes.FruitDataStream;
+import customoperators.CustomTumblingWindow;
+import customoperators.FilterFruitByRipeOp;
+import customoperators.FruitAggregateContentFactory;
+import customoperators.GroupByFruitAggregateOp;
+import customoperators.RelationToStreamAggregateOp;
+import customoperators.RelationToStreamFruitOp;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import org.streamreasoning.rsp4j.api.operators.r2s.RelationToStreamOperator;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.StreamToRelationOperator;
+import org.streamreasoning.rsp4j.api.querying.Task;
+import shared.querying.TaskImpl;
+import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
+import org.streamreasoning.rsp4j.api.secret.report.Report;
+import org.streamreasoning.rsp4j.api.secret.report.ReportImpl;
+import org.streamreasoning.rsp4j.api.secret.report.strategies.OnWindowClose;
+import org.streamreasoning.rsp4j.api.secret.time.Time;
+import org.streamreasoning.rsp4j.api.secret.time.TimeImpl;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import runtime.PriorityClass;
+import runtime.PriorityScheduler;
+import runtime.TaskRuntime;
+import runtime.TaskSla;
+import runtime.TenantMetrics;
+import shared.contentimpl.factories.AccumulatorContentFactory;
+import shared.operatorsimpl.r2r.DAG.DAGImpl;
+import shared.sds.SDSDefault;
+import stream.FruitStreamGenerator;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Two tenants on the same streams, with very different service levels:
+ *  - "alerting": many small queries that must answer within milliseconds (CRITICAL)
+ *  - "reporting": a few queries on large windows, which can wait (BATCH), limited to a tenth of a core
+ * The reporting queries run on their own lane of the PriorityScheduler, so they never delay the alerts: compare the lag of the tenants.
+ */
+
+public class FruitSchedulerGuide {
+
+    private static final int ALERTS = 200;
+    private static final int REPORTS = 20;
+
+    public static void main(String[] args) throws Exception {
+
+        FruitStreamGenerator generator = new FruitStreamGenerator();
+
+        // The runtime is closed first, then the scheduler that served it
+        try (PriorityScheduler scheduler = new PriorityScheduler();
+             TaskRuntime runtime = new TaskRuntime(scheduler, TaskRuntime.DEFAULT_MAILBOX_CAPACITY)) {
+
+            scheduler.setQuota("reporting", 0.1);
+
+            DataStream<Fruit> inputStreamFruit = runtime.ingest(generator.getStream("fruit_market_one"));
+
+            DataStream<Fruit> alerts = new FruitDataStream("alerts");
+            AtomicLong alerted = new AtomicLong();
+            alerts.addConsumer((out, el, ts) -> alerted.incrementAndGet());
+
+            DataStream<FruitAggregateTable.Group> reports = new AggregateDataStream("reports");
+            AtomicLong reported = new AtomicLong();
+            reports.addConsumer((out, el, ts) -> reported.incrementAndGet());
+
+            for (int i = 0; i < ALERTS; i++)
+                runtime.register("alert_" + i, TaskSla.of("alerting", PriorityClass.CRITICAL),
+                        alertTask("alert_" + i, inputStreamFruit), List.of(inputStreamFruit), List.of(alerts));
+            for (int i = 0; i < REPORTS; i++)
+                runtime.register("report_" + i, TaskSla.of("reporting", PriorityClass.BATCH),
+                        reportTask("report_" + i, inputStreamFruit), List.of(inputStreamFruit), List.of(reports));
+
+            generator.startStreaming();
+            for (int s = 0; s < 4; s++) {
+                Thread.sleep(5_000);
+                for (TenantMetrics m : scheduler.tenantMetrics())
+                    System.out.println(m);
+            }
+            generator.stopStreaming();
+
+            System.out.println("Alerts: " + alerted.get() + ", report groups: " + reported.get());
+        }
+    }
+
+    //Latency-critical query: the overripe fruits of the last second
+    private static Task<Fruit, Fruit, FruitBasket, Fruit> alertTask(String name, DataStream<Fruit> input) {
+
+        ContentFactory<Fruit, Fruit, FruitBasket> accumulatorContentFactory = new AccumulatorContentFactory<>(
+                (fruit) -> fruit,
+                (fruit) -> {
+                    FruitBasket fb = new FruitBasket();
+                    fb.addFruit(fruit);
+                    return fb;
+                },
+                (basket_1, basket_2) -> {
+                    basket_1.addAll(basket_2);
+                    return basket_1;
+                },
+                new FruitBasket()
+        );
+
+        Report report = new ReportImpl();
+        report.add(new OnWindowClose());
+        Time instance = new TimeImpl(0);
+
+        StreamToRelationOperator<Fruit, Fruit, FruitBasket> s2r =
+                new CustomTumblingWindow<>(instance, name + "_window", accumulatorContentFactory, report, 1000);
+        RelationToRelationOperator<FruitBasket> r2r = new FilterFruitByRipeOp("ripe", Collections.singletonList(s2r.getName()), name + "_filtered");
+        RelationToStreamOperator<FruitBasket, Fruit> r2sOp = new RelationToStreamFruitOp();
+
+        Task<Fruit, Fruit, FruitBasket, Fruit> task = new TaskImpl<>();
+        task = task.addS2ROperator(s2r, input)
+                .addR2ROperator(r2r)
+                .addR2SOperator(r2sOp)
+                .addDAG(new DAGImpl<>())
+                .addSDS(new SDSDefault<>())
+                .addTime(instance);
+        task.initialize();
+        return task;
+    }
+
+    //Reporting query: statistics per kind over long windows
+    private static Task<Fruit, Fruit, FruitAggregateTable, FruitAggregateTable.Group> reportTask(String name, DataStream<Fruit> input) {
+
+        Report report = new ReportImpl();
+        report.add(new OnWindowClose());
+        Time instance = new TimeImpl(0);
+
+        StreamToRelationOperator<Fruit, Fruit, FruitAggregateTable> s2r =
+                new CustomTumblingWindow<>(instance, name + "_window", new FruitAggregateContentFactory(), report, 8000);
+        RelationToRelationOperator<FruitAggregateTable> r2r =
+                new GroupByFruitAggregateOp(GroupByFruitAggregateOp.GroupBy.KIND, Collections.singletonList(s2r.getName()), name + "_stats");
+        RelationToStreamOperator<FruitAggregateTable, FruitAggregateTable.Group> r2sOp = new RelationToStreamAggregateOp();
+
+        Task<Fruit, Fruit, FruitAggregateTable, FruitAggregateTable.Group> task = new TaskImpl<>();
+        task = task.addS2ROperator(s2r, input)
+                .addR2ROperator(r2r)
+                .addR2SOperator(r2sOp)
+                .addDAG(new DAGImpl<>())
+                .addSDS(new SDSDefault<>())
+                .addTime(instance);
+        task.initialize();
+        return task;
+    }
+}
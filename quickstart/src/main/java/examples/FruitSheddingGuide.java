@@ -0,0 +1,154 @@
+package examples;
+
+import customdatatypes.Fruit;
+import customdatatypes.FruitBasket;
+import customdatatypes.FruitDataStream;
+import customoperators.FilterFruitByRipeOp;
+import customoperators.RelationToStreamFruitOp;
+import customoperators.TimerTumblingWindow;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import org.streamreasoning.rsp4j.api.operators.r2s.RelationToStreamOperator;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.StreamToRelationOperator;
+import org.streamreasoning.rsp4j.api.querying.Task;
+import shared.querying.TaskImpl;
+import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
+import org.streamreasoning.rsp4j.api.secret.report.Report;
+import org.streamreasoning.rsp4j.api.secret.report.ReportImpl;
+import org.streamreasoning.rsp4j.api.secret.report.strategies.OnWindowClose;
+import org.streamreasoning.rsp4j.api.secret.time.Time;
+import org.streamreasoning.rsp4j.api.secret.time.TimeImpl;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import runtime.TaskRuntime;
+import shedding.LagMonitor;
+import shedding.LoadShedder;
+import shedding.UniformShedding;
+import shared.contentimpl.factories.AccumulatorContentFactory;
+import shared.operatorsimpl.r2r.DAG.DAGImpl;
+import shared.sds.SDSDefault;
+import stream.FruitStreamGenerator;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * The step-by-step guide with an output consumer too slow for the input rate, and a load shedder in front of the query.
+ *
+ * Without shedding the mailbox of the query grows without bounds and the results come later and later. With it, as soon as the
+ * query lags more than 2 seconds of event time behind the input, a share of the fruits is dropped before the window, and the lag
+ * stays bounded. For every window we print the fruits we got and the estimate of the fruits we would have got, rescaled with the
+ * counts of the shedder.
+ *
+ * Other policies: new KeyedShedding<>(Fruit::getName) drops whole kinds of fruit, new UtilityShedding<>(fruit -> fruit.getWeight() / 5)
+ * drops the lightest fruits first.
+ */
+
+public class FruitSheddingGuide {
+
+    private static final long WIDTH = 2000;
+
+    public static void main(String[] args) throws Exception {
+
+        /*------------Input and Output Stream definitions------------*/
+
+        FruitStreamGenerator generator = new FruitStreamGenerator();
+
+        TaskRuntime runtime = new TaskRuntime();
+
+        // The shedder sits between the market and the input stream of the query, it watches the lag of the runtime mailboxes
+        LoadShedder<Fruit> shedder = LoadShedder.on(generator.getStream("fruit_market_one"), new UniformShedding<>(1336),
+                LagMonitor.eventTime(runtime), 2000, WIDTH);
+        DataStream<Fruit> inputStreamFruit = runtime.ingest(shedder);
+
+        DataStream<Fruit> outStream = new FruitDataStream("fruit_consumer");
+
+        /*------------Window Content------------*/
+
+        ContentFactory<Fruit, Fruit, FruitBasket> accumulatorContentFactory = new AccumulatorContentFactory<>(
+                (fruit) -> fruit,
+                (fruit) -> {
+                    FruitBasket fb = new FruitBasket();
+                    fb.addFruit(fruit);
+                    return fb;
+                },
+                (basket_1, basket_2) -> {
+                    if(basket_1.getSize()>basket_2.getSize()){
+                        basket_1.addAll(basket_2);
+                        return basket_1;
+                    }
+                    else{
+                        basket_2.addAll(basket_1);
+                        return basket_2;
+                    }
+                },
+                new FruitBasket()
+        );
+
+
+        /*------------Window Properties------------*/
+
+        Report report = new ReportImpl();
+        report.add(new OnWindowClose());
+
+        Time instance = new TimeImpl(0);
+
+
+        /*------------S2R, R2R and R2S Operators------------*/
+
+        //The window is reported at its closing time, so the output timestamp tells which window a fruit comes from
+        StreamToRelationOperator<Fruit, Fruit, FruitBasket> fruit_s2r_one =
+                new TimerTumblingWindow<>(instance, "TumblingWindow", accumulatorContentFactory, report, WIDTH);
+
+        RelationToRelationOperator<FruitBasket> r2r_filter_underripe = new FilterFruitByRipeOp("underripe", Collections.singletonList(fruit_s2r_one.getName()), "filtered_fruit");
+
+        RelationToStreamOperator<FruitBasket, Fruit> r2sOp = new RelationToStreamFruitOp();
+
+
+        /*------------Task definition------------*/
+
+        Task<Fruit, Fruit, FruitBasket, Fruit> task = new TaskImpl<>();
+        task = task.addS2ROperator(fruit_s2r_one, inputStreamFruit)
+                .addR2ROperator(r2r_filter_underripe)
+                .addR2SOperator(r2sOp)
+                .addDAG(new DAGImpl<>())
+                .addSDS(new SDSDefault<>())
+                .addTime(instance);
+        task.initialize();
+
+        runtime.register("shedding_query", task, List.of(inputStreamFruit), List.of(outStream));
+
+
+        /*------------Output Stream consumer------------*/
+
+        // A slow consumer: 3 seconds per fruit, while a market sends a fruit per second
+        long[] window = {Long.MIN_VALUE, 0};
+        outStream.addConsumer((out, el, ts) -> {
+            if (ts != window[0]) {
+                if (window[0] != Long.MIN_VALUE)
+                    printWindow(shedder, window[0], window[1]);
+                window[0] = ts;
+                window[1] = 0;
+            }
+            window[1]++;
+            try {
+                Thread.sleep(3_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        generator.startStreaming();
+        for (int i = 0; i < 12; i++) {
+            Thread.sleep(5_000);
+            System.out.println("Lag " + shedder.getLastLagMillis() + " ms, shed ratio " + String.format("%.2f", shedder.getShedRatio())
+                    + ", shed " + shedder.getShed() + " of " + shedder.getReceived() + " fruits");
+        }
+        generator.stopStreaming();
+        runtime.close();
+    }
+
+    private static void printWindow(LoadShedder<Fruit> shedder, long close, long fruits) {
+        double factor = shedder.getRescaleFactor(close - WIDTH, close);
+        System.out.println("Window [" + (close - WIDTH) + ", " + close + "): " + fruits + " fruits, ~"
+                + Math.round(fruits * factor) + " without shedding (rescale factor " + String.format("%.2f", factor) + ")");
+    }
+}
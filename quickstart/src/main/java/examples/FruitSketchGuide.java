@@ -0,0 +1,137 @@
+package examples;
+
+import customdatatypes.EstimateDataStream;
+import customdatatypes.Fruit;
+import customdatatypes.FruitSketchSummary;
+import customoperators.CustomTumblingWindow;
+import customoperators.MergeFruitSketchOp;
+import customoperators.RelationToStreamEstimateOp;
+import customoperators.SketchContentFactory;
+import org.streamreasoning.rsp4j.api.coordinators.ContinuousProgram;
+import shared.coordinators.ContinuousProgramImpl;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import org.streamreasoning.rsp4j.api.operators.r2s.RelationToStreamOperator;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.StreamToRelationOperator;
+import org.streamreasoning.rsp4j.api.querying.Task;
+import shared.querying.TaskImpl;
+import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
+import org.streamreasoning.rsp4j.api.secret.report.Report;
+import org.streamreasoning.rsp4j.api.secret.report.ReportImpl;
+import org.streamreasoning.rsp4j.api.secret.report.strategies.OnWindowClose;
+import org.streamreasoning.rsp4j.api.secret.time.Time;
+import org.streamreasoning.rsp4j.api.secret.time.TimeImpl;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import shared.operatorsimpl.r2r.DAG.DAGImpl;
+import shared.sds.SDSDefault;
+import stream.FruitStreamGenerator;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * Approximate answers over large windows: weight quantiles, most frequent kinds and distinct fruits of two markets.
+ * The windows hold a FruitSketchSummary instead of the fruits, so their memory does not grow with the number of fruits.
+ */
+
+public class FruitSketchGuide {
+
+    public static void main(String[] args) throws InterruptedException {
+
+        /*------------Input and Output Stream definitions------------*/
+
+        // Define a generator to create input elements
+        FruitStreamGenerator generator = new FruitStreamGenerator();
+
+        // Define the two input streams
+        DataStream<Fruit> inputStreamFruit_one = generator.getStream("fruit_market_one");
+        DataStream<Fruit> inputStreamFruit_two = generator.getStream("fruit_market_two");
+
+        // define an output stream, this time it carries the estimates of the summary
+        DataStream<FruitSketchSummary.Estimate> outStream = new EstimateDataStream("fruit_estimates_consumer");
+
+        /*------------Window Content------------*/
+
+        // Factory object to create sketch-backed window contents, every fruit is added to the summary of its window
+        ContentFactory<Fruit, Fruit, FruitSketchSummary> sketchContentFactory = new SketchContentFactory<>(
+                (fruit) -> fruit,
+                FruitSketchSummary::new,
+                FruitSketchSummary::add
+        );
+
+
+        /*------------Window Properties------------*/
+
+        // Window properties (report)
+        Report report = new ReportImpl();
+        report.add(new OnWindowClose());
+
+        //Time object used to represent the time in our application
+        Time instance = new TimeImpl(0);
+
+
+        /*------------S2R, R2R and R2S Operators------------*/
+
+        //Define the Stream to Relation operators (blueprint of the windows)
+        StreamToRelationOperator<Fruit, Fruit, FruitSketchSummary> fruit_s2r_one =
+                new CustomTumblingWindow<>(
+                        instance,
+                        "SketchTumblingWindow_one",
+                        sketchContentFactory,
+                        report,
+                        4000);
+
+        StreamToRelationOperator<Fruit, Fruit, FruitSketchSummary> fruit_s2r_two =
+                new CustomTumblingWindow<>(
+                        instance,
+                        "SketchTumblingWindow_two",
+                        sketchContentFactory,
+                        report,
+                        4000);
+
+        //Define the Relation to Relation operator: merge the summaries of the two markets
+        RelationToRelationOperator<FruitSketchSummary> r2r_merge = new MergeFruitSketchOp(List.of(fruit_s2r_one.getName(), fruit_s2r_two.getName()), "fruit_estimates");
+
+        //Relation to Stream operator, send out the estimates
+        RelationToStreamOperator<FruitSketchSummary, FruitSketchSummary.Estimate> r2sOp = new RelationToStreamEstimateOp();
+
+
+        /*------------Task definition------------*/
+
+        //Define the Tasks, each of which represent a query
+        Task<Fruit, Fruit, FruitSketchSummary, FruitSketchSummary.Estimate> task = new TaskImpl<>();
+        task = task.addS2ROperator(fruit_s2r_one, inputStreamFruit_one)
+                .addS2ROperator(fruit_s2r_two, inputStreamFruit_two)
+                .addR2ROperator(r2r_merge)
+                .addR2SOperator(r2sOp)
+                .addDAG(new DAGImpl<>())
+                .addSDS(new SDSDefault<>())
+                .addTime(instance);
+        task.initialize();
+
+
+        /*------------Continuous Program definition------------*/
+
+        //Define the Continuous Program, which acts as the coordinator of the whole system
+        ContinuousProgram<Fruit, Fruit, FruitSketchSummary, FruitSketchSummary.Estimate> cp = new ContinuousProgramImpl<>();
+
+        List<DataStream<Fruit>> inputStreams = new ArrayList<>();
+        inputStreams.add(inputStreamFruit_one);
+        inputStreams.add(inputStreamFruit_two);
+
+        List<DataStream<FruitSketchSummary.Estimate>> outputStreams = new ArrayList<>();
+        outputStreams.add(outStream);
+
+
+        cp.buildTask(task, inputStreams, outputStreams);
+
+
+        /*------------Output Stream consumer------------*/
+
+        outStream.addConsumer((out, el, ts) -> System.out.println("Output Estimate: ["+el+ "]" + " @ " + ts));
+
+        generator.startStreaming();
+        Thread.sleep(20_000);
+        generator.stopStreaming();
+    }
+
+}
@@ -0,0 +1,61 @@
+package fusion;
+
+import customdatatypes.Fruit;
+import customdatatypes.FruitBasket;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+
+import java.util.List;
+
+/*
+ * Fused form of a chain of filters and unions on FruitBaskets, e.g. filter -> filter -> union.
+ *
+ * The chain is flattened into branches: a branch reads one operand (a window) and applies its filters in order, and the result is the
+ * union of all the branches. Every fruit is tested by the filters of its branch and, if it passes all of them, added straight to the
+ * result: one pass over each operand, no intermediate basket and no eval call per operator.
+ *
+ * The PipelineFuser loads a private copy of this class for every fused pipeline (a hidden class), so that the JIT profiles the calls to
+ * keep separately for each pipeline: in a copy they only ever see the few filter classes of that pipeline and get inlined.
+ * For the same reason the class must stay self-contained: no lambdas and no inner classes.
+ */
+public class FusedFilterUnionOp implements RelationToRelationOperator<FruitBasket> {
+
+    private final List<String> tvgNames;
+    private final String resName;
+    //Index in tvgNames of the operand read by every branch
+    private final int[] operands;
+    //Filters of every branch, in evaluation order
+    private final FusibleFruitFilter[][] filters;
+
+    public FusedFilterUnionOp(List<String> tvgNames, String resName, int[] operands, FusibleFruitFilter[][] filters) {
+        this.tvgNames = tvgNames;
+        this.resName = resName;
+        this.operands = operands;
+        this.filters = filters;
+    }
+
+    @Override
+    public FruitBasket eval(List<FruitBasket> datasets) {
+        FruitBasket res = new FruitBasket();
+        for (int b = 0; b < operands.length; b++) {
+            FusibleFruitFilter[] branch = filters[b];
+            for (Fruit fruit : datasets.get(operands[b])) {
+                boolean keep = true;
+                for (int f = 0; f < branch.length && keep; f++)
+                    keep = branch[f].keep(fruit);
+                if (keep)
+                    res.addFruit(fruit);
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public List<String> getTvgNames() {
+        return tvgNames;
+    }
+
+    @Override
+    public String getResName() {
+        return resName;
+    }
+}
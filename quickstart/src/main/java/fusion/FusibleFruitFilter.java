@@ -0,0 +1,12 @@
+package fusion;
+
+import customdatatypes.Fruit;
+
+/*
+ * An R2R filter on FruitBaskets that can also test a single fruit.
+ * The PipelineFuser inlines such filters into a fused operator, instead of calling eval and building a basket per filter.
+ */
+public interface FusibleFruitFilter {
+
+    boolean keep(Fruit fruit);
+}
@@ -0,0 +1,143 @@
+package fusion;
+
+import customdatatypes.FruitBasket;
+import customoperators.JoinFruitBasketOp;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Optional compilation step for the R2R operators of a Task: a chain made only of fusible filters (FusibleFruitFilter) and unions
+ * (JoinFruitBasketOp) is replaced by a single FusedFilterUnionOp with the same operands and the same result name.
+ *
+ * Usage: pass the R2R operators to fuse before adding them to the Task, and add what it returns instead.
+ * If the chain contains anything else (an aggregation, a semi-join, a filter whose result is used twice), the operators are returned
+ * unchanged and the Task runs them as usual.
+ *
+ * Only the R2R stage is fused. The S2R filter (the predicate of a CustomFilterContent) runs on every element as it enters the window,
+ * not when the window is evaluated, so it cannot join the per-window loop; the R2S operator is called by the Task on the result of
+ * the DAG. Both stay separate calls, as in the interpreted Task.
+ *
+ * Every fused pipeline gets its own copy of the FusedFilterUnionOp class, defined as a hidden class from the bytecode of the template.
+ * The copies share no profile, so each one is compiled for the filters of its own pipeline instead of the union of all the filters seen
+ * in the JVM. If the bytecode of the template cannot be read (e.g. unusual class loaders), the template class itself is used.
+ */
+public final class PipelineFuser {
+
+    private static final MethodType CONSTRUCTOR = MethodType.methodType(void.class, List.class, String.class, int[].class,
+            FusibleFruitFilter[][].class);
+    private static final byte[] TEMPLATE = templateBytes();
+
+    private PipelineFuser() {
+    }
+
+    public static List<RelationToRelationOperator<FruitBasket>> fuse(List<RelationToRelationOperator<FruitBasket>> r2rs) {
+        Map<String, RelationToRelationOperator<FruitBasket>> producers = new HashMap<>();
+        Map<String, Integer> uses = new HashMap<>();
+        for (RelationToRelationOperator<FruitBasket> op : r2rs) {
+            producers.put(op.getResName(), op);
+            for (String input : op.getTvgNames())
+                uses.merge(input, 1, Integer::sum);
+        }
+
+        //The chain must have a single result, which no other operator reads
+        RelationToRelationOperator<FruitBasket> sink = null;
+        for (RelationToRelationOperator<FruitBasket> op : r2rs) {
+            if (uses.containsKey(op.getResName()))
+                continue;
+            if (sink != null)
+                return r2rs;
+            sink = op;
+        }
+        if (sink == null)
+            return r2rs;
+
+        List<Branch> branches = new ArrayList<>();
+        if (!expand(sink.getResName(), producers, uses, new ArrayList<>(), branches, true))
+            return r2rs;
+
+        List<String> tvgNames = new ArrayList<>();
+        int[] operands = new int[branches.size()];
+        FusibleFruitFilter[][] filters = new FusibleFruitFilter[branches.size()][];
+        for (int b = 0; b < branches.size(); b++) {
+            Branch branch = branches.get(b);
+            if (!tvgNames.contains(branch.operand))
+                tvgNames.add(branch.operand);
+            operands[b] = tvgNames.indexOf(branch.operand);
+            filters[b] = branch.filters.toArray(new FusibleFruitFilter[0]);
+        }
+        return List.of(newFusedOp(tvgNames, sink.getResName(), operands, filters));
+    }
+
+    /*
+     * Walks the chain from the result back to the operands. 'filters' are the filters met on the way, closest to the result first,
+     * they are reversed in every branch so that the filter applied first in the Task is tested first.
+     */
+    private static boolean expand(String name, Map<String, RelationToRelationOperator<FruitBasket>> producers, Map<String, Integer> uses,
+                                  List<FusibleFruitFilter> filters, List<Branch> branches, boolean sink) {
+        RelationToRelationOperator<FruitBasket> op = producers.get(name);
+        if (op == null) {
+            List<FusibleFruitFilter> ordered = new ArrayList<>(filters);
+            Collections.reverse(ordered);
+            branches.add(new Branch(name, ordered));
+            return true;
+        }
+        //An intermediate result read by two operators cannot be folded into one of them
+        if (!sink && uses.getOrDefault(name, 0) != 1)
+            return false;
+        if (op instanceof FusibleFruitFilter && op.getTvgNames().size() == 1) {
+            List<FusibleFruitFilter> next = new ArrayList<>(filters);
+            next.add((FusibleFruitFilter) op);
+            return expand(op.getTvgNames().get(0), producers, uses, next, branches, false);
+        }
+        if (op instanceof JoinFruitBasketOp && op.getTvgNames().size() == 2) {
+            return expand(op.getTvgNames().get(0), producers, uses, filters, branches, false)
+                    && expand(op.getTvgNames().get(1), producers, uses, filters, branches, false);
+        }
+        return false;
+    }
+
+    private static RelationToRelationOperator<FruitBasket> newFusedOp(List<String> tvgNames, String resName, int[] operands,
+                                                                      FusibleFruitFilter[][] filters) {
+        if (TEMPLATE != null) {
+            try {
+                MethodHandles.Lookup copy = MethodHandles.lookup().defineHiddenClass(TEMPLATE, true);
+                MethodHandle constructor = copy.findConstructor(copy.lookupClass(), CONSTRUCTOR);
+                @SuppressWarnings("unchecked")
+                RelationToRelationOperator<FruitBasket> op =
+                        (RelationToRelationOperator<FruitBasket>) constructor.invoke(tvgNames, resName, operands, filters);
+                return op;
+            } catch (Throwable e) {
+                System.err.println("Cannot specialize the fused pipeline " + resName + ", using the shared class: " + e);
+            }
+        }
+        return new FusedFilterUnionOp(tvgNames, resName, operands, filters);
+    }
+
+    private static byte[] templateBytes() {
+        try (InputStream in = FusedFilterUnionOp.class.getResourceAsStream("FusedFilterUnionOp.class")) {
+            return in == null ? null : in.readAllBytes();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static final class Branch {
+        final String operand;
+        final List<FusibleFruitFilter> filters;
+
+        Branch(String operand, List<FusibleFruitFilter> filters) {
+            this.operand = operand;
+            this.filters = filters;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package lookup;
+
+import customdatatypes.FruitDictionary;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Loaders of the reference data about fruits, from comma-separated files keyed by the kind of fruit.
+ * Empty lines and lines starting with '#' are skipped, and so are rows of kinds missing from FruitDictionary.
+ *
+ *  - prices:     kind,price per kg            e.g. Apple,2.40
+ *  - suppliers:  kind,supplier (one per row)  e.g. Apple,Orchard Hill
+ */
+public final class FruitReferenceLoaders {
+
+    private FruitReferenceLoaders() {
+    }
+
+    public static ReferenceLoader<Float> prices() {
+        return reader -> {
+            Map<Integer, Float> prices = new HashMap<>();
+            for (String[] row : rows(reader, 2)) {
+                int kind = FruitDictionary.kindId(row[0]);
+                if (kind == FruitDictionary.KIND_OTHER)
+                    continue;
+                try {
+                    prices.put(kind, Float.parseFloat(row[1]));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Invalid price " + row[1] + " for " + row[0]);
+                }
+            }
+            return new IntIndex<>(prices);
+        };
+    }
+
+    public static ReferenceLoader<List<String>> suppliers() {
+        return reader -> {
+            Map<Integer, List<String>> suppliers = new HashMap<>();
+            for (String[] row : rows(reader, 2)) {
+                int kind = FruitDictionary.kindId(row[0]);
+                if (kind != FruitDictionary.KIND_OTHER)
+                    suppliers.computeIfAbsent(kind, k -> new ArrayList<>()).add(row[1]);
+            }
+            //The lists end up in the index, which is shared by the operators
+            suppliers.replaceAll((kind, list) -> Collections.unmodifiableList(list));
+            return new IntIndex<>(suppliers);
+        };
+    }
+
+    private static List<String[]> rows(BufferedReader reader, int columns) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        String line;
+        int number = 0;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            String[] row = line.split(",", -1);
+            if (row.length != columns)
+                throw new IOException("Line " + number + " has " + row.length + " columns instead of " + columns);
+            for (int i = 0; i < row.length; i++)
+                row[i] = row[i].trim();
+            rows.add(row);
+        }
+        return rows;
+    }
+}
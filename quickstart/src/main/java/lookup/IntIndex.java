@@ -0,0 +1,69 @@
+package lookup;
+
+import java.util.Map;
+
+/*
+ * Immutable hash index with primitive int keys, e.g. the dictionary codes of FruitDictionary.
+ *
+ * Open addressing with linear probing on parallel arrays: a lookup hashes the int, probes a few slots of an int[] and reads the value
+ * next to the matching key, with no boxing and no node to chase. The table is at most half full, so probe sequences stay short.
+ * Once built the index never changes, and can be shared by any number of threads without synchronization.
+ */
+public final class IntIndex<V> {
+
+    private static final IntIndex<?> EMPTY = new IntIndex<>(Map.of());
+
+    private final int[] keys;
+    private final Object[] values;
+    private final int mask;
+    private final int size;
+
+    public IntIndex(Map<Integer, ? extends V> entries) {
+        int capacity = Integer.highestOneBit(Math.max(4, entries.size() * 2 - 1)) << 1;
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+        this.mask = capacity - 1;
+        this.size = entries.size();
+        for (Map.Entry<Integer, ? extends V> e : entries.entrySet()) {
+            if (e.getValue() == null)
+                throw new IllegalArgumentException("Null value for key " + e.getKey());
+            int slot = slot(e.getKey());
+            while (values[slot] != null)
+                slot = (slot + 1) & mask;
+            keys[slot] = e.getKey();
+            values[slot] = e.getValue();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <V> IntIndex<V> empty() {
+        return (IntIndex<V>) EMPTY;
+    }
+
+    //Spreads the bits of the key, dictionary codes are small consecutive integers
+    private int slot(int key) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    //Value of the key, null if there is none
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = slot(key);
+        Object v;
+        while ((v = values[slot]) != null) {
+            if (keys[slot] == key)
+                return (V) v;
+            slot = (slot + 1) & mask;
+        }
+        return null;
+    }
+
+    public boolean containsKey(int key) {
+        return get(key) != null;
+    }
+
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,66 @@
+package lookup;
+
+import customdatatypes.EnrichedFruit;
+import customdatatypes.Fruit;
+import customdatatypes.FruitBasket;
+import customdatatypes.FruitDictionary;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import tracing.LatencyTracer;
+
+import java.util.Collections;
+import java.util.List;
+
+/*
+ * Lookup join of the fruits of a window with the static relations of prices and suppliers, on the kind of fruit.
+ *
+ * The static side is already indexed, so there is no build phase: every fruit costs a dictionary lookup of its kind and one probe
+ * per relation. Each evaluation takes one snapshot of the relations, so all the fruits of a window see the same version even if
+ * a refresh happens in the middle.
+ *
+ * With an inner join fruits whose kind has no price are dropped; otherwise they are kept with no price (left outer join).
+ * Suppliers never filter: a kind without suppliers gets an empty list.
+ */
+public class LookupJoinFruitOp implements RelationToRelationOperator<FruitBasket> {
+
+    List<String> tvgNames;
+    String resName;
+    private final StaticRelation<Float> prices;
+    private final StaticRelation<List<String>> suppliers;
+    private final boolean inner;
+
+    public LookupJoinFruitOp(StaticRelation<Float> prices, StaticRelation<List<String>> suppliers, boolean inner, List<String> tvgNames, String resName) {
+        this.prices = prices;
+        this.suppliers = suppliers;
+        this.inner = inner;
+        this.tvgNames = tvgNames;
+        this.resName = resName;
+    }
+
+    @Override
+    public FruitBasket eval(List<FruitBasket> datasets) {
+        IntIndex<Float> price_index = prices.snapshot();
+        IntIndex<List<String>> supplier_index = suppliers == null ? IntIndex.empty() : suppliers.snapshot();
+        FruitBasket res = new FruitBasket();
+        for(Fruit fruit : datasets.get(0)){
+            int kind = FruitDictionary.kindId(fruit.getName());
+            Float price = price_index.get(kind);
+            if(price == null && inner)
+                continue;
+            List<String> sellers = supplier_index.get(kind);
+            res.addFruit(new EnrichedFruit(fruit, price == null ? Float.NaN : price, sellers == null ? Collections.emptyList() : sellers));
+        }
+        if(LatencyTracer.isOn())
+            LatencyTracer.stampAll(res, LatencyTracer.R2R_PREFIX + resName);
+        return res;
+    }
+
+    @Override
+    public List<String> getTvgNames() {
+        return tvgNames;
+    }
+
+    @Override
+    public String getResName() {
+        return resName;
+    }
+}
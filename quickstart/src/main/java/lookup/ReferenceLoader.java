@@ -0,0 +1,14 @@
+package lookup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+
+/*
+ * Parses the file of a StaticRelation into a new index. It is called on the refresh thread, and must not share mutable state
+ * with the index it returned the previous time.
+ */
+@FunctionalInterface
+public interface ReferenceLoader<V> {
+
+    IntIndex<V> load(BufferedReader reader) throws IOException;
+}
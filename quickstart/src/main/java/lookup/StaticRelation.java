@@ -0,0 +1,89 @@
+package lookup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+/*
+ * A relation that does not come from a stream: slowly changing reference data (price lists, supplier tables...) loaded from a local
+ * file into an IntIndex, and joined with the windows of the Tasks by lookup operators such as LookupJoinFruitOp.
+ *
+ * Refreshes are copy-on-write: a new index is built from the file aside, then published with a single volatile write. Operators take
+ * a snapshot once per evaluation, so a window is always joined with one version of the relation, and a refresh never blocks them.
+ * If the file cannot be read or parsed the previous version stays in place, and the error is kept for inspection.
+ *
+ * A refresh can run while the file is being rewritten: new versions should be written aside and moved over the file, so that
+ * a refresh never reads half of them.
+ */
+public class StaticRelation<V> {
+
+    private final String name;
+    private final Path file;
+    private final ReferenceLoader<V> loader;
+    private volatile IntIndex<V> current = IntIndex.empty();
+    private volatile long version = 0;
+    private volatile long loadedAt = 0;
+    private volatile Exception lastError;
+    //Modification time and size of the loaded file, to skip refreshes of an unchanged file
+    private FileTime loadedModified;
+    private long loadedSize = -1;
+
+    public StaticRelation(String name, Path file, ReferenceLoader<V> loader) {
+        this.name = name;
+        this.file = file;
+        this.loader = loader;
+    }
+
+    //Reloads the file if it changed since the last load, returns true if a new version was published
+    public synchronized boolean refresh() {
+        try {
+            FileTime modified = Files.getLastModifiedTime(file);
+            long size = Files.size(file);
+            if (modified.equals(loadedModified) && size == loadedSize)
+                return false;
+            IntIndex<V> next;
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                next = loader.load(reader);
+            }
+            current = next;
+            loadedModified = modified;
+            loadedSize = size;
+            loadedAt = System.currentTimeMillis();
+            version++;
+            lastError = null;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            lastError = e;
+            return false;
+        }
+    }
+
+    //Current version of the relation; operators should call it once per evaluation and use the same snapshot for every lookup
+    public IntIndex<V> snapshot() {
+        return current;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    //Number of versions loaded so far, zero if the file was never loaded
+    public long getVersion() {
+        return version;
+    }
+
+    public long getLoadedAt() {
+        return loadedAt;
+    }
+
+    public Exception getLastError() {
+        return lastError;
+    }
+}
@@ -0,0 +1,65 @@
+package lookup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * The static relations available to the Tasks of a program, by name, together with the thread that refreshes them.
+ *
+ * A relation is loaded once when it is registered, so the first window is already joined with its content, and then checked for
+ * changes every refreshMillis on a single daemon thread.
+ */
+public class StaticRelationRegistry implements AutoCloseable {
+
+    private final Map<String, StaticRelation<?>> relations = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService refresher;
+
+    public StaticRelationRegistry(long refreshMillis) {
+        this.refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "static-relation-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        if (refreshMillis > 0)
+            refresher.scheduleWithFixedDelay(this::refreshAll, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public <V> StaticRelation<V> register(StaticRelation<V> relation) {
+        if (relations.putIfAbsent(relation.getName(), relation) != null)
+            throw new IllegalArgumentException("A static relation named " + relation.getName() + " is already registered");
+        if (!relation.refresh() && relation.getLastError() != null)
+            throw new IllegalStateException("Cannot load static relation " + relation.getName() + " from " + relation.getFile(), relation.getLastError());
+        return relation;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <V> StaticRelation<V> get(String name) {
+        StaticRelation<?> relation = relations.get(name);
+        if (relation == null)
+            throw new IllegalArgumentException("No static relation named " + name);
+        return (StaticRelation<V>) relation;
+    }
+
+    public List<StaticRelation<?>> getRelations() {
+        return new ArrayList<>(relations.values());
+    }
+
+    //Reloads the relations whose file changed, returns how many were reloaded
+    public int refreshAll() {
+        int reloaded = 0;
+        for (StaticRelation<?> relation : relations.values())
+            if (relation.refresh())
+                reloaded++;
+        return reloaded;
+    }
+
+    @Override
+    public void close() {
+        refresher.shutdownNow();
+    }
+}
@@ -0,0 +1,117 @@
+package plan;
+
+import adaptive.AdaptiveSemiJoinOp;
+import customdatatypes.Fruit;
+import customdatatypes.FruitBasket;
+import customoperators.CustomFilterContentFactory;
+import customoperators.CustomTumblingWindow;
+import customoperators.FilterFruitByRipeOp;
+import customoperators.JoinFruitBasketOp;
+import customoperators.RelationToStreamFruitOp;
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.StreamToRelationOperator;
+import org.streamreasoning.rsp4j.api.querying.Task;
+import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
+import org.streamreasoning.rsp4j.api.secret.report.Report;
+import org.streamreasoning.rsp4j.api.secret.report.ReportImpl;
+import org.streamreasoning.rsp4j.api.secret.report.strategies.OnWindowClose;
+import org.streamreasoning.rsp4j.api.secret.time.Time;
+import org.streamreasoning.rsp4j.api.secret.time.TimeImpl;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import runtime.ConcurrentTime;
+import shared.contentimpl.factories.AccumulatorContentFactory;
+import shared.operatorsimpl.r2r.DAG.DAGImpl;
+import shared.querying.TaskImpl;
+import shared.sds.SDSDefault;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/*
+ * Builds the Task described by a TaskPlan, calling the constructors of the operators directly: the same Task the guides build by hand,
+ * with no lookup of classes by name at startup. The plan is validated first, and an invalid plan is rejected with all its errors.
+ */
+public final class PlanCompiler {
+
+    private PlanCompiler() {
+    }
+
+    //Time object of the plan, to be shared by the windows and the Task
+    public static Time time(TaskPlan plan) {
+        return plan.getTime().equals("concurrent") ? new ConcurrentTime(0) : new TimeImpl(0);
+    }
+
+    //Input streams of the plan by name, in declaration order; several windows may read the same stream
+    public static Map<String, DataStream<Fruit>> inputs(TaskPlan plan, Function<String, DataStream<Fruit>> streams) {
+        Map<String, DataStream<Fruit>> res = new LinkedHashMap<>();
+        for (TaskPlan.WindowSpec w : plan.getWindows())
+            res.computeIfAbsent(w.getStream(), streams);
+        return res;
+    }
+
+    public static Task<Fruit, Fruit, FruitBasket, Fruit> compile(TaskPlan plan, Time time, Map<String, DataStream<Fruit>> inputs) {
+        List<String> errors = PlanValidator.validate(plan);
+        if (!errors.isEmpty())
+            throw new IllegalArgumentException("Invalid plan " + plan.getName() + ": " + String.join("; ", errors));
+
+        Report report = new ReportImpl();
+        report.add(new OnWindowClose());
+
+        Task<Fruit, Fruit, FruitBasket, Fruit> task = new TaskImpl<>();
+        for (TaskPlan.WindowSpec w : plan.getWindows()) {
+            StreamToRelationOperator<Fruit, Fruit, FruitBasket> s2r =
+                    new CustomTumblingWindow<>(time, w.getName(), contentFactory(w), report, w.getWidth());
+            DataStream<Fruit> input = inputs.get(w.getStream());
+            if (input == null)
+                throw new IllegalArgumentException("No input stream " + w.getStream() + " for window " + w.getName());
+            task = task.addS2ROperator(s2r, input);
+        }
+        for (TaskPlan.OperatorSpec op : plan.getOperators())
+            task = task.addR2ROperator(operator(op));
+        task = task.addR2SOperator(new RelationToStreamFruitOp())
+                .addDAG(new DAGImpl<>())
+                .addSDS(new SDSDefault<>())
+                .addTime(time);
+        task.initialize();
+        return task;
+    }
+
+    private static ContentFactory<Fruit, Fruit, FruitBasket> contentFactory(TaskPlan.WindowSpec w) {
+        Function<Fruit, FruitBasket> single = (fruit) -> {
+            FruitBasket fb = new FruitBasket();
+            fb.addFruit(fruit);
+            return fb;
+        };
+        BiFunction<FruitBasket, FruitBasket, FruitBasket> union = (basket_1, basket_2) -> {
+            if(basket_1.getSize()>basket_2.getSize()){
+                basket_1.addAll(basket_2);
+                return basket_1;
+            }
+            else{
+                basket_2.addAll(basket_1);
+                return basket_2;
+            }
+        };
+        if (w.getParams().getOrDefault("content", "accumulator").equals("filter")) {
+            float minWeight = Float.parseFloat(w.getParams().get("min_weight"));
+            return new CustomFilterContentFactory<>((fruit) -> fruit, single, union, new FruitBasket(), (fruit) -> fruit.getWeight() > minWeight);
+        }
+        return new AccumulatorContentFactory<>((fruit) -> fruit, single, union, new FruitBasket());
+    }
+
+    private static RelationToRelationOperator<FruitBasket> operator(TaskPlan.OperatorSpec op) {
+        switch (op.getType()) {
+            case "filter_ripe":
+                return new FilterFruitByRipeOp(op.getParams().get("status"), op.getInputs(), op.getOutput());
+            case "join":
+                return new JoinFruitBasketOp(op.getInputs(), op.getOutput());
+            case "semi_join":
+                return new AdaptiveSemiJoinOp(op.getInputs(), op.getOutput());
+            default:
+                throw new IllegalArgumentException("Unknown operator " + op.getType());
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package plan;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/*
+ * Offline checks of a TaskPlan, run before a plan is shipped to the workers (see main) and again by the PlanCompiler.
+ *
+ * A valid plan has a name, uses a known time, declares windows with unique names, a stream and a positive width, and chains known R2R
+ * operators with the right number of inputs, each reading windows or the result of an operator declared before it. The result of the
+ * last operator (or the single window, when there is no operator) is what the Task emits, so every other result must be read by
+ * someone.
+ */
+public final class PlanValidator {
+
+    static final List<String> TIMES = List.of("default", "concurrent");
+    static final List<String> CONTENTS = List.of("accumulator", "filter");
+    //Number of inputs of each known R2R operator
+    static final Map<String, Integer> OPERATORS = new TreeMap<>(Map.of("filter_ripe", 1, "join", 2, "semi_join", 2));
+    private static final List<String> STATUSES = List.of("underripe", "ripe", "overripe");
+
+    private PlanValidator() {
+    }
+
+    //Returns the errors of the plan, empty if it is valid
+    public static List<String> validate(TaskPlan plan) {
+        List<String> errors = new ArrayList<>();
+        if (plan.getName() == null)
+            errors.add("the plan has no 'task' name");
+        if (!TIMES.contains(plan.getTime()))
+            errors.add("unknown time '" + plan.getTime() + "', expected one of " + TIMES);
+        if (plan.getWindows().isEmpty())
+            errors.add("the plan has no window");
+        if (plan.getOutputs().isEmpty())
+            errors.add("the plan has no output stream");
+
+        Set<String> relations = new HashSet<>();
+        Set<String> unread = new LinkedHashSet<>();
+        for (TaskPlan.WindowSpec w : plan.getWindows()) {
+            String where = "window " + w.getName();
+            if (!relations.add(w.getName()))
+                errors.add(where + ": the name is already used");
+            unread.add(w.getName());
+            if (w.getStream() == null)
+                errors.add(where + ": missing stream");
+            if (w.getWidth() <= 0)
+                errors.add(where + ": the width must be positive");
+            String content = w.getParams().getOrDefault("content", "accumulator");
+            if (!CONTENTS.contains(content))
+                errors.add(where + ": unknown content '" + content + "', expected one of " + CONTENTS);
+            for (String key : w.getParams().keySet()) {
+                if (!key.equals("content") && !(key.equals("min_weight") && content.equals("filter")))
+                    errors.add(where + ": unknown option '" + key + "'");
+            }
+            if (content.equals("filter"))
+                checkNumber(errors, where, "min_weight", w.getParams().get("min_weight"));
+        }
+
+        for (TaskPlan.OperatorSpec op : plan.getOperators()) {
+            String where = "r2r " + op.getType() + (op.getOutput() == null ? "" : " -> " + op.getOutput());
+            Integer arity = OPERATORS.get(op.getType());
+            if (arity == null) {
+                errors.add(where + ": unknown operator, expected one of " + OPERATORS.keySet());
+            } else if (op.getInputs().size() != arity) {
+                errors.add(where + ": takes " + arity + " input(s), found " + op.getInputs().size());
+            }
+            for (String in : op.getInputs()) {
+                if (!relations.contains(in))
+                    errors.add(where + ": reads '" + in + "', which is neither a window nor the result of a previous operator");
+                unread.remove(in);
+            }
+            if (op.getOutput() == null)
+                errors.add(where + ": missing out");
+            else if (!relations.add(op.getOutput()))
+                errors.add(where + ": the result name '" + op.getOutput() + "' is already used");
+            else
+                unread.add(op.getOutput());
+            if (op.getType().equals("filter_ripe")) {
+                String status = op.getParams().get("status");
+                if (status == null || !STATUSES.contains(status))
+                    errors.add(where + ": status must be one of " + STATUSES);
+            }
+            for (String key : op.getParams().keySet())
+                if (!(key.equals("status") && op.getType().equals("filter_ripe")))
+                    errors.add(where + ": unknown option '" + key + "'");
+        }
+
+        //The emitted relation is the last one, any other relation nobody reads is a mistake in the plan
+        String emitted = plan.getOperators().isEmpty()
+                ? (plan.getWindows().size() == 1 ? plan.getWindows().get(0).getName() : null)
+                : plan.getOperators().get(plan.getOperators().size() - 1).getOutput();
+        unread.remove(emitted);
+        for (String name : unread)
+            errors.add("'" + name + "' is never read");
+        return errors;
+    }
+
+    private static void checkNumber(List<String> errors, String where, String key, String value) {
+        if (value == null) {
+            errors.add(where + ": missing " + key);
+            return;
+        }
+        try {
+            Float.parseFloat(value);
+        } catch (NumberFormatException e) {
+            errors.add(where + ": " + key + " '" + value + "' is not a number");
+        }
+    }
+
+    /*
+     * Validates the given plan files, e.g. in the build of the plans before they are deployed:
+     *     java -cp quickstart.jar plan.PlanValidator plans/*.plan
+     * Exits with status 1 if any plan is invalid.
+     */
+    public static void main(String[] args) {
+        boolean ok = true;
+        for (String file : args) {
+            List<String> errors;
+            try {
+                errors = validate(TaskPlan.read(Path.of(file)));
+            } catch (IOException e) {
+                //The message of a syntax error already names the file
+                System.out.println(e.getMessage());
+                ok = false;
+                continue;
+            }
+            if (errors.isEmpty()) {
+                System.out.println(file + ": OK");
+            } else {
+                ok = false;
+                for (String error : errors)
+                    System.out.println(file + ": " + error);
+            }
+        }
+        if (!ok)
+            System.exit(1);
+    }
+}
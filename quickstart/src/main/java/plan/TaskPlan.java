@@ -0,0 +1,263 @@
+package plan;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Serializable description of a fruit Task: its windows, its R2R operators in evaluation order and its output streams.
+ *
+ * Plans are plain text, one declaration per line, so they can be written by hand, diffed, checked by the PlanValidator before being
+ * shipped, and compiled into a Task by the PlanCompiler without any reflection:
+ *
+ *   plan 1
+ *   task advanced_query
+ *   time concurrent
+ *   window TumblingWindow_one stream=fruit_market_one width=1000 content=accumulator
+ *   window TumblingWindow_two stream=fruit_market_two width=1000 content=filter min_weight=2
+ *   r2r filter_ripe in=TumblingWindow_one out=filtered_fruit status=underripe
+ *   r2r join in=filtered_fruit,TumblingWindow_two out=joined_fruit
+ *   output fruit_consumer
+ *
+ * Empty lines and lines starting with '#' are ignored. The first declaration is the version of the format.
+ */
+public class TaskPlan {
+
+    public static final int VERSION = 1;
+
+    private final String name;
+    private final String time;
+    private final List<WindowSpec> windows;
+    private final List<OperatorSpec> operators;
+    private final List<String> outputs;
+
+    public TaskPlan(String name, String time, List<WindowSpec> windows, List<OperatorSpec> operators, List<String> outputs) {
+        this.name = name;
+        this.time = time;
+        this.windows = Collections.unmodifiableList(new ArrayList<>(windows));
+        this.operators = Collections.unmodifiableList(new ArrayList<>(operators));
+        this.outputs = Collections.unmodifiableList(new ArrayList<>(outputs));
+    }
+
+    public static TaskPlan read(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            return parse(reader);
+        } catch (IOException e) {
+            throw new IOException(file + ": " + e.getMessage(), e);
+        }
+    }
+
+    //Parses the syntax of a plan; whether the plan makes sense is checked by the PlanValidator
+    public static TaskPlan parse(BufferedReader reader) throws IOException {
+        String name = null;
+        String time = "default";
+        int version = -1;
+        List<WindowSpec> windows = new ArrayList<>();
+        List<OperatorSpec> operators = new ArrayList<>();
+        List<String> outputs = new ArrayList<>();
+        String line;
+        int number = 0;
+        while ((line = reader.readLine()) != null) {
+            number++;
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+            String[] tokens = line.split("\\s+");
+            if (version < 0 && !tokens[0].equals("plan"))
+                throw new IOException("line " + number + ": a plan starts with 'plan " + VERSION + "'");
+            switch (tokens[0]) {
+                case "plan":
+                    expect(tokens, 2, number);
+                    version = parseInt(tokens[1], number);
+                    if (version != VERSION)
+                        throw new IOException("line " + number + ": unsupported plan version " + version);
+                    break;
+                case "task":
+                    expect(tokens, 2, number);
+                    name = tokens[1];
+                    break;
+                case "time":
+                    expect(tokens, 2, number);
+                    time = tokens[1];
+                    break;
+                case "window": {
+                    if (tokens.length < 2)
+                        throw new IOException("line " + number + ": a window needs a name");
+                    Map<String, String> params = params(tokens, 2, number);
+                    String stream = params.remove("stream");
+                    String width = params.remove("width");
+                    windows.add(new WindowSpec(tokens[1], stream, width == null ? -1 : parseLong(width, number), params));
+                    break;
+                }
+                case "r2r": {
+                    if (tokens.length < 2)
+                        throw new IOException("line " + number + ": an operator needs a type");
+                    Map<String, String> params = params(tokens, 2, number);
+                    String in = params.remove("in");
+                    String out = params.remove("out");
+                    List<String> inputs = in == null || in.isEmpty() ? List.of() : List.of(in.split(","));
+                    operators.add(new OperatorSpec(tokens[1], inputs, out, params));
+                    break;
+                }
+                case "output":
+                    expect(tokens, 2, number);
+                    outputs.add(tokens[1]);
+                    break;
+                default:
+                    throw new IOException("line " + number + ": unknown declaration '" + tokens[0] + "'");
+            }
+        }
+        if (version < 0)
+            throw new IOException("empty plan");
+        return new TaskPlan(name, time, windows, operators, outputs);
+    }
+
+    private static void expect(String[] tokens, int count, int number) throws IOException {
+        if (tokens.length != count)
+            throw new IOException("line " + number + ": '" + tokens[0] + "' takes " + (count - 1) + " value(s)");
+    }
+
+    private static Map<String, String> params(String[] tokens, int from, int number) throws IOException {
+        Map<String, String> params = new LinkedHashMap<>();
+        for (int i = from; i < tokens.length; i++) {
+            int eq = tokens[i].indexOf('=');
+            if (eq <= 0)
+                throw new IOException("line " + number + ": expected key=value, found '" + tokens[i] + "'");
+            if (params.put(tokens[i].substring(0, eq), tokens[i].substring(eq + 1)) != null)
+                throw new IOException("line " + number + ": '" + tokens[i].substring(0, eq) + "' is given twice");
+        }
+        return params;
+    }
+
+    private static int parseInt(String value, int number) throws IOException {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IOException("line " + number + ": '" + value + "' is not a number");
+        }
+    }
+
+    private static long parseLong(String value, int number) throws IOException {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IOException("line " + number + ": '" + value + "' is not a number");
+        }
+    }
+
+    //Writes the plan in the format read by parse
+    public void write(Writer out) throws IOException {
+        out.write("plan " + VERSION + "\n");
+        if (name != null)
+            out.write("task " + name + "\n");
+        out.write("time " + time + "\n");
+        for (WindowSpec w : windows) {
+            out.write("window " + w.getName() + " stream=" + w.getStream() + " width=" + w.getWidth());
+            writeParams(out, w.getParams());
+        }
+        for (OperatorSpec op : operators) {
+            out.write("r2r " + op.getType() + " in=" + String.join(",", op.getInputs()) + " out=" + op.getOutput());
+            writeParams(out, op.getParams());
+        }
+        for (String output : outputs)
+            out.write("output " + output + "\n");
+    }
+
+    private static void writeParams(Writer out, Map<String, String> params) throws IOException {
+        for (Map.Entry<String, String> p : params.entrySet())
+            out.write(" " + p.getKey() + "=" + p.getValue());
+        out.write("\n");
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getTime() {
+        return time;
+    }
+
+    public List<WindowSpec> getWindows() {
+        return windows;
+    }
+
+    public List<OperatorSpec> getOperators() {
+        return operators;
+    }
+
+    public List<String> getOutputs() {
+        return outputs;
+    }
+
+    //A tumbling window on an input stream, params holds the content type and its options
+    public static final class WindowSpec {
+
+        private final String name;
+        private final String stream;
+        private final long width;
+        private final Map<String, String> params;
+
+        public WindowSpec(String name, String stream, long width, Map<String, String> params) {
+            this.name = name;
+            this.stream = stream;
+            this.width = width;
+            this.params = Collections.unmodifiableMap(new LinkedHashMap<>(params));
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public String getStream() {
+            return stream;
+        }
+
+        public long getWidth() {
+            return width;
+        }
+
+        public Map<String, String> getParams() {
+            return params;
+        }
+    }
+
+    //An R2R operator reading the named relations (windows or results of previous operators) and producing one
+    public static final class OperatorSpec {
+
+        private final String type;
+        private final List<String> inputs;
+        private final String output;
+        private final Map<String, String> params;
+
+        public OperatorSpec(String type, List<String> inputs, String output, Map<String, String> params) {
+            this.type = type;
+            this.inputs = Collections.unmodifiableList(new ArrayList<>(inputs));
+            this.output = output;
+            this.params = Collections.unmodifiableMap(new LinkedHashMap<>(params));
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public List<String> getInputs() {
+            return inputs;
+        }
+
+        public String getOutput() {
+            return output;
+        }
+
+        public Map<String, String> getParams() {
+            return params;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package runtime;
+
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.Consumer;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Output stream with a bounded buffer per subscriber, in the style of the Reactive Streams Flow.Publisher.
+ *
+ * put only enqueues the element in the buffer of every subscriber; each subscriber receives the elements on the stream executor,
+ * one at a time and only as many as it requested. Consumers added with addConsumer request elements one by one while they process
+ * them, so a slow consumer fills its buffer. A drain delivers at most DRAIN_BATCH elements and then goes back to the executor,
+ * so a slow subscriber never keeps a thread from the others.
+ *
+ * The credits of the stream are the free space of the fullest buffer: the Task writing in the stream (and, through the Task mailbox
+ * and the input streams, the sources) use them to slow down before the buffers are full. A put on a full buffer blocks until
+ * the subscriber catches up, which is the last line of defence for producers that ignore the credits.
+ *
+ * The stream has to be closed: close drops the elements not delivered yet, completes the subscribers and shuts down the executor
+ * if the stream created it. An executor given by the caller is left to the caller.
+ */
+public class BoundedOutputStream<T> implements DataStream<T>, Flow.Publisher<T>, FlowControlled, AutoCloseable {
+
+    public static final int DRAIN_BATCH = 16;
+
+    private final String name;
+    private final int capacity;
+    private final Executor executor;
+    //True if the stream created the executor, and shuts it down on close
+    private final boolean ownsExecutor;
+    private final List<BufferedSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final AtomicInteger subscriberCounter = new AtomicInteger();
+    private volatile boolean closed = false;
+
+    public BoundedOutputStream(String name, int capacity) {
+        this(name, capacity, TaskRuntime.newTaskExecutor(), true);
+    }
+
+    public BoundedOutputStream(String name, int capacity, Executor executor) {
+        this(name, capacity, executor, false);
+    }
+
+    private BoundedOutputStream(String name, int capacity, Executor executor, boolean ownsExecutor) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive");
+        this.name = name;
+        this.capacity = capacity;
+        this.executor = executor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    @Override
+    public void addConsumer(Consumer<T> consumer) {
+        BufferedSubscription s = new BufferedSubscription(name + "-consumer-" + subscriberCounter.incrementAndGet(),
+                (element, ts) -> consumer.notify(this, element, ts), null);
+        subscriptions.add(s);
+        //A plain consumer processes one element at a time, and asks for the next one when it is done
+        s.request(1);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        BufferedSubscription s = new BufferedSubscription(name + "-subscriber-" + subscriberCounter.incrementAndGet(),
+                (element, ts) -> subscriber.onNext(element), subscriber);
+        subscriptions.add(s);
+        subscriber.onSubscribe(s);
+    }
+
+    @Override
+    public void put(T element, long ts) {
+        if (closed)
+            return;
+        for (BufferedSubscription s : subscriptions) {
+            try {
+                s.offer(element, ts);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    @Override
+    public long credits() {
+        long credits = capacity;
+        for (BufferedSubscription s : subscriptions)
+            credits = Math.min(credits, s.buffer.remainingCapacity());
+        return credits;
+    }
+
+    //Drops the pending elements, completes the subscribers once their current drain is over, and shuts down the executor it created
+    @Override
+    public void close() throws InterruptedException {
+        closed = true;
+        List<BufferedSubscription> closing = new ArrayList<>(subscriptions);
+        for (BufferedSubscription s : closing)
+            s.terminate();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (BufferedSubscription s : closing)
+            while (!s.isTerminated() && System.nanoTime() < deadline)
+                Thread.sleep(10);
+        if (ownsExecutor) {
+            ExecutorService owned = (ExecutorService) executor;
+            owned.shutdown();
+            owned.awaitTermination(10, TimeUnit.SECONDS);
+        }
+    }
+
+    public List<QueueMetrics> queueMetrics() {
+        List<QueueMetrics> res = new ArrayList<>();
+        for (BufferedSubscription s : subscriptions)
+            res.add(new QueueMetrics(s.name, s.buffer.size(), capacity, s.highWatermark.get(), s.delivered.get()));
+        return res;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    private interface Delivery<T> {
+        void deliver(T element, long ts);
+    }
+
+    private final class BufferedSubscription implements Flow.Subscription {
+
+        private final String name;
+        private final Delivery<T> delivery;
+        //Null for plain consumers, which re-request after every element
+        private final Flow.Subscriber<? super T> subscriber;
+        private final BlockingQueue<Entry> buffer = new ArrayBlockingQueue<>(capacity);
+        private final AtomicLong demand = new AtomicLong();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+        private final AtomicInteger highWatermark = new AtomicInteger();
+        private final AtomicLong delivered = new AtomicLong();
+        private volatile boolean cancelled = false;
+        //Set when the stream is closed, until onComplete has been signalled by a drain
+        private final AtomicBoolean completing = new AtomicBoolean(false);
+
+        BufferedSubscription(String name, Delivery<T> delivery, Flow.Subscriber<? super T> subscriber) {
+            this.name = name;
+            this.delivery = delivery;
+            this.subscriber = subscriber;
+        }
+
+        void offer(T element, long ts) throws InterruptedException {
+            if (cancelled)
+                return;
+            buffer.put(new Entry(element, ts));
+            highWatermark.accumulateAndGet(buffer.size(), Math::max);
+            schedule();
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                cancel();
+                if (subscriber != null)
+                    subscriber.onError(new IllegalArgumentException("Requested " + n + " elements, demand must be positive"));
+                return;
+            }
+            demand.accumulateAndGet(n, (current, add) -> current + add < 0 ? Long.MAX_VALUE : current + add);
+            schedule();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            subscriptions.remove(this);
+            buffer.clear();
+        }
+
+        //Cancels the subscription on close; onComplete is signalled by a drain, so it never overlaps with a delivery
+        void terminate() {
+            completing.set(subscriber != null);
+            cancel();
+            schedule();
+        }
+
+        boolean isTerminated() {
+            return !completing.get() && !scheduled.get();
+        }
+
+        private void schedule() {
+            boolean work = completing.get() || (!buffer.isEmpty() && demand.get() > 0);
+            if (!work || !scheduled.compareAndSet(false, true))
+                return;
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                //The executor was shut down: nothing can be delivered anymore
+                completing.set(false);
+                scheduled.set(false);
+            }
+        }
+
+        private void drain() {
+            try {
+                //A slow consumer keeps requesting, the batch gives the thread back to the other subscribers
+                for (int i = 0; i < DRAIN_BATCH && !cancelled && demand.get() > 0; i++) {
+                    Entry next = buffer.poll();
+                    if (next == null)
+                        break;
+                    demand.decrementAndGet();
+                    try {
+                        delivery.deliver(next.element, next.ts);
+                    } catch (RuntimeException e) {
+                        if (subscriber == null) {
+                            //A failing element must not stop a plain consumer
+                            e.printStackTrace();
+                        } else {
+                            cancel();
+                            subscriber.onError(e);
+                            return;
+                        }
+                    }
+                    delivered.incrementAndGet();
+                    if (subscriber == null)
+                        demand.incrementAndGet();
+                }
+                if (completing.compareAndSet(true, false))
+                    subscriber.onComplete();
+            } finally {
+                scheduled.set(false);
+            }
+            schedule();
+        }
+    }
+
+    private final class Entry {
+        final T element;
+        final long ts;
+
+        Entry(T element, long ts) {
+            this.element = element;
+            this.ts = ts;
+        }
+    }
+}
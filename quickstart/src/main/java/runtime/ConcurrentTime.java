@@ -0,0 +1,192 @@
+package runtime;
+
+import org.streamreasoning.rsp4j.api.secret.time.Time;
+import org.streamreasoning.rsp4j.api.secret.time.TimeImpl;
+import org.streamreasoning.rsp4j.api.secret.time.TimeInstant;
+
+import java.util.Comparator;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Thread-safe Time, for windows that share the same Time but are fed by different threads (e.g. one thread per market).
+ *
+ *  - The application time is monotonic: setAppTime is an atomic max-update, so a thread with an older timestamp never moves it back.
+ *  - Each input stream has its own watermark (the largest timestamp it delivered), kept under the name of the window that reads
+ *    it. A window checks the order of its elements against the watermark of its own stream, not against the (faster) other
+ *    streams. The global low watermark is the minimum of the stream watermarks: every stream delivered all its elements up to it.
+ *  - Evaluation instants go into a lock-free MPSC queue, and are released in time order once the global low watermark reaches
+ *    them: when an instant is evaluated, every window sharing the Time has closed the windows before it, so the evaluation only
+ *    reads contents that no ingest thread is still adding to.
+ *  - A single thread evaluates at a time: the thread that hasEvaluationInstant answered true keeps the evaluation until it asks
+ *    again and nothing is left to release. Another thread asking meanwhile gets false, its instants are evaluated by the owner.
+ *
+ * The windows declare their stream with register (in their constructor, so the low watermark waits for a stream that has not
+ * delivered anything yet), and use lastTime, advanceTime and addEvaluationTime, which fall back to the plain Time methods when the
+ * Time is not a ConcurrentTime. A window advances its watermark last, once the windows closed by the element are reported and their
+ * instants added. A stream that goes quiet holds the evaluation back: drive it with punctuations (ProcessingTimeDriver).
+ *
+ * Producers never take a lock: setAppTime, advanceWatermark and the evaluation instants are single atomic updates. The consumers
+ * of the evaluation instants are serialized by a lock, only contended when two threads look for an evaluation at the same time.
+ */
+public class ConcurrentTime extends TimeImpl {
+
+    private final long t0;
+    private final AtomicLong appTime;
+    private final MpscQueue<Pending> evaluationInstants = new MpscQueue<>();
+    private final Map<String, AtomicLong> watermarks = new ConcurrentHashMap<>();
+    //Evaluation instants moved out of the queue and not yet released, in time order; guarded by its own lock
+    private final PriorityQueue<Pending> pending = new PriorityQueue<>(Comparator.comparingLong(p -> p.t));
+    //Thread currently evaluating, null when none, and time of the last released instant; guarded by the lock of pending
+    private Thread evaluator;
+    private long released = Long.MIN_VALUE;
+
+    public ConcurrentTime(long t0) {
+        super(t0);
+        this.t0 = t0;
+        this.appTime = new AtomicLong(t0);
+    }
+
+    @Override
+    public long getScope() {
+        return t0;
+    }
+
+    @Override
+    public long getAppTime() {
+        return appTime.get();
+    }
+
+    @Override
+    public void setAppTime(long now) {
+        appTime.accumulateAndGet(now, Math::max);
+    }
+
+    //An instant added without its time (through the Time interface) is released at once, as with a plain Time
+    @Override
+    public void addEvaluationTimeInstants(TimeInstant i) {
+        evaluationInstants.offer(new Pending(Long.MIN_VALUE, i));
+    }
+
+    //Adds an evaluation instant at t, released once every stream reached t
+    public void addEvaluationTime(long t) {
+        evaluationInstants.offer(new Pending(t, new TimeInstant(t)));
+    }
+
+    @Override
+    public boolean hasEvaluationInstant() {
+        synchronized (pending) {
+            Thread current = Thread.currentThread();
+            if (evaluator != null && evaluator != current)
+                return false;
+            boolean ready = next() != null;
+            evaluator = ready ? current : null;
+            return ready;
+        }
+    }
+
+    @Override
+    public TimeInstant getEvaluationTime() {
+        synchronized (pending) {
+            Thread current = Thread.currentThread();
+            if (evaluator != null && evaluator != current)
+                return null;
+            Pending next = next();
+            if (next == null)
+                return null;
+            evaluator = current;
+            released = next.t;
+            return pending.poll().instant;
+        }
+    }
+
+    //Time of the last evaluation instant released, the TimeInstant does not expose it
+    public long getEvaluatedTime() {
+        synchronized (pending) {
+            return released;
+        }
+    }
+
+    //Next instant that can be released, null if none; the caller holds the lock of pending
+    private Pending next() {
+        //The watermark is read before the queue is drained: an instant is always offered before its stream moves past it
+        long low = getLowWatermark();
+        for (Pending p = evaluationInstants.poll(); p != null; p = evaluationInstants.poll())
+            pending.add(p);
+        //Windows closing at the same time are evaluated once
+        while (!pending.isEmpty() && pending.peek().t != Long.MIN_VALUE && pending.peek().t == released)
+            pending.poll();
+        Pending head = pending.peek();
+        return head != null && head.t <= low ? head : null;
+    }
+
+    //Declares a stream before it delivers anything, so that the global low watermark waits for it
+    public void registerStream(String stream) {
+        watermarks.computeIfAbsent(stream, s -> new AtomicLong(Long.MIN_VALUE));
+    }
+
+    //Moves the watermark of the stream forward (never backwards) and returns its current value
+    public long advanceWatermark(String stream, long ts) {
+        return watermarks.computeIfAbsent(stream, s -> new AtomicLong(Long.MIN_VALUE)).accumulateAndGet(ts, Math::max);
+    }
+
+    public long getWatermark(String stream) {
+        AtomicLong watermark = watermarks.get(stream);
+        return watermark == null ? Long.MIN_VALUE : watermark.get();
+    }
+
+    //Minimum of the stream watermarks, the application time if no stream is registered
+    public long getLowWatermark() {
+        if (watermarks.isEmpty())
+            return appTime.get();
+        long low = Long.MAX_VALUE;
+        for (AtomicLong watermark : watermarks.values())
+            low = Math.min(low, watermark.get());
+        return low;
+    }
+
+    //Declares the stream read by the window, if the Time is a ConcurrentTime
+    public static void register(Time time, String window) {
+        if (time instanceof ConcurrentTime)
+            ((ConcurrentTime) time).registerStream(window);
+    }
+
+    /*
+     * Time the next element of the window is checked against: with a ConcurrentTime shared by windows on different streams, the
+     * watermark of the stream of the window only, so a faster stream moving the shared application time forward does not make its
+     * elements late.
+     */
+    public static long lastTime(Time time, String window) {
+        if (time instanceof ConcurrentTime)
+            return ((ConcurrentTime) time).getWatermark(window);
+        return time.getAppTime();
+    }
+
+    //The window received an element (or a punctuation) at ts
+    public static void advanceTime(Time time, String window, long ts) {
+        if (time instanceof ConcurrentTime)
+            ((ConcurrentTime) time).advanceWatermark(window, ts);
+        time.setAppTime(ts);
+    }
+
+    //A window closed and asks for an evaluation at t
+    public static void addEvaluationTime(Time time, long t) {
+        if (time instanceof ConcurrentTime)
+            ((ConcurrentTime) time).addEvaluationTime(t);
+        else
+            time.addEvaluationTimeInstants(new TimeInstant(t));
+    }
+
+    //Evaluation instant with the time it is released at
+    private static final class Pending {
+        private final long t;
+        private final TimeInstant instant;
+
+        private Pending(long t, TimeInstant instant) {
+            this.t = t;
+            this.instant = instant;
+        }
+    }
+}
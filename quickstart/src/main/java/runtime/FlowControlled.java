@@ -0,0 +1,37 @@
+package runtime;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/*
+ * Credit-based flow control: a component advertises how many more elements it can accept without blocking.
+ *
+ * Credits flow upstream: an output stream advertises the free space of its buffers, a Task the free space of its mailbox
+ * (or none, if one of its outputs has none), an input stream the smallest credit of its consumers. Sources check the credits
+ * before producing and slow down instead of blocking or dropping elements.
+ */
+public interface FlowControlled {
+
+    long credits();
+
+    //Waits until at least one credit is available, returns false if the timeout expired first
+    default boolean awaitCredits(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long backoff = TimeUnit.MICROSECONDS.toNanos(50);
+        while (credits() <= 0) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            long left = deadline - System.nanoTime();
+            if (left <= 0)
+                return false;
+            LockSupport.parkNanos(Math.min(backoff, left));
+            backoff = Math.min(backoff * 2, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return true;
+    }
+
+    //Credits of a consumer, or unlimited if it does not take part in flow control
+    static long creditsOf(Object consumer) {
+        return consumer instanceof FlowControlled ? ((FlowControlled) consumer).credits() : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,214 @@
+package runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongConsumer;
+
+/*
+ * Hierarchical timing wheel (Varghese, Lauck - "Hashed and Hierarchical Timing Wheels") driven by an explicit clock:
+ * time only moves when advanceTo is called, so the same wheel works with event time (watermarks) and with processing time.
+ *
+ * Level 0 has 'wheelSize' buckets of 'tickMs' each, level i has buckets of tickMs * wheelSize^i, and levels are added on demand.
+ * A timer is placed in the lowest level that can hold its deadline; when the clock reaches the start of its bucket on a higher level,
+ * the bucket is cascaded and its timers move down, until they expire on level 0.
+ *
+ * Scheduling and cancelling are O(1), buckets are intrusive lists, so millions of timers (e.g. one per open window and key) cost one
+ * small object each. Advancing skips empty rotations of level 0, so long quiet periods are cheap as well.
+ *
+ * Timers fire with tick granularity: a timer fires when the clock reaches the first tick boundary at or after its deadline.
+ * The wheel is thread-safe; actions run on the thread calling advanceTo, outside the wheel lock.
+ */
+public class HierarchicalTimingWheel {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final List<Level> levels = new ArrayList<>();
+    //Current time in ticks
+    private long now;
+    private long pending = 0;
+
+    public HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs < 1 || wheelSize < 2)
+            throw new IllegalArgumentException("Tick must be positive and the wheel must have at least 2 buckets");
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.now = Math.floorDiv(startMs, tickMs);
+        this.levels.add(new Level(wheelSize));
+    }
+
+    /*
+     * Schedules the action to run when the clock reaches the deadline, the action receives the current time.
+     * A deadline that already expired fires at the next call of advanceTo.
+     */
+    public synchronized Timeout schedule(long deadlineMs, LongConsumer action) {
+        Timeout t = new Timeout(this, deadlineMs, Math.max(Math.floorDiv(deadlineMs + tickMs - 1, tickMs), now), action);
+        insert(t);
+        pending++;
+        return t;
+    }
+
+    //Advances the clock to the given time, running the actions of all the expired timers, tick by tick
+    public void advanceTo(long timeMs) {
+        List<Timeout> expired = new ArrayList<>();
+        synchronized (this) {
+            collectExpired(expired);
+            long target = Math.floorDiv(timeMs, tickMs);
+            while (now < target) {
+                if (pending == 0) {
+                    now = target;
+                    break;
+                }
+                Level level0 = levels.get(0);
+                if (level0.count == 0) {
+                    //Nothing on level 0: jump to the tick before the next rotation, which cascades the higher levels
+                    long nextRotation = (Math.floorDiv(now, wheelSize) + 1) * wheelSize;
+                    now = Math.max(now, Math.min(target, nextRotation) - 1);
+                }
+                now++;
+                if (Math.floorMod(now, wheelSize) == 0)
+                    cascade(1);
+                level0.drain(Math.floorMod(now, wheelSize), expired);
+            }
+            pending -= expired.size();
+        }
+        for (Timeout t : expired)
+            t.action.accept(timeMs);
+    }
+
+    public synchronized long currentTime() {
+        return now * tickMs;
+    }
+
+    public synchronized long pendingTimers() {
+        return pending;
+    }
+
+    //Timers scheduled with a deadline already in the past are kept in the bucket of the current tick, which is drained here
+    private void collectExpired(List<Timeout> expired) {
+        levels.get(0).drain(Math.floorMod(now, wheelSize), expired);
+    }
+
+    private void insert(Timeout t) {
+        long delta = t.expiryTick - now;
+        int level = 0;
+        long span = wheelSize;
+        while (delta >= span) {
+            level++;
+            span *= wheelSize;
+        }
+        while (levels.size() <= level)
+            levels.add(new Level(wheelSize));
+        long bucketTicks = span / wheelSize;
+        levels.get(level).add(Math.floorMod(Math.floorDiv(t.expiryTick, bucketTicks), wheelSize), t);
+    }
+
+    //Moves the timers of the current bucket of the given level to the lower levels
+    private void cascade(int level) {
+        if (level >= levels.size())
+            return;
+        long bucketTicks = pow(wheelSize, level);
+        long index = Math.floorMod(Math.floorDiv(now, bucketTicks), wheelSize);
+        if (index == 0)
+            cascade(level + 1);
+        List<Timeout> moved = new ArrayList<>();
+        levels.get(level).drain((int) index, moved);
+        for (Timeout t : moved)
+            insert(t);
+    }
+
+    private static long pow(long base, int exp) {
+        long res = 1;
+        for (int i = 0; i < exp; i++)
+            res *= base;
+        return res;
+    }
+
+    private synchronized boolean cancel(Timeout t) {
+        if (t.bucket == null)
+            return false;
+        t.level.remove(t);
+        pending--;
+        return true;
+    }
+
+    /*
+     * Handle of a scheduled timer, it can be used to cancel it
+     */
+    public static final class Timeout {
+
+        private final HierarchicalTimingWheel wheel;
+        private final long deadline;
+        private final long expiryTick;
+        private final LongConsumer action;
+        private Level level;
+        //Head of the bucket holding the timer, null once the timer fired or was cancelled
+        private Timeout bucket;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(HierarchicalTimingWheel wheel, long deadline, long expiryTick, LongConsumer action) {
+            this.wheel = wheel;
+            this.deadline = deadline;
+            this.expiryTick = expiryTick;
+            this.action = action;
+        }
+
+        //Sentinel of a bucket
+        private Timeout() {
+            this(null, 0, 0, null);
+            this.prev = this;
+            this.next = this;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        //Returns false if the timer already fired or was already cancelled
+        public boolean cancel() {
+            return wheel.cancel(this);
+        }
+    }
+
+    private static final class Level {
+
+        private final Timeout[] buckets;
+        private long count = 0;
+
+        Level(int size) {
+            buckets = new Timeout[size];
+            for (int i = 0; i < size; i++)
+                buckets[i] = new Timeout();
+        }
+
+        void add(int index, Timeout t) {
+            Timeout head = buckets[index];
+            t.prev = head.prev;
+            t.next = head;
+            head.prev.next = t;
+            head.prev = t;
+            t.bucket = head;
+            t.level = this;
+            count++;
+        }
+
+        void remove(Timeout t) {
+            t.prev.next = t.next;
+            t.next.prev = t.prev;
+            t.prev = null;
+            t.next = null;
+            t.bucket = null;
+            t.level = null;
+            count--;
+        }
+
+        void drain(int index, List<Timeout> out) {
+            Timeout head = buckets[index];
+            while (head.next != head) {
+                Timeout t = head.next;
+                remove(t);
+                out.add(t);
+            }
+        }
+    }
+}
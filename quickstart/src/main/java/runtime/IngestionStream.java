@@ -0,0 +1,79 @@
+package runtime;
+
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.Consumer;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/*
+ * Input stream that decouples ingestion from evaluation: put only enqueues the element into the mailbox of every consumer,
+ * the consumers are then notified by the TaskRuntime threads.
+ *
+ * Tasks registered in a TaskRuntime must read from IngestionStreams (see TaskRuntime.ingest), otherwise their evaluation would run
+ * on the producer thread as usual. Elements put after the runtime was closed are dropped.
+ *
+ * The stream is also a Consumer, so it can be attached to another stream, and its credits are the smallest credits of the
+ * mailboxes it feeds: an upstream stream or source can use them to throttle before the mailboxes are full.
+ */
+public class IngestionStream<T> implements DataStream<T>, Consumer<T>, FlowControlled {
+
+    private final String name;
+    private final TaskRuntime runtime;
+    private final List<Subscription<T>> subscriptions = new CopyOnWriteArrayList<>();
+
+    IngestionStream(String name, TaskRuntime runtime) {
+        this.name = name;
+        this.runtime = runtime;
+    }
+
+    @Override
+    public void addConsumer(Consumer<T> consumer) {
+        subscriptions.add(new Subscription<>(consumer, runtime.mailboxFor(consumer)));
+    }
+
+    @Override
+    public void put(T element, long ts) {
+        //Once the runtime is closed nobody drains the mailboxes anymore, the elements are dropped
+        if (!runtime.isRunning())
+            return;
+        for (Subscription<T> s : subscriptions) {
+            try {
+                if (!runtime.enqueue(s.mailbox, s.consumer, this, element, ts))
+                    return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            runtime.schedule(s.mailbox);
+        }
+    }
+
+    @Override
+    public void notify(DataStream<T> source, T element, long ts) {
+        put(element, ts);
+    }
+
+    @Override
+    public long credits() {
+        long credits = Long.MAX_VALUE;
+        for (Subscription<T> s : subscriptions)
+            credits = Math.min(credits, s.mailbox.credits());
+        return credits;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    private static final class Subscription<T> {
+        final Consumer<T> consumer;
+        final TaskMailbox<T> mailbox;
+
+        Subscription(Consumer<T> consumer, TaskMailbox<T> mailbox) {
+            this.consumer = consumer;
+            this.mailbox = mailbox;
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package runtime;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+ * Unbounded lock-free multi-producer single-consumer queue (Vyukov's intrusive MPSC linked queue).
+ *
+ * Producers only perform one atomic exchange on the tail, so any number of threads can offer without locks or retries.
+ * The consumer side is meant for a single thread; concurrent consumers are serialized by a spin flag (a minimal lock, uncontended
+ * with a single consumer) instead of being forbidden, so a misuse costs a spin rather than a corrupted queue.
+ *
+ * An element offered concurrently with poll may be seen only by the next poll: isEmpty is a snapshot, not a guarantee.
+ */
+public class MpscQueue<E> {
+
+    private static final VarHandle NEXT;
+
+    static {
+        try {
+            NEXT = MethodHandles.lookup().findVarHandle(Node.class, "next", Node.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final AtomicReference<Node<E>> tail;
+    private final AtomicBoolean consuming = new AtomicBoolean(false);
+    //Only accessed by the consumer, it is the last consumed node (initially a stub)
+    private Node<E> head;
+
+    public MpscQueue() {
+        Node<E> stub = new Node<>(null);
+        this.head = stub;
+        this.tail = new AtomicReference<>(stub);
+    }
+
+    public void offer(E e) {
+        if (e == null)
+            throw new NullPointerException("The queue does not accept null elements");
+        Node<E> node = new Node<>(e);
+        Node<E> prev = tail.getAndSet(node);
+        NEXT.setRelease(prev, node);
+    }
+
+    //Returns the oldest element, or null if the queue is (momentarily) empty
+    public E poll() {
+        while (!consuming.compareAndSet(false, true))
+            Thread.onSpinWait();
+        try {
+            Node<E> next = head.next;
+            if (next == null)
+                return null;
+            E value = next.value;
+            next.value = null;
+            head = next;
+            return value;
+        } finally {
+            consuming.set(false);
+        }
+    }
+
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+
+    private static final class Node<E> {
+        volatile Node<E> next;
+        E value;
+
+        Node(E value) {
+            this.value = value;
+        }
+    }
+}
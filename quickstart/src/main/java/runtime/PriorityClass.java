@@ -0,0 +1,25 @@
+package runtime;
+
+/*
+ * Priority classes of the Tasks served by a PriorityScheduler. Every class runs on threads of its own, and has a default latency
+ * target: the time an element may wait in the mailbox of a Task before being delivered.
+ */
+public enum PriorityClass {
+
+    //Alerting queries, results are expected within milliseconds
+    CRITICAL(10),
+    //Dashboards and ad-hoc queries
+    INTERACTIVE(250),
+    //Reporting queries, they can wait
+    BATCH(60_000);
+
+    private final long defaultDeadlineMillis;
+
+    PriorityClass(long defaultDeadlineMillis) {
+        this.defaultDeadlineMillis = defaultDeadlineMillis;
+    }
+
+    public long getDefaultDeadlineMillis() {
+        return defaultDeadlineMillis;
+    }
+}
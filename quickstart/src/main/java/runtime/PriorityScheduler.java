@@ -0,0 +1,225 @@
+package runtime;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Scheduler of the TaskRuntime for Tasks with different service levels (see TaskSla), in place of the default fair scheduling.
+ *
+ *  - Isolation: every PriorityClass has its own lane, with threads of its own. A long drain of a BATCH Task (e.g. the coalesce of a
+ *    huge window) can only delay the other BATCH Tasks, the CRITICAL lane keeps its threads.
+ *  - Deadline-aware dispatch: in a lane, the mailbox whose oldest element is closest to its deadline is drained first (EDF), so a
+ *    window report that is about to be late overtakes the ones that can wait. A drain delivers at most 'batchSize' elements, then the
+ *    mailbox goes back to the lane with its new deadline.
+ *  - CPU quotas: a tenant can be limited to a fraction of a core, measured in CPU time over periods of QUOTA_PERIOD_MS. A tenant that
+ *    used its quota is not dispatched until the next period, even if threads are idle, as with the cgroups CPU controller.
+ *    A drain is never interrupted, the CPU it used beyond the quota is charged to the following periods.
+ *  - A drain never waits: a Task whose output finds the mailbox of a downstream Task full (or parked by its quota) stalls and gives
+ *    the lane thread back, the downstream mailbox wakes it up once it made room (see TaskMailbox).
+ *  - Metrics: lag, deadline misses, CPU time and throttling per tenant.
+ *
+ * Usage:
+ *   PriorityScheduler scheduler = new PriorityScheduler();
+ *   scheduler.setQuota("reporting", 0.5);
+ *   TaskRuntime runtime = new TaskRuntime(scheduler, TaskRuntime.DEFAULT_MAILBOX_CAPACITY);
+ *   runtime.register("alert", TaskSla.of("alerting", PriorityClass.CRITICAL), task, inputs, outputs);
+ */
+public class PriorityScheduler implements AutoCloseable {
+
+    public static final long QUOTA_PERIOD_MS = 100;
+    public static final int DEFAULT_BATCH_SIZE = 16;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final Map<PriorityClass, Lane> lanes = new EnumMap<>(PriorityClass.class);
+    private final Map<String, Tenant> tenants = new ConcurrentHashMap<>();
+    private final List<TaskMailbox<?>> mailboxes = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService periods;
+    private final int batchSize;
+    private volatile boolean running = true;
+
+    //One thread for the CRITICAL and BATCH lanes, the rest of the cores for the INTERACTIVE lane
+    public PriorityScheduler() {
+        this(1, Math.max(1, Runtime.getRuntime().availableProcessors() - 2), 1, DEFAULT_BATCH_SIZE);
+    }
+
+    public PriorityScheduler(int criticalThreads, int interactiveThreads, int batchThreads, int batchSize) {
+        if (criticalThreads < 1 || interactiveThreads < 1 || batchThreads < 1 || batchSize < 1)
+            throw new IllegalArgumentException("Every lane needs at least one thread, and the batch size must be positive");
+        this.batchSize = batchSize;
+        lanes.put(PriorityClass.CRITICAL, new Lane(PriorityClass.CRITICAL, criticalThreads));
+        lanes.put(PriorityClass.INTERACTIVE, new Lane(PriorityClass.INTERACTIVE, interactiveThreads));
+        lanes.put(PriorityClass.BATCH, new Lane(PriorityClass.BATCH, batchThreads));
+        if (THREADS.isCurrentThreadCpuTimeSupported() && !THREADS.isThreadCpuTimeEnabled())
+            THREADS.setThreadCpuTimeEnabled(true);
+        this.periods = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "scheduler-quota-periods");
+            t.setDaemon(true);
+            return t;
+        });
+        this.periods.scheduleAtFixedRate(this::newPeriod, QUOTA_PERIOD_MS, QUOTA_PERIOD_MS, TimeUnit.MILLISECONDS);
+    }
+
+    //Limits the tenant to the given number of cores (e.g. 0.25), zero or less removes the limit
+    public void setQuota(String tenant, double cores) {
+        tenant(tenant).quotaNanos = cores <= 0 ? 0 : (long) (cores * TimeUnit.MILLISECONDS.toNanos(QUOTA_PERIOD_MS));
+    }
+
+    void register(TaskMailbox<?> mailbox) {
+        mailboxes.add(mailbox);
+        tenant(mailbox.getSla().getTenant());
+    }
+
+    //Called by the runtime when the mailbox has elements and won the right to be drained, returns false once the scheduler is closed
+    boolean submit(TaskMailbox<?> mailbox) {
+        if (!running)
+            return false;
+        lanes.get(mailbox.getSla().getPriority()).queue.add(new Ready(mailbox, mailbox.deadline()));
+        return true;
+    }
+
+    private Tenant tenant(String name) {
+        return tenants.computeIfAbsent(name, Tenant::new);
+    }
+
+    private void newPeriod() {
+        for (Tenant t : tenants.values()) {
+            if (t.exhausted())
+                t.throttledPeriods.incrementAndGet();
+            //A drain cannot be interrupted and may overrun the quota: the excess is paid in the next periods
+            long quota = t.quotaNanos;
+            t.used.accumulateAndGet(quota, (used, q) -> q == 0 ? 0 : Math.max(0, used - q));
+            resubmitParked(t);
+        }
+    }
+
+    private void resubmitParked(Tenant t) {
+        Ready r;
+        while (!t.exhausted() && (r = t.parked.poll()) != null)
+            submit(r.mailbox);
+    }
+
+    private void serve(Lane lane) {
+        while (running) {
+            Ready r;
+            try {
+                r = lane.queue.poll(QUOTA_PERIOD_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (r == null)
+                continue;
+            Tenant t = tenant(r.mailbox.getSla().getTenant());
+            if (t.exhausted()) {
+                t.parked.add(r);
+                //The period may have changed in the meantime
+                resubmitParked(t);
+                continue;
+            }
+            long start = cpuTime();
+            boolean again = r.mailbox.drain(batchSize);
+            long used = cpuTime() - start;
+            t.used.addAndGet(used);
+            t.cpuNanos.addAndGet(used);
+            if (again && !submit(r.mailbox))
+                r.mailbox.unschedule();
+        }
+    }
+
+    //CPU time of the current thread when the JVM measures it, wall-clock time otherwise
+    private static long cpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : System.nanoTime();
+    }
+
+    public List<TenantMetrics> tenantMetrics() {
+        Map<String, List<TaskMailbox<?>>> byTenant = new LinkedHashMap<>();
+        for (TaskMailbox<?> m : mailboxes)
+            byTenant.computeIfAbsent(m.getSla().getTenant(), k -> new ArrayList<>()).add(m);
+        List<TenantMetrics> res = new ArrayList<>();
+        for (Map.Entry<String, List<TaskMailbox<?>>> e : byTenant.entrySet()) {
+            long processed = 0, pending = 0, totalLag = 0, maxLag = 0, currentLag = 0, misses = 0;
+            for (TaskMailbox<?> m : e.getValue()) {
+                processed += m.getProcessed();
+                pending += m.getDepth();
+                totalLag += m.getTotalLagNanos();
+                maxLag = Math.max(maxLag, m.getMaxLagNanos());
+                currentLag = Math.max(currentLag, m.getCurrentLagNanos());
+                misses += m.getDeadlineMisses();
+            }
+            Tenant t = tenant(e.getKey());
+            res.add(new TenantMetrics(e.getKey(), processed, pending, processed == 0 ? 0 : totalLag / 1e6 / processed, maxLag / 1e6,
+                    currentLag / 1e6, misses, t.cpuNanos.get() / 1e6, t.throttledPeriods.get()));
+        }
+        return res;
+    }
+
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        periods.shutdownNow();
+        for (Lane lane : lanes.values())
+            for (Thread t : lane.threads)
+                t.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    private final class Lane {
+        //Earliest deadline first
+        private final PriorityBlockingQueue<Ready> queue = new PriorityBlockingQueue<>(64, (a, b) -> Long.compare(a.deadline, b.deadline));
+        private final List<Thread> threads = new ArrayList<>();
+
+        Lane(PriorityClass priority, int size) {
+            for (int i = 0; i < size; i++) {
+                Thread t = new Thread(() -> serve(this), "scheduler-" + priority.name().toLowerCase() + "-" + i);
+                t.setDaemon(true);
+                //A hint for the OS scheduler, the isolation comes from the separate threads
+                t.setPriority(priority == PriorityClass.CRITICAL ? Thread.MAX_PRIORITY
+                        : priority == PriorityClass.BATCH ? Thread.MIN_PRIORITY : Thread.NORM_PRIORITY);
+                threads.add(t);
+                t.start();
+            }
+        }
+    }
+
+    private static final class Ready {
+        final TaskMailbox<?> mailbox;
+        final long deadline;
+
+        Ready(TaskMailbox<?> mailbox, long deadline) {
+            this.mailbox = mailbox;
+            this.deadline = deadline;
+        }
+    }
+
+    private static final class Tenant {
+        final String name;
+        //CPU nanoseconds per period, 0 means unlimited
+        volatile long quotaNanos = 0;
+        final AtomicLong used = new AtomicLong();
+        final AtomicLong cpuNanos = new AtomicLong();
+        final AtomicLong throttledPeriods = new AtomicLong();
+        final Queue<Ready> parked = new ConcurrentLinkedQueue<>();
+
+        Tenant(String name) {
+            this.name = name;
+        }
+
+        boolean exhausted() {
+            long quota = quotaNanos;
+            return quota > 0 && used.get() >= quota;
+        }
+    }
+}
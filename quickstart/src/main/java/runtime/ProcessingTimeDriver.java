@@ -0,0 +1,86 @@
+package runtime;
+
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/*
+ * Wall-clock timer that keeps the event time of a stream moving when no element arrives.
+ *
+ * The driver observes the elements of the stream and checks it every 'periodMs' of wall-clock time. Once the stream has been
+ * quiet for 'idleMs', it estimates the current event time as the last observed timestamp plus the wall-clock time elapsed since then
+ * (scaled by 'eventMsPerWallMs', for streams whose event time does not flow at wall-clock speed) and pushes a Punctuation
+ * with that timestamp in the stream, so time-driven windows (see TimerTumblingWindow) close and report even on quiet streams.
+ * The result latency is therefore bounded by idleMs + periodMs.
+ *
+ * A punctuation promises that no earlier element will follow: idleMs should be larger than the usual gap between two elements,
+ * otherwise an element racing with a punctuation is out of order.
+ *
+ * Punctuations are pushed from the driver thread: the stream must tolerate concurrent puts, like the IngestionStreams of the
+ * TaskRuntime. Its consumers receive the punctuations as elements: the windows of this repository skip them (or only move their time
+ * with them), other consumers should check for Punctuation too.
+ */
+public class ProcessingTimeDriver<T> implements AutoCloseable {
+
+    private final DataStream<T> stream;
+    //Creates the punctuations, which must implement Punctuation (e.g. FruitPunctuation::new)
+    private final Supplier<? extends T> punctuation;
+    private final long periodMs;
+    private final long idleMs;
+    private final double eventMsPerWallMs;
+    private final ScheduledExecutorService timer;
+    private volatile long lastEventTs = Long.MIN_VALUE;
+    private volatile long lastEventWallMs;
+    private long lastPunctuation = Long.MIN_VALUE;
+
+    public ProcessingTimeDriver(DataStream<T> stream, Supplier<? extends T> punctuation, long periodMs, long idleMs) {
+        this(stream, punctuation, periodMs, idleMs, 1.0);
+    }
+
+    public ProcessingTimeDriver(DataStream<T> stream, Supplier<? extends T> punctuation, long periodMs, long idleMs, double eventMsPerWallMs) {
+        if (!(punctuation.get() instanceof Punctuation))
+            throw new IllegalArgumentException("The punctuations of stream " + stream.getName() + " do not implement Punctuation");
+        this.stream = stream;
+        this.punctuation = punctuation;
+        this.periodMs = periodMs;
+        this.idleMs = idleMs;
+        this.eventMsPerWallMs = eventMsPerWallMs;
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "processing-time-" + stream.getName());
+            t.setDaemon(true);
+            return t;
+        });
+        stream.addConsumer((s, element, ts) -> {
+            if (!(element instanceof Punctuation) && ts > lastEventTs) {
+                lastEventWallMs = System.currentTimeMillis();
+                lastEventTs = ts;
+            }
+        });
+    }
+
+    public void start() {
+        timer.scheduleAtFixedRate(this::punctuate, periodMs, periodMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void punctuate() {
+        long observed = lastEventTs;
+        if (observed == Long.MIN_VALUE)
+            return;
+        long idle = System.currentTimeMillis() - lastEventWallMs;
+        if (idle < idleMs)
+            return;
+        long eventNow = observed + (long) (idle * eventMsPerWallMs);
+        if (eventNow > observed && eventNow > lastPunctuation) {
+            lastPunctuation = eventNow;
+            stream.put(punctuation.get(), eventNow);
+        }
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+    }
+}
@@ -0,0 +1,10 @@
+package runtime;
+
+/*
+ * Element that carries no data, only time: the ProcessingTimeDriver puts punctuations in a quiet stream to move its event time forward.
+ * Time-driven windows (see TimerTumblingWindow) close the windows that ended before it, every other consumer ignores it.
+ *
+ * Streams of a given type get punctuations of that type, e.g. FruitPunctuation for the fruit streams.
+ */
+public interface Punctuation {
+}
@@ -0,0 +1,47 @@
+package runtime;
+
+/*
+ * Snapshot of the state of a queue (a Task mailbox or the buffer of an output subscriber), to size the buffers:
+ * a high watermark close to the capacity means the queue is often full and its producers are throttled.
+ */
+public class QueueMetrics {
+
+    private final String name;
+    private final int depth;
+    private final int capacity;
+    private final int highWatermark;
+    private final long delivered;
+
+    public QueueMetrics(String name, int depth, int capacity, int highWatermark, long delivered) {
+        this.name = name;
+        this.depth = depth;
+        this.capacity = capacity;
+        this.highWatermark = highWatermark;
+        this.delivered = delivered;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getHighWatermark() {
+        return highWatermark;
+    }
+
+    public long getDelivered() {
+        return delivered;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": depth " + depth + "/" + capacity + ", high watermark " + highWatermark + ", delivered " + delivered;
+    }
+}
@@ -0,0 +1,276 @@
+package runtime;
+
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.Consumer;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+ * Mailbox of a Task registered in the TaskRuntime (or of a plain consumer of an IngestionStream).
+ *
+ * Elements pushed into the input streams are enqueued here, and the runtime drains them on its own threads: the consumers are
+ * never invoked by the producer thread, and never by two threads at the same time, so the operators of a Task (windows, DAG, R2S)
+ * do not need to be thread-safe. Elements of different input streams are delivered in the order they were enqueued.
+ *
+ * The mailbox is bounded: a full mailbox blocks the producer (see TaskRuntime.enqueue), which limits the elements in flight for each Task.
+ * To avoid blocking, producers can check its credits: the free space of the mailbox, or zero if one of the flow-controlled
+ * output streams of the Task is full.
+ * A drain never blocks: when the Task being drained outputs into the full mailbox of another Task (Tasks chained through an
+ * IngestionStream), the output is stalled in this mailbox and the drain stops. The mailbox is not drained again before the
+ * downstream mailbox made room and woke it up, and its stalled outputs go first, so the thread is free for the downstream Task
+ * meanwhile (a lane of the PriorityScheduler may have a single thread).
+ *
+ * Every element remembers when it was enqueued: the mailbox measures how long its elements waited (the lag of the Task) and how many
+ * waited longer than the deadline of its TaskSla, and the PriorityScheduler dispatches first the mailbox whose oldest element is
+ * closest to its deadline.
+ */
+public class TaskMailbox<T> implements FlowControlled {
+
+    private final String name;
+    private final BlockingQueue<Message<T>> queue;
+    private final int capacity;
+    private final List<FlowControlled> downstream = new CopyOnWriteArrayList<>();
+    private final AtomicInteger highWatermark = new AtomicInteger();
+    //True while the mailbox is waiting to be drained or being drained, so it is never scheduled twice
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private final AtomicLong processed = new AtomicLong();
+    private final TaskSla sla;
+    private final long deadlineNanos;
+    private final LongAdder totalLagNanos = new LongAdder();
+    private final AtomicLong maxLagNanos = new AtomicLong();
+    private final LongAdder deadlineMisses = new LongAdder();
+    private volatile Throwable lastError;
+    //Outputs of the Task that found a downstream mailbox full, delivered before the next element is drained
+    private final Queue<Stalled<?>> stalled = new ConcurrentLinkedQueue<>();
+    //Wake-ups of the mailboxes stalled on this one, run once a drain made room
+    private final Queue<Runnable> waiters = new ConcurrentLinkedQueue<>();
+    //Schedules a drain of the mailbox with its runtime
+    private volatile Runnable wakeUp = () -> {};
+
+    //Mailbox drained by the current thread, null on the other threads
+    private static final ThreadLocal<TaskMailbox<?>> DRAINING = new ThreadLocal<>();
+
+    TaskMailbox(String name, int capacity) {
+        this(name, capacity, TaskSla.DEFAULT);
+    }
+
+    TaskMailbox(String name, int capacity, TaskSla sla) {
+        this.name = name;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.sla = sla;
+        this.deadlineNanos = sla.getDeadlineMillis() * 1_000_000L;
+    }
+
+    void addDownstream(FlowControlled output) {
+        downstream.add(output);
+    }
+
+    void setWakeUp(Runnable wakeUp) {
+        this.wakeUp = wakeUp;
+    }
+
+    //Mailbox whose drain is running on the current thread, null if the thread is not draining
+    static TaskMailbox<?> draining() {
+        return DRAINING.get();
+    }
+
+    //Enqueues the element if the mailbox has room for it, returns false if it is full
+    boolean offer(Consumer<T> consumer, DataStream<T> stream, T element, long ts) {
+        return offer(new Message<>(consumer, stream, element, ts));
+    }
+
+    private boolean offer(Message<T> m) {
+        if (!queue.offer(m))
+            return false;
+        highWatermark.accumulateAndGet(queue.size(), Math::max);
+        return true;
+    }
+
+    //Waits at most the timeout for room in the mailbox
+    boolean offer(Consumer<T> consumer, DataStream<T> stream, T element, long ts, long timeout, TimeUnit unit) throws InterruptedException {
+        if (!queue.offer(new Message<>(consumer, stream, element, ts), timeout, unit))
+            return false;
+        highWatermark.accumulateAndGet(queue.size(), Math::max);
+        return true;
+    }
+
+    //Keeps an output of the Task for the full target mailbox, the drain in progress stops after the current element
+    <E> void stall(TaskMailbox<E> target, Consumer<E> consumer, DataStream<E> stream, E element, long ts) {
+        stalled.add(new Stalled<>(target, new Message<>(consumer, stream, element, ts)));
+    }
+
+    boolean isStalled() {
+        return !stalled.isEmpty();
+    }
+
+    //Returns true if the caller won the right to schedule a drain of this mailbox
+    boolean trySchedule() {
+        return (!queue.isEmpty() || !stalled.isEmpty()) && scheduled.compareAndSet(false, true);
+    }
+
+    //Gives back the right won with trySchedule, when the drain could not be submitted
+    void unschedule() {
+        scheduled.set(false);
+    }
+
+    /*
+     * Delivers the stalled outputs, then at most batchSize messages to their consumers, and gives the thread back to the runtime.
+     * Returns true if the mailbox still has messages and must be scheduled again, false if it has none or is stalled: a stalled
+     * mailbox is scheduled again by the wake-up of the mailbox it waits for.
+     */
+    boolean drain(int batchSize) {
+        int delivered = 0;
+        DRAINING.set(this);
+        try {
+            while (!stalled.isEmpty() && stalled.peek().retry())
+                stalled.poll();
+            for (int i = 0; i < batchSize && stalled.isEmpty(); i++) {
+                Message<T> m = queue.poll();
+                if (m == null)
+                    break;
+                long lag = System.nanoTime() - m.enqueued;
+                totalLagNanos.add(lag);
+                maxLagNanos.accumulateAndGet(lag, Math::max);
+                if (lag > deadlineNanos)
+                    deadlineMisses.increment();
+                try {
+                    m.consumer.notify(m.stream, m.element, m.ts);
+                } catch (RuntimeException e) {
+                    //A failing element must not stop the task, we keep the error for inspection
+                    lastError = e;
+                    e.printStackTrace();
+                }
+                processed.incrementAndGet();
+                delivered++;
+            }
+        } finally {
+            DRAINING.remove();
+            scheduled.set(false);
+        }
+        //Room was made: the mailboxes stalled on this one can go on
+        if (delivered > 0)
+            for (Runnable w = waiters.poll(); w != null; w = waiters.poll())
+                w.run();
+        Stalled<?> blocked = stalled.peek();
+        if (blocked == null)
+            return trySchedule();
+        blocked.target.waiters.add(wakeUp);
+        //The target may have made room before the wake-up was registered
+        return blocked.target.queue.remainingCapacity() > 0 && trySchedule();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public TaskSla getSla() {
+        return sla;
+    }
+
+    //Time by which the oldest pending element should be delivered, in System.nanoTime terms
+    long deadline() {
+        Message<T> oldest = queue.peek();
+        return (oldest == null ? System.nanoTime() : oldest.enqueued) + deadlineNanos;
+    }
+
+    //Age of the oldest pending element, zero if there is none
+    public long getCurrentLagNanos() {
+        Message<T> oldest = queue.peek();
+        return oldest == null ? 0 : Math.max(0, System.nanoTime() - oldest.enqueued);
+    }
+
+    //Event time of the oldest pending element, Long.MAX_VALUE if there is none
+    public long getOldestPendingTs() {
+        Message<T> oldest = queue.peek();
+        return oldest == null ? Long.MAX_VALUE : oldest.ts;
+    }
+
+    public long getTotalLagNanos() {
+        return totalLagNanos.sum();
+    }
+
+    public long getMaxLagNanos() {
+        return maxLagNanos.get();
+    }
+
+    public long getDeadlineMisses() {
+        return deadlineMisses.sum();
+    }
+
+    public int getDepth() {
+        return queue.size();
+    }
+
+    //True when there is nothing to deliver and no drain is in progress
+    public boolean isIdle() {
+        return queue.isEmpty() && stalled.isEmpty() && !scheduled.get();
+    }
+
+    public int getRemainingCapacity() {
+        return queue.remainingCapacity();
+    }
+
+    @Override
+    public long credits() {
+        long credits = queue.remainingCapacity();
+        for (FlowControlled output : downstream)
+            credits = Math.min(credits, output.credits());
+        return credits;
+    }
+
+    public QueueMetrics metrics() {
+        return new QueueMetrics(name, queue.size(), capacity, highWatermark.get(), processed.get());
+    }
+
+    public long getProcessed() {
+        return processed.get();
+    }
+
+    public Throwable getLastError() {
+        return lastError;
+    }
+
+    //Output for a full mailbox, with the time it was first enqueued
+    private static final class Stalled<E> {
+        final TaskMailbox<E> target;
+        final Message<E> message;
+
+        Stalled(TaskMailbox<E> target, Message<E> message) {
+            this.target = target;
+            this.message = message;
+        }
+
+        boolean retry() {
+            if (!target.offer(message))
+                return false;
+            target.wakeUp.run();
+            return true;
+        }
+    }
+
+    private static final class Message<T> {
+        final Consumer<T> consumer;
+        final DataStream<T> stream;
+        final T element;
+        final long ts;
+        final long enqueued = System.nanoTime();
+
+        Message(Consumer<T> consumer, DataStream<T> stream, T element, long ts) {
+            this.consumer = consumer;
+            this.stream = stream;
+            this.element = element;
+            this.ts = ts;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package runtime;
+
+import org.streamreasoning.rsp4j.api.coordinators.ContinuousProgram;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.Consumer;
+import org.streamreasoning.rsp4j.api.querying.Task;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import shared.coordinators.ContinuousProgramImpl;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+ * Execution runtime for many Tasks: each Task is evaluated by its own ContinuousProgram, which receives the elements through its own
+ * mailbox instead of being called by the thread that pushes elements in the input streams.
+ *
+ * A mailbox is served by one lightweight task at a time: on Java 21+ every drain runs on a virtual thread, on older runtimes on a
+ * pool of platform threads. Thousands of Tasks can be registered, only the ones with pending elements use a thread.
+ *
+ * Scheduling is fair: a drain delivers at most 'batchSize' elements and then goes back to the end of the queue, and at most
+ * 'maxConcurrentTasks' mailboxes are drained at the same time (the permits are handed out in FIFO order).
+ * The per-task limit is the mailbox capacity: when a Task has that many pending elements, the producer waits. When the producer is
+ * the drain of another Task (Tasks chained through an IngestionStream), it does not wait: the output is stalled in the mailbox of
+ * the upstream Task, whose drain stops and gives its thread back, and the downstream mailbox wakes it up once it made room
+ * (see TaskMailbox). Chained Tasks never wait for each other on a thread, even in a single-threaded lane of the PriorityScheduler.
+ * Mailboxes take part in the credit-based flow control (see FlowControlled), together with the flow-controlled outputs of their Task.
+ *
+ * Tasks with different service levels (alerting vs reporting queries) can instead be served by a PriorityScheduler: each Task is
+ * registered with a TaskSla, and is dispatched by priority class, deadline and CPU quota of its tenant. The scheduler belongs to the
+ * caller, who closes it after the runtimes it serves.
+ *
+ * Once the runtime is closed, the elements put in its input streams are dropped.
+ *
+ * Usage:
+ *   TaskRuntime runtime = new TaskRuntime();
+ *   DataStream<Fruit> input = runtime.ingest(generator.getStream("fruit_market_one"));
+ *   ... build the task on 'input' ...
+ *   runtime.register("my_query", task, List.of(input), List.of(outStream));
+ */
+public class TaskRuntime implements AutoCloseable {
+
+    public static final int DEFAULT_MAILBOX_CAPACITY = 1024;
+    public static final int DEFAULT_BATCH_SIZE = 64;
+
+    //Null when a PriorityScheduler serves the mailboxes
+    private final ExecutorService executor;
+    private final Semaphore concurrency;
+    private final PriorityScheduler scheduler;
+    private final int mailboxCapacity;
+    private final int batchSize;
+    private final Map<Consumer<?>, TaskMailbox<?>> mailboxes = Collections.synchronizedMap(new IdentityHashMap<>());
+    private final List<TaskMailbox<?>> registered = new CopyOnWriteArrayList<>();
+    private final AtomicInteger consumerCounter = new AtomicInteger();
+    //Mailbox of the Task being registered: every consumer it adds to the input streams shares it
+    private TaskMailbox<?> registering;
+    private volatile boolean running = true;
+
+    public TaskRuntime() {
+        this(Runtime.getRuntime().availableProcessors(), DEFAULT_MAILBOX_CAPACITY, DEFAULT_BATCH_SIZE);
+    }
+
+    public TaskRuntime(int maxConcurrentTasks, int mailboxCapacity, int batchSize) {
+        if (maxConcurrentTasks < 1 || mailboxCapacity < 1 || batchSize < 1)
+            throw new IllegalArgumentException("Concurrency, mailbox capacity and batch size must be positive");
+        this.executor = newTaskExecutor();
+        this.concurrency = new Semaphore(maxConcurrentTasks, true);
+        this.scheduler = null;
+        this.mailboxCapacity = mailboxCapacity;
+        this.batchSize = batchSize;
+    }
+
+    //The mailboxes are drained by the scheduler, which owns the threads and the batch size
+    public TaskRuntime(PriorityScheduler scheduler, int mailboxCapacity) {
+        if (mailboxCapacity < 1)
+            throw new IllegalArgumentException("Mailbox capacity must be positive");
+        this.executor = null;
+        this.concurrency = null;
+        this.scheduler = scheduler;
+        this.mailboxCapacity = mailboxCapacity;
+        this.batchSize = PriorityScheduler.DEFAULT_BATCH_SIZE;
+    }
+
+    //Creates an input stream whose consumers are served by this runtime
+    public <T> IngestionStream<T> stream(String name) {
+        return new IngestionStream<>(name, this);
+    }
+
+    //Creates an input stream that receives every element of the source, and serves its consumers with this runtime
+    public <T> IngestionStream<T> ingest(DataStream<T> source) {
+        IngestionStream<T> stream = new IngestionStream<>(source.getName(), this);
+        source.addConsumer(stream);
+        return stream;
+    }
+
+    public <I, W, R, O> TaskMailbox<I> register(String name, Task<I, W, R, O> task, List<DataStream<I>> inputs, List<DataStream<O>> outputs) {
+        return register(name, TaskSla.DEFAULT, task, inputs, outputs, mailboxCapacity);
+    }
+
+    public <I, W, R, O> TaskMailbox<I> register(String name, TaskSla sla, Task<I, W, R, O> task, List<DataStream<I>> inputs, List<DataStream<O>> outputs) {
+        return register(name, sla, task, inputs, outputs, mailboxCapacity);
+    }
+
+    public <I, W, R, O> TaskMailbox<I> register(String name, Task<I, W, R, O> task, List<DataStream<I>> inputs, List<DataStream<O>> outputs,
+                                                int mailboxCapacity) {
+        return register(name, TaskSla.DEFAULT, task, inputs, outputs, mailboxCapacity);
+    }
+
+    /*
+     * Registers a Task in its own ContinuousProgram. All its inputs must be streams of this runtime.
+     * The service level is only used by a PriorityScheduler, and for the lag metrics of the mailbox.
+     * Returns the mailbox of the Task, which exposes its queue depth and progress.
+     */
+    public synchronized <I, W, R, O> TaskMailbox<I> register(String name, TaskSla sla, Task<I, W, R, O> task, List<DataStream<I>> inputs,
+                                                             List<DataStream<O>> outputs, int mailboxCapacity) {
+        if (!running)
+            throw new IllegalStateException("The runtime has been closed");
+        for (DataStream<I> input : inputs)
+            if (!(input instanceof IngestionStream))
+                throw new IllegalArgumentException("Input stream " + input.getName() + " is not served by the runtime, use TaskRuntime.ingest");
+        ContinuousProgram<I, W, R, O> cp = new ContinuousProgramImpl<>();
+        TaskMailbox<I> mailbox = new TaskMailbox<>(name, mailboxCapacity, sla);
+        mailbox.setWakeUp(() -> schedule(mailbox));
+        registered.add(mailbox);
+        if (scheduler != null)
+            scheduler.register(mailbox);
+        for (DataStream<O> output : outputs)
+            if (output instanceof FlowControlled)
+                mailbox.addDownstream((FlowControlled) output);
+        registering = mailbox;
+        try {
+            cp.buildTask(task, inputs, outputs);
+        } finally {
+            registering = null;
+        }
+        return mailbox;
+    }
+
+    public List<TaskMailbox<?>> getMailboxes() {
+        return new ArrayList<>(registered);
+    }
+
+    public List<QueueMetrics> queueMetrics() {
+        List<QueueMetrics> res = new ArrayList<>();
+        for (TaskMailbox<?> mailbox : registered)
+            res.add(mailbox.metrics());
+        return res;
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> TaskMailbox<T> mailboxFor(Consumer<T> consumer) {
+        synchronized (mailboxes) {
+            TaskMailbox<T> mailbox = (TaskMailbox<T>) mailboxes.get(consumer);
+            if (mailbox == null) {
+                //Plain consumers (not added while registering a Task) get a mailbox of their own
+                mailbox = registering != null
+                        ? (TaskMailbox<T>) registering
+                        : new TaskMailbox<>("consumer-" + consumerCounter.incrementAndGet(), mailboxCapacity);
+                if (registering == null) {
+                    TaskMailbox<T> own = mailbox;
+                    own.setWakeUp(() -> schedule(own));
+                    registered.add(mailbox);
+                    if (scheduler != null)
+                        scheduler.register(mailbox);
+                }
+                mailboxes.put(consumer, mailbox);
+            }
+            return mailbox;
+        }
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    /*
+     * Enqueues the element in the mailbox, waiting while it is full. The drain of another Task does not wait: its output is stalled
+     * in its own mailbox, and so are its next outputs until the stalled ones are delivered, to keep them in order.
+     * Returns false if the runtime was closed before the element could be enqueued.
+     */
+    <T> boolean enqueue(TaskMailbox<T> mailbox, Consumer<T> consumer, DataStream<T> stream, T element, long ts) throws InterruptedException {
+        TaskMailbox<?> upstream = TaskMailbox.draining();
+        if (upstream != null && upstream.isStalled()) {
+            upstream.stall(mailbox, consumer, stream, element, ts);
+            return true;
+        }
+        if (mailbox.offer(consumer, stream, element, ts))
+            return true;
+        if (upstream != null) {
+            upstream.stall(mailbox, consumer, stream, element, ts);
+            return true;
+        }
+        while (running) {
+            if (mailbox.offer(consumer, stream, element, ts, 100, TimeUnit.MILLISECONDS))
+                return true;
+        }
+        return false;
+    }
+
+    <T> void schedule(TaskMailbox<T> mailbox) {
+        if (!mailbox.trySchedule())
+            return;
+        if (scheduler != null) {
+            if (!scheduler.submit(mailbox))
+                mailbox.unschedule();
+        } else {
+            submit(mailbox);
+        }
+    }
+
+    private <T> void submit(TaskMailbox<T> mailbox) {
+        try {
+            executor.execute(() -> drain(mailbox));
+        } catch (RejectedExecutionException e) {
+            //The executor was shut down, the mailbox must not stay scheduled forever
+            mailbox.unschedule();
+        }
+    }
+
+    private <T> void drain(TaskMailbox<T> mailbox) {
+        boolean again;
+        concurrency.acquireUninterruptibly();
+        try {
+            again = mailbox.drain(batchSize);
+        } finally {
+            concurrency.release();
+        }
+        //Rescheduling puts the mailbox behind the ones that are already waiting
+        if (again)
+            submit(mailbox);
+    }
+
+    //Waits until every mailbox is empty and idle, or the timeout expires
+    public boolean awaitQuiescence(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        while (System.nanoTime() < deadline) {
+            if (registered.stream().allMatch(TaskMailbox::isIdle))
+                return true;
+            Thread.sleep(10);
+        }
+        return false;
+    }
+
+    //Stops accepting elements and delivers the pending ones; a PriorityScheduler serving the runtime is left to its owner
+    @Override
+    public void close() throws InterruptedException {
+        running = false;
+        awaitQuiescence(10, TimeUnit.SECONDS);
+        if (scheduler != null)
+            return;
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    /*
+     * Virtual threads when the JVM has them (Java 21+), a pool of daemon platform threads otherwise. The pool is not bounded:
+     * the concurrency is bounded by the permits.
+     */
+    static ExecutorService newTaskExecutor() {
+        try {
+            Method virtualExecutor = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtualExecutor.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger threadCounter = new AtomicInteger();
+            return Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "task-runtime-" + threadCounter.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package runtime;
+
+/*
+ * Service level of a Task registered in the TaskRuntime: the tenant it belongs to (CPU quotas and metrics are per tenant),
+ * its priority class and its deadline, i.e. the latency target of its elements.
+ */
+public final class TaskSla {
+
+    public static final TaskSla DEFAULT = of("default", PriorityClass.INTERACTIVE);
+
+    private final String tenant;
+    private final PriorityClass priority;
+    private final long deadlineMillis;
+
+    public TaskSla(String tenant, PriorityClass priority, long deadlineMillis) {
+        if (deadlineMillis < 0)
+            throw new IllegalArgumentException("The deadline cannot be negative");
+        this.tenant = tenant;
+        this.priority = priority;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    public static TaskSla of(String tenant, PriorityClass priority) {
+        return new TaskSla(tenant, priority, priority.getDefaultDeadlineMillis());
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public PriorityClass getPriority() {
+        return priority;
+    }
+
+    public long getDeadlineMillis() {
+        return deadlineMillis;
+    }
+
+    @Override
+    public String toString() {
+        return tenant + "/" + priority + "/" + deadlineMillis + "ms";
+    }
+}
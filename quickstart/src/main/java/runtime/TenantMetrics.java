@@ -0,0 +1,73 @@
+package runtime;
+
+/*
+ * Snapshot of the service a tenant got from a PriorityScheduler. The lag of an element is the time it waited in the mailbox of its Task
+ * before being delivered, 'currentLag' is the age of the oldest element still waiting.
+ */
+public final class TenantMetrics {
+
+    private final String tenant;
+    private final long processed;
+    private final long pending;
+    private final double avgLagMillis;
+    private final double maxLagMillis;
+    private final double currentLagMillis;
+    private final long deadlineMisses;
+    private final double cpuMillis;
+    private final long throttledPeriods;
+
+    public TenantMetrics(String tenant, long processed, long pending, double avgLagMillis, double maxLagMillis, double currentLagMillis,
+                         long deadlineMisses, double cpuMillis, long throttledPeriods) {
+        this.tenant = tenant;
+        this.processed = processed;
+        this.pending = pending;
+        this.avgLagMillis = avgLagMillis;
+        this.maxLagMillis = maxLagMillis;
+        this.currentLagMillis = currentLagMillis;
+        this.deadlineMisses = deadlineMisses;
+        this.cpuMillis = cpuMillis;
+        this.throttledPeriods = throttledPeriods;
+    }
+
+    public String getTenant() {
+        return tenant;
+    }
+
+    public long getProcessed() {
+        return processed;
+    }
+
+    public long getPending() {
+        return pending;
+    }
+
+    public double getAvgLagMillis() {
+        return avgLagMillis;
+    }
+
+    public double getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    public double getCurrentLagMillis() {
+        return currentLagMillis;
+    }
+
+    public long getDeadlineMisses() {
+        return deadlineMisses;
+    }
+
+    public double getCpuMillis() {
+        return cpuMillis;
+    }
+
+    public long getThrottledPeriods() {
+        return throttledPeriods;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s: processed %d, pending %d, lag avg %.2f ms / max %.2f ms / current %.2f ms, deadline misses %d, cpu %.1f ms, throttled periods %d",
+                tenant, processed, pending, avgLagMillis, maxLagMillis, currentLagMillis, deadlineMisses, cpuMillis, throttledPeriods);
+    }
+}
@@ -0,0 +1,41 @@
+package shedding;
+
+import java.util.Set;
+import java.util.function.Function;
+
+/*
+ * Semantic shedding by key (e.g. the kind of fruit): whole keys are dropped, never part of them.
+ * A key is kept if its hash falls above the shed ratio, so the set of kept keys only changes when the ratio does, and the aggregates
+ * of the kept keys are exact. Protected keys are never dropped.
+ */
+public class KeyedShedding<T, K> implements SheddingPolicy<T> {
+
+    private final Function<T, K> key;
+    private final Set<K> protectedKeys;
+
+    public KeyedShedding(Function<T, K> key) {
+        this(key, Set.of());
+    }
+
+    public KeyedShedding(Function<T, K> key, Set<K> protectedKeys) {
+        this.key = key;
+        this.protectedKeys = protectedKeys;
+    }
+
+    @Override
+    public boolean keep(T element, double shedRatio) {
+        K k = key.apply(element);
+        if (protectedKeys.contains(k))
+            return true;
+        return position(k) >= shedRatio;
+    }
+
+    //Position of the key in [0, 1), uniformly spread by a 64 bit finalizer
+    private static double position(Object k) {
+        long h = k.hashCode() * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return (h >>> 11) * 0x1.0p-53;
+    }
+}
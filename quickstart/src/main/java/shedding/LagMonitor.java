@@ -0,0 +1,43 @@
+package shedding;
+
+import runtime.TaskMailbox;
+import runtime.TaskRuntime;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/*
+ * Tells the LoadShedder how far behind the evaluation is, in milliseconds, when an element with event time 'ts' arrives.
+ */
+@FunctionalInterface
+public interface LagMonitor {
+
+    long lagMillis(long ts);
+
+    /*
+     * Event-time lag of the Tasks of a runtime: the event time of the arriving element minus the event time of the oldest element still
+     * waiting in a mailbox. Zero when every Task is up to date.
+     */
+    static LagMonitor eventTime(TaskRuntime runtime) {
+        return eventTime(runtime::getMailboxes);
+    }
+
+    static LagMonitor eventTime(Supplier<List<TaskMailbox<?>>> mailboxes) {
+        return ts -> {
+            long oldest = Long.MAX_VALUE;
+            for (TaskMailbox<?> m : mailboxes.get())
+                oldest = Math.min(oldest, m.getOldestPendingTs());
+            return oldest == Long.MAX_VALUE ? 0 : Math.max(0, ts - oldest);
+        };
+    }
+
+    //Wall-clock lag of the Tasks of a runtime: the time the oldest pending element has been waiting
+    static LagMonitor processingTime(TaskRuntime runtime) {
+        return ts -> {
+            long lag = 0;
+            for (TaskMailbox<?> m : runtime.getMailboxes())
+                lag = Math.max(lag, m.getCurrentLagNanos());
+            return lag / 1_000_000;
+        };
+    }
+}
@@ -0,0 +1,179 @@
+package shedding;
+
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.assigner.Consumer;
+import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import runtime.Punctuation;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Load shedding stage between a stream and the S2R operators reading it: it receives every element of the source and forwards to its
+ * own consumers only the elements the SheddingPolicy keeps.
+ *
+ * While the lag reported by the LagMonitor is within the target nothing is dropped. Above it, the shed ratio is 1 - target / lag
+ * (a lag of twice the target drops half of the input), capped at 'maxShedRatio'. The lag is sampled at most every 'refreshMillis'
+ * of wall-clock time, so a monitor that scans many mailboxes stays cheap.
+ *
+ * The shedder counts the received and kept elements per slot of event time ('slotWidth', e.g. the window width): for a window [o, c),
+ * getRescaleFactor(o, c) is received / kept, the factor to multiply counts and sums by when the policy samples uniformly.
+ *
+ * Usage:
+ *   LoadShedder<Fruit> shedder = new LoadShedder<>("shed_market_one", new UniformShedding<>(), LagMonitor.eventTime(runtime), 4000, 1000);
+ *   generator.getStream("fruit_market_one").addConsumer(shedder);
+ *   DataStream<Fruit> input = runtime.ingest(shedder);
+ */
+public class LoadShedder<T> implements DataStream<T>, Consumer<T> {
+
+    public static final long DEFAULT_REFRESH_MILLIS = 10;
+    public static final double DEFAULT_MAX_SHED_RATIO = 0.95;
+    //Slots older than this many slots behind the newest one are forgotten
+    private static final int RETAINED_SLOTS = 1024;
+
+    private final String name;
+    private final SheddingPolicy<T> policy;
+    private final LagMonitor monitor;
+    private final long targetLagMillis;
+    private final long slotWidth;
+    private final double maxShedRatio;
+    private final long refreshMillis;
+    private final List<Consumer<T>> consumers = new CopyOnWriteArrayList<>();
+    private final ConcurrentSkipListMap<Long, Slot> slots = new ConcurrentSkipListMap<>();
+    private final AtomicLong received = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+    private volatile double shedRatio = 0;
+    private volatile long lastLag = 0;
+    private long lastRefresh = Long.MIN_VALUE;
+
+    public LoadShedder(String name, SheddingPolicy<T> policy, LagMonitor monitor, long targetLagMillis, long slotWidth) {
+        this(name, policy, monitor, targetLagMillis, slotWidth, DEFAULT_MAX_SHED_RATIO, DEFAULT_REFRESH_MILLIS);
+    }
+
+    public LoadShedder(String name, SheddingPolicy<T> policy, LagMonitor monitor, long targetLagMillis, long slotWidth,
+                       double maxShedRatio, long refreshMillis) {
+        if (targetLagMillis < 1 || slotWidth < 1)
+            throw new IllegalArgumentException("Target lag and slot width must be positive");
+        if (maxShedRatio <= 0 || maxShedRatio > 1)
+            throw new IllegalArgumentException("The maximum shed ratio must be in (0, 1]");
+        this.name = name;
+        this.policy = policy;
+        this.monitor = monitor;
+        this.targetLagMillis = targetLagMillis;
+        this.slotWidth = slotWidth;
+        this.maxShedRatio = maxShedRatio;
+        this.refreshMillis = refreshMillis;
+    }
+
+    //Attaches the shedder to the source: the same as source.addConsumer(shedder)
+    public static <T> LoadShedder<T> on(DataStream<T> source, SheddingPolicy<T> policy, LagMonitor monitor, long targetLagMillis, long slotWidth) {
+        LoadShedder<T> shedder = new LoadShedder<>(source.getName(), policy, monitor, targetLagMillis, slotWidth);
+        source.addConsumer(shedder);
+        return shedder;
+    }
+
+    @Override
+    public void addConsumer(Consumer<T> consumer) {
+        consumers.add(consumer);
+    }
+
+    @Override
+    public void notify(DataStream<T> source, T element, long ts) {
+        put(element, ts);
+    }
+
+    @Override
+    public void put(T element, long ts) {
+        //Punctuations carry no data, they are never dropped nor counted
+        if (element instanceof Punctuation) {
+            for (Consumer<T> c : consumers)
+                c.notify(this, element, ts);
+            return;
+        }
+        double ratio = refresh(ts);
+        received.incrementAndGet();
+        Slot slot = slot(ts);
+        slot.received.incrementAndGet();
+        if (!policy.keep(element, ratio)) {
+            shed.incrementAndGet();
+            return;
+        }
+        slot.kept.incrementAndGet();
+        for (Consumer<T> c : consumers)
+            c.notify(this, element, ts);
+    }
+
+    private synchronized double refresh(long ts) {
+        long now = System.currentTimeMillis();
+        if (lastRefresh != Long.MIN_VALUE && now - lastRefresh < refreshMillis)
+            return shedRatio;
+        lastRefresh = now;
+        long lag = monitor.lagMillis(ts);
+        lastLag = lag;
+        double next = lag <= targetLagMillis ? 0 : Math.min(maxShedRatio, 1 - (double) targetLagMillis / lag);
+        if (next != shedRatio) {
+            shedRatio = next;
+            policy.onShedRatio(next);
+        }
+        return next;
+    }
+
+    private Slot slot(long ts) {
+        long start = Math.floorDiv(ts, slotWidth) * slotWidth;
+        Slot slot = slots.get(start);
+        if (slot == null) {
+            slot = slots.computeIfAbsent(start, s -> new Slot());
+            slots.headMap(start - RETAINED_SLOTS * slotWidth).clear();
+        }
+        return slot;
+    }
+
+    /*
+     * Received / kept for the elements with event time in [o, c), 1 if nothing was dropped or nothing was received.
+     * The window bounds should be aligned to the slot width.
+     */
+    public double getRescaleFactor(long o, long c) {
+        long in = 0, kept = 0;
+        for (Map.Entry<Long, Slot> e : slots.subMap(Math.floorDiv(o, slotWidth) * slotWidth, true, c - 1, true).entrySet()) {
+            in += e.getValue().received.get();
+            kept += e.getValue().kept.get();
+        }
+        return kept == 0 ? 1 : (double) in / kept;
+    }
+
+    //Elements with event time in [o, c) that were dropped
+    public long getShed(long o, long c) {
+        long res = 0;
+        for (Slot s : slots.subMap(Math.floorDiv(o, slotWidth) * slotWidth, true, c - 1, true).values())
+            res += s.received.get() - s.kept.get();
+        return res;
+    }
+
+    public long getReceived() {
+        return received.get();
+    }
+
+    public long getShed() {
+        return shed.get();
+    }
+
+    public double getShedRatio() {
+        return shedRatio;
+    }
+
+    public long getLastLagMillis() {
+        return lastLag;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    private static final class Slot {
+        final AtomicLong received = new AtomicLong();
+        final AtomicLong kept = new AtomicLong();
+    }
+}
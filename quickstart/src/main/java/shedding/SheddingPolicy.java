@@ -0,0 +1,15 @@
+package shedding;
+
+/*
+ * Decides which elements a LoadShedder drops. It is asked for every element, with the fraction of the input that should be dropped
+ * (the shed ratio, in [0, 1]): the ratio is 0 while the shedder is not overloaded, and every element should then be kept.
+ * Policies can use these calls to observe the input before they have to drop anything (see UtilityShedding).
+ */
+public interface SheddingPolicy<T> {
+
+    boolean keep(T element, double shedRatio);
+
+    //Called when the shed ratio changes, before the next keep
+    default void onShedRatio(double shedRatio) {
+    }
+}
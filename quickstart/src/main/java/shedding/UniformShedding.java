@@ -0,0 +1,25 @@
+package shedding;
+
+import java.util.SplittableRandom;
+
+/*
+ * Random sampling: every element is dropped with probability equal to the shed ratio.
+ * Counts and sums over the kept elements, multiplied by the rescale factor of the LoadShedder, are unbiased estimates of the real ones.
+ */
+public class UniformShedding<T> implements SheddingPolicy<T> {
+
+    private final SplittableRandom random;
+
+    public UniformShedding() {
+        this(new SplittableRandom().nextLong());
+    }
+
+    public UniformShedding(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public synchronized boolean keep(T element, double shedRatio) {
+        return random.nextDouble() >= shedRatio;
+    }
+}
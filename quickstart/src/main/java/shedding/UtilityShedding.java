@@ -0,0 +1,82 @@
+package shedding;
+
+import java.util.SplittableRandom;
+import java.util.function.ToDoubleFunction;
+
+/*
+ * Shedding by utility: a function scores every element in [0, 1], and the elements with the lowest utility are dropped first.
+ *
+ * The policy keeps a histogram of the recent utilities (older observations fade out) and finds the bucket where the shed ratio
+ * quantile falls: with a shed ratio of 0.3, the bucket holding the 30% least useful elements. Elements of the buckets below it are
+ * dropped, and in that bucket only the share still needed to reach the ratio is dropped, at random. Utilities are often discrete
+ * (one per status or kind), so the boundary bucket may hold a large part of the input: dropping all of it would shed far more
+ * than the ratio asks for.
+ */
+public class UtilityShedding<T> implements SheddingPolicy<T> {
+
+    private static final int BUCKETS = 64;
+    private static final int DECAY_EVERY = 4096;
+
+    private final ToDoubleFunction<T> utility;
+    private final SplittableRandom random;
+    private final double[] histogram = new double[BUCKETS];
+    private long observed = 0;
+    //Bucket where the shed ratio quantile falls, -1 when nothing is dropped
+    private int boundary = -1;
+    //Share of the elements of the boundary bucket to drop
+    private double boundaryDrop = 0;
+    private double shedRatio = 0;
+
+    public UtilityShedding(ToDoubleFunction<T> utility) {
+        this(utility, new SplittableRandom().nextLong());
+    }
+
+    public UtilityShedding(ToDoubleFunction<T> utility, long seed) {
+        this.utility = utility;
+        this.random = new SplittableRandom(seed);
+    }
+
+    @Override
+    public synchronized boolean keep(T element, double shedRatio) {
+        double u = Math.min(1, Math.max(0, utility.applyAsDouble(element)));
+        int bucket = Math.min(BUCKETS - 1, (int) (u * BUCKETS));
+        histogram[bucket]++;
+        if (++observed % DECAY_EVERY == 0) {
+            for (int b = 0; b < BUCKETS; b++)
+                histogram[b] /= 2;
+            cut(this.shedRatio);
+        }
+        if (bucket != boundary)
+            return bucket > boundary;
+        return random.nextDouble() >= boundaryDrop;
+    }
+
+    @Override
+    public synchronized void onShedRatio(double shedRatio) {
+        this.shedRatio = shedRatio;
+        cut(shedRatio);
+    }
+
+    //Finds the bucket where the given fraction of the utilities is reached, and the share of that bucket completing the fraction
+    private void cut(double fraction) {
+        double total = 0;
+        for (double c : histogram)
+            total += c;
+        boundary = -1;
+        boundaryDrop = 0;
+        if (total == 0 || fraction <= 0)
+            return;
+        double target = fraction * total;
+        double seen = 0;
+        for (int b = 0; b < BUCKETS; b++) {
+            if (histogram[b] > 0 && seen + histogram[b] >= target) {
+                boundary = b;
+                boundaryDrop = (target - seen) / histogram[b];
+                return;
+            }
+            seen += histogram[b];
+        }
+        boundary = BUCKETS - 1;
+        boundaryDrop = 1;
+    }
+}
@@ -0,0 +1,166 @@
+package sketches;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * SpaceSaving heavy hitters sketch (Metwally, Agrawal, El Abbadi - "Efficient Computation of Frequent and Top-k Elements in Data Streams").
+ *
+ * At most 'capacity' keys are monitored, each with a counter and the maximum overestimation of that counter. When a new key arrives
+ * and the sketch is full, the key with the smallest counter is replaced and the new key inherits that counter as its error.
+ *
+ * Accuracy: every count is overestimated by at most n / capacity (n = number of updates), and every key whose true frequency is greater
+ * than n / capacity is guaranteed to be monitored. getCount(key) - getError(key) is a lower bound of the true frequency.
+ *
+ * Merging follows the mergeable summaries of Cafaro et al.: counters of the same key are summed, a key missing from a full sketch is
+ * credited with that sketch's minimum counter, and only the 'capacity' largest counters are kept, so the n / capacity bound still holds.
+ */
+public class SpaceSavingSketch {
+
+    public static final int DEFAULT_CAPACITY = 32;
+
+    private final int capacity;
+    private final String[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final Map<String, Integer> slots;
+    private int size = 0;
+    private long n = 0;
+
+    public SpaceSavingSketch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SpaceSavingSketch(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Capacity must be positive");
+        this.capacity = capacity;
+        this.keys = new String[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.slots = new HashMap<>(capacity * 2);
+    }
+
+    public void update(String key) {
+        update(key, 1);
+    }
+
+    public void update(String key, long weight) {
+        n += weight;
+        Integer slot = slots.get(key);
+        if (slot != null) {
+            counts[slot] += weight;
+        } else if (size < capacity) {
+            put(size++, key, weight, 0);
+        } else {
+            int victim = minSlot();
+            slots.remove(keys[victim]);
+            put(victim, key, counts[victim] + weight, counts[victim]);
+        }
+    }
+
+    //Merges the other sketch into this one and returns this sketch
+    public SpaceSavingSketch merge(SpaceSavingSketch other) {
+        if (other.n == 0)
+            return this;
+        long thisMin = size == capacity ? counts[minSlot()] : 0;
+        long otherMin = other.size == other.capacity ? other.counts[other.minSlot()] : 0;
+        Map<String, long[]> merged = new HashMap<>((size + other.size) * 2);
+        for (int i = 0; i < size; i++) {
+            Integer o = other.slots.get(keys[i]);
+            merged.put(keys[i], o == null
+                    ? new long[]{counts[i] + otherMin, errors[i] + otherMin}
+                    : new long[]{counts[i] + other.counts[o], errors[i] + other.errors[o]});
+        }
+        for (int i = 0; i < other.size; i++)
+            if (!slots.containsKey(other.keys[i]))
+                merged.put(other.keys[i], new long[]{other.counts[i] + thisMin, other.errors[i] + thisMin});
+        List<Map.Entry<String, long[]>> entries = new ArrayList<>(merged.entrySet());
+        entries.sort(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0]).reversed());
+        slots.clear();
+        size = 0;
+        for (Map.Entry<String, long[]> e : entries) {
+            if (size == capacity)
+                break;
+            put(size++, e.getKey(), e.getValue()[0], e.getValue()[1]);
+        }
+        n += other.n;
+        return this;
+    }
+
+    //Returns the (overestimated) count of the key, or 0 if the key is not monitored
+    public long getCount(String key) {
+        Integer slot = slots.get(key);
+        return slot == null ? 0 : counts[slot];
+    }
+
+    public long getError(String key) {
+        Integer slot = slots.get(key);
+        return slot == null ? 0 : errors[slot];
+    }
+
+    //Returns the monitored keys with the largest counts, in descending order
+    public List<HeavyHitter> topK(int k) {
+        List<HeavyHitter> res = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            res.add(new HeavyHitter(keys[i], counts[i], errors[i]));
+        res.sort(Comparator.comparingLong(HeavyHitter::getCount).reversed());
+        return res.subList(0, Math.min(k, res.size()));
+    }
+
+    public long getN() {
+        return n;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    private void put(int slot, String key, long count, long error) {
+        keys[slot] = key;
+        counts[slot] = count;
+        errors[slot] = error;
+        slots.put(key, slot);
+    }
+
+    private int minSlot() {
+        int min = 0;
+        for (int i = 1; i < size; i++)
+            if (counts[i] < counts[min])
+                min = i;
+        return min;
+    }
+
+    public static class HeavyHitter {
+
+        private final String key;
+        private final long count;
+        private final long error;
+
+        public HeavyHitter(String key, long count, long error) {
+            this.key = key;
+            this.count = count;
+            this.error = error;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return key + ": " + count + " (+/- " + error + ")";
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package store;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/*
+ * A segment file of a TaskLog: a header followed by window results in the order they were appended.
+ *
+ *   header:  int magic | int version
+ *   record:  int payload length | int crc32 | long open | long close | payload
+ *
+ * The active segment is preallocated and memory-mapped read-write: an append is a copy into the mapping, and readers see the
+ * records up to the published size. When full it is sealed: truncated to its size, mapped read-only, and its sparse index
+ * (one entry every indexInterval bytes, mapping a window close to the position of its record) is saved next to it, so
+ * reopening the store does not need to scan sealed segments.
+ *
+ * On recovery the active segment is scanned and cut at the first record with a wrong checksum, which drops a torn last write.
+ */
+final class Segment {
+
+    private static final int MAGIC = 0x46525753;
+    private static final int VERSION = 1;
+    static final int HEADER = 8;
+    static final int RECORD_HEADER = 24;
+
+    private final long id;
+    private final Path file;
+    private final Path indexFile;
+    private final int indexInterval;
+    //Read-write while the segment is active, read-only once sealed
+    private volatile MappedByteBuffer buffer;
+    private FileChannel channel;
+    private volatile boolean sealed;
+    //Bytes of the segment holding complete records, published after every append
+    private volatile int size = HEADER;
+    private volatile long firstClose = Long.MAX_VALUE;
+    private volatile long lastClose = Long.MIN_VALUE;
+    private int records = 0;
+    //Records repeating the window of the record before them, dropped by the compaction
+    private int duplicates = 0;
+    private long lastOpen = Long.MIN_VALUE;
+    //Sparse index: the size is published after the entry, so readers never see a half-written one
+    private long[] indexCloses = new long[16];
+    private int[] indexPositions = new int[16];
+    private volatile int indexSize = 0;
+    private int lastIndexed = -1;
+
+    private Segment(long id, Path file, int indexInterval) {
+        this.id = id;
+        this.file = file;
+        this.indexFile = indexPath(file);
+        this.indexInterval = indexInterval;
+    }
+
+    static Path segmentPath(Path dir, long id) {
+        return dir.resolve(String.format("%020d.seg", id));
+    }
+
+    private static Path indexPath(Path segment) {
+        String name = segment.getFileName().toString();
+        return segment.resolveSibling(name.substring(0, name.length() - 4) + ".idx");
+    }
+
+    static long idOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - 4));
+    }
+
+    //Creates a new active segment able to hold capacity bytes
+    static Segment create(Path dir, long id, int capacity, int indexInterval) throws IOException {
+        Segment s = new Segment(id, segmentPath(dir, id), indexInterval);
+        s.channel = FileChannel.open(s.file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        s.buffer = s.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        s.buffer.putInt(0, MAGIC);
+        s.buffer.putInt(4, VERSION);
+        return s;
+    }
+
+    //Opens an existing segment: the last one of a log is reopened as active, the others as sealed
+    static Segment open(Path file, boolean active, int capacity, int indexInterval) throws IOException {
+        Segment s = new Segment(idOf(file), file, indexInterval);
+        if (active) {
+            s.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            s.buffer = s.channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacity, s.channel.size()));
+            s.checkHeader();
+            s.recover();
+            //Clear whatever follows the last complete record, so a torn write is never mistaken for a record later on
+            for (int i = s.size; i < s.buffer.capacity(); i++)
+                s.buffer.put(i, (byte) 0);
+        } else {
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                s.buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            }
+            s.sealed = true;
+            s.checkHeader();
+            if (!s.loadIndex())
+                s.recover();
+        }
+        return s;
+    }
+
+    //Writes the given records in a new segment file, which becomes a segment with replace; used by the compaction
+    static void write(Path tmp, List<Record> content) throws IOException {
+        int bytes = HEADER;
+        for (Record r : content)
+            bytes += RECORD_HEADER + r.payload.length;
+        ByteBuffer out = ByteBuffer.allocate(bytes);
+        out.putInt(MAGIC).putInt(VERSION);
+        for (Record r : content) {
+            out.putInt(r.payload.length).putInt(checksum(r.open, r.close, ByteBuffer.wrap(r.payload)))
+                    .putLong(r.open).putLong(r.close).put(r.payload);
+        }
+        out.flip();
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining())
+                ch.write(out);
+            ch.force(true);
+        }
+    }
+
+    //Atomically replaces the target segment with a file written by write, and opens it as sealed
+    static Segment replace(Path target, Path tmp, int indexInterval) throws IOException {
+        Files.deleteIfExists(indexPath(target));
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Segment s = open(target, false, 0, indexInterval);
+        s.saveIndex();
+        return s;
+    }
+
+    private void checkHeader() throws IOException {
+        if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC)
+            throw new IOException(file + " is not a window result segment");
+        if (buffer.getInt(4) != VERSION)
+            throw new IOException(file + " has unsupported version " + buffer.getInt(4));
+    }
+
+    //Rebuilds size, bounds and index by scanning the records, stopping at the first invalid one
+    private void recover() {
+        MappedByteBuffer b = buffer;
+        int pos = HEADER;
+        while (pos + RECORD_HEADER <= b.capacity()) {
+            int len = b.getInt(pos);
+            if (len < 0 || pos + RECORD_HEADER + len > b.capacity())
+                break;
+            long open = b.getLong(pos + 8);
+            long close = b.getLong(pos + 16);
+            if (b.getInt(pos + 4) != checksum(open, close, b.slice(pos + RECORD_HEADER, len)))
+                break;
+            track(open, close, pos);
+            pos += RECORD_HEADER + len;
+        }
+        size = pos;
+    }
+
+    //Appends a record, returns false if the segment has no room for it
+    boolean append(long open, long close, byte[] payload) {
+        int pos = size;
+        int len = RECORD_HEADER + payload.length;
+        if (sealed || pos + len > buffer.capacity())
+            return false;
+        MappedByteBuffer b = buffer;
+        b.putInt(pos, payload.length);
+        b.putInt(pos + 4, checksum(open, close, ByteBuffer.wrap(payload)));
+        b.putLong(pos + 8, open);
+        b.putLong(pos + 16, close);
+        b.put(pos + RECORD_HEADER, payload);
+        track(open, close, pos);
+        size = pos + len;
+        return true;
+    }
+
+    private void track(long open, long close, int pos) {
+        if (indexSize == 0 || pos - lastIndexed >= indexInterval) {
+            if (indexSize == indexCloses.length) {
+                indexCloses = Arrays.copyOf(indexCloses, indexSize * 2);
+                indexPositions = Arrays.copyOf(indexPositions, indexSize * 2);
+            }
+            indexCloses[indexSize] = close;
+            indexPositions[indexSize] = pos;
+            lastIndexed = pos;
+            indexSize = indexSize + 1;
+        }
+        if (firstClose == Long.MAX_VALUE)
+            firstClose = close;
+        else if (close == lastClose && open == lastOpen)
+            duplicates++;
+        lastClose = close;
+        lastOpen = open;
+        records++;
+    }
+
+    //Position from which to scan for windows closing at or after from: the last indexed record closing strictly before it
+    private int startPosition(long from) {
+        int n = indexSize;
+        long[] closes = indexCloses;
+        int[] positions = indexPositions;
+        int lo = 0, hi = n - 1, found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (closes[mid] < from) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found < 0 ? HEADER : positions[found];
+    }
+
+    //Visits the records closing in [from, to], in append order
+    void scan(long from, long to, RecordVisitor visitor) {
+        int limit = size;
+        MappedByteBuffer b = buffer;
+        int pos = startPosition(from);
+        while (pos + RECORD_HEADER <= limit) {
+            int len = b.getInt(pos);
+            long close = b.getLong(pos + 16);
+            if (close > to)
+                break;
+            if (close >= from)
+                visitor.visit(b.getLong(pos + 8), close, b.slice(pos + RECORD_HEADER, len));
+            pos += RECORD_HEADER + len;
+        }
+    }
+
+    //Stops appending: truncates the file to its records, maps it read-only and saves the index
+    void seal() throws IOException {
+        if (sealed)
+            return;
+        buffer.force();
+        channel.truncate(size);
+        channel.close();
+        channel = null;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = ch.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        sealed = true;
+        saveIndex();
+    }
+
+    void force() {
+        if (!sealed)
+            buffer.force();
+    }
+
+    //Closes an active segment without sealing it: it is recovered as active when the store is reopened
+    void close() throws IOException {
+        if (channel != null) {
+            buffer.force();
+            channel.close();
+            channel = null;
+        }
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(indexFile);
+        Files.deleteIfExists(file);
+    }
+
+    private void saveIndex() throws IOException {
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(tmp))) {
+            out.writeInt(size);
+            out.writeInt(records);
+            out.writeInt(duplicates);
+            out.writeLong(firstClose);
+            out.writeLong(lastClose);
+            out.writeInt(indexSize);
+            for (int i = 0; i < indexSize; i++) {
+                out.writeLong(indexCloses[i]);
+                out.writeInt(indexPositions[i]);
+            }
+        }
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    //Loads the saved index, returns false if it is missing or does not match the segment
+    private boolean loadIndex() {
+        if (!Files.exists(indexFile))
+            return false;
+        try (DataInputStream in = new DataInputStream(Files.newInputStream(indexFile))) {
+            int savedSize = in.readInt();
+            if (savedSize != buffer.capacity())
+                return false;
+            int savedRecords = in.readInt();
+            int savedDuplicates = in.readInt();
+            long first = in.readLong();
+            long last = in.readLong();
+            int n = in.readInt();
+            long[] closes = new long[Math.max(16, n)];
+            int[] positions = new int[Math.max(16, n)];
+            for (int i = 0; i < n; i++) {
+                closes[i] = in.readLong();
+                positions[i] = in.readInt();
+            }
+            indexCloses = closes;
+            indexPositions = positions;
+            indexSize = n;
+            lastIndexed = n == 0 ? -1 : positions[n - 1];
+            records = savedRecords;
+            duplicates = savedDuplicates;
+            firstClose = first;
+            lastClose = last;
+            size = savedSize;
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    static int checksum(long open, long close, ByteBuffer payload) {
+        CRC32 crc = new CRC32();
+        ByteBuffer bounds = ByteBuffer.allocate(16).putLong(open).putLong(close);
+        bounds.flip();
+        crc.update(bounds);
+        crc.update(payload.duplicate());
+        return (int) crc.getValue();
+    }
+
+    long getId() {
+        return id;
+    }
+
+    Path getFile() {
+        return file;
+    }
+
+    boolean isSealed() {
+        return sealed;
+    }
+
+    boolean isEmpty() {
+        return firstClose == Long.MAX_VALUE;
+    }
+
+    int getSize() {
+        return size;
+    }
+
+    int getRecords() {
+        return records;
+    }
+
+    int getDuplicates() {
+        return duplicates;
+    }
+
+    long getFirstClose() {
+        return firstClose;
+    }
+
+    long getLastClose() {
+        return lastClose;
+    }
+
+    interface RecordVisitor {
+        void visit(long open, long close, ByteBuffer payload);
+    }
+
+    //A record copied out of a segment, used by the compaction
+    static final class Record {
+        final long open;
+        final long close;
+        final byte[] payload;
+
+        Record(long open, long close, byte[] payload) {
+            this.open = open;
+            this.close = close;
+            this.payload = payload;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package store;
+
+import org.streamreasoning.rsp4j.api.operators.r2r.RelationToRelationOperator;
+import org.streamreasoning.rsp4j.api.operators.s2r.execution.instance.Window;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/*
+ * Pass-through Relation to Relation operator that appends every relation it sees to a WindowResultStore, keyed by the Task and
+ * by the window being reported, and returns it unchanged to the next operators of the DAG.
+ *
+ * R2R operators do not know which window they are evaluating, so the window comes from a supplier, usually the getReportedWindow
+ * method of the S2R operator. A window evaluated more than once is stored once.
+ */
+public class StoreWindowResultOp<R> implements RelationToRelationOperator<R> {
+
+    private final WindowResultStore<R> store;
+    private final String task;
+    private final Supplier<Window> reportedWindow;
+    private final List<String> tvgNames;
+    private final String resName;
+    private Window lastStored;
+
+    public StoreWindowResultOp(WindowResultStore<R> store, String task, Supplier<Window> reportedWindow, List<String> tvgNames, String resName) {
+        this.store = store;
+        this.task = task;
+        this.reportedWindow = reportedWindow;
+        this.tvgNames = tvgNames;
+        this.resName = resName;
+    }
+
+    @Override
+    public R eval(List<R> datasets) {
+        R relation = datasets.get(0);
+        Window window = reportedWindow.get();
+        if (window != null && window != lastStored) {
+            store.append(task, window.getO(), window.getC(), relation);
+            lastStored = window;
+        }
+        return relation;
+    }
+
+    @Override
+    public List<String> getTvgNames() {
+        return tvgNames;
+    }
+
+    @Override
+    public String getResName() {
+        return resName;
+    }
+}
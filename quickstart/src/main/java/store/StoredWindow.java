@@ -0,0 +1,40 @@
+package store;
+
+/*
+ * A window result read back from the WindowResultStore: the relation reported by a Task for the window [open, close).
+ */
+public final class StoredWindow<R> {
+
+    private final String task;
+    private final long open;
+    private final long close;
+    private final R relation;
+
+    StoredWindow(String task, long open, long close, R relation) {
+        this.task = task;
+        this.open = open;
+        this.close = close;
+        this.relation = relation;
+    }
+
+    public String getTask() {
+        return task;
+    }
+
+    public long getOpen() {
+        return open;
+    }
+
+    public long getClose() {
+        return close;
+    }
+
+    public R getRelation() {
+        return relation;
+    }
+
+    @Override
+    public String toString() {
+        return task + " [" + open + "," + close + ")";
+    }
+}
@@ -0,0 +1,229 @@
+package store;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Append-only log of the window results of one Task: a directory of segments ordered by id, the last one being the active one.
+ *
+ * Appends and changes to the list of segments are serialized on the log; readers work on an immutable snapshot of the list,
+ * so a query running while a segment is sealed, dropped or compacted keeps reading the mappings it started with.
+ *
+ * Compaction merges runs of small sealed segments into one, dropping the results older than the retention and keeping only the last
+ * result of a window reported more than once. The segments being replaced are listed in a compaction log first: if the process dies
+ * half-way, reopening the store either discards the merged segment or completes the replacement.
+ */
+final class TaskLog {
+
+    private static final String COMPACTION_LOG = "compaction.log";
+    private static final String COMPACTION_TMP = "compaction.tmp";
+
+    private final String task;
+    private final Path dir;
+    private final int segmentBytes;
+    private final int indexInterval;
+    private volatile List<Segment> segments;
+    private long nextId;
+    private volatile long newestClose = Long.MIN_VALUE;
+
+    TaskLog(String task, Path dir, int segmentBytes, int indexInterval) throws IOException {
+        this.task = task;
+        this.dir = dir;
+        this.segmentBytes = segmentBytes;
+        this.indexInterval = indexInterval;
+        Files.createDirectories(dir);
+        recoverCompaction();
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*.seg")) {
+            stream.forEach(files::add);
+        }
+        files.sort((a, b) -> Long.compare(Segment.idOf(a), Segment.idOf(b)));
+        List<Segment> opened = new ArrayList<>();
+        for (int i = 0; i < files.size(); i++)
+            opened.add(Segment.open(files.get(i), i == files.size() - 1, segmentBytes, indexInterval));
+        this.segments = Collections.unmodifiableList(opened);
+        this.nextId = files.isEmpty() ? 0 : Segment.idOf(files.get(files.size() - 1)) + 1;
+        for (Segment s : opened)
+            if (!s.isEmpty())
+                newestClose = Math.max(newestClose, s.getLastClose());
+    }
+
+    //Finishes or rolls back a compaction interrupted by a crash
+    private void recoverCompaction() throws IOException {
+        Path log = dir.resolve(COMPACTION_LOG);
+        Path tmp = dir.resolve(COMPACTION_TMP);
+        if (Files.exists(log)) {
+            if (Files.exists(tmp)) {
+                //The merged segment never replaced the first of the run: the originals are intact
+                Files.delete(tmp);
+            } else {
+                //The first segment of the run was replaced (or the whole run expired), the others still have to go
+                List<String> ids = Files.readAllLines(log, StandardCharsets.UTF_8);
+                for (String id : ids.subList(1, ids.size())) {
+                    Path seg = Segment.segmentPath(dir, Long.parseLong(id.trim()));
+                    Files.deleteIfExists(seg);
+                    Files.deleteIfExists(seg.resolveSibling(seg.getFileName().toString().replace(".seg", ".idx")));
+                }
+            }
+            Files.delete(log);
+        }
+        Files.deleteIfExists(tmp);
+    }
+
+    synchronized void append(long open, long close, byte[] payload) throws IOException {
+        if (close < newestClose)
+            throw new IllegalArgumentException("Window [" + open + "," + close + ") of task " + task + " appended after a window closing at " + newestClose);
+        List<Segment> current = segments;
+        Segment active = current.isEmpty() ? null : current.get(current.size() - 1);
+        if (active == null || !active.append(open, close, payload)) {
+            if (active != null)
+                active.seal();
+            //A result larger than a segment gets a segment of its own
+            int capacity = Math.max(segmentBytes, Segment.HEADER + Segment.RECORD_HEADER + payload.length);
+            Segment next = Segment.create(dir, nextId++, capacity, indexInterval);
+            next.append(open, close, payload);
+            List<Segment> updated = new ArrayList<>(current);
+            updated.add(next);
+            segments = Collections.unmodifiableList(updated);
+        }
+        newestClose = close;
+    }
+
+    //Visits the results closing in [from, to] in the order they were appended
+    void scan(long from, long to, Segment.RecordVisitor visitor) {
+        for (Segment s : segments) {
+            if (s.isEmpty() || s.getLastClose() < from)
+                continue;
+            if (s.getFirstClose() > to)
+                break;
+            s.scan(from, to, visitor);
+        }
+    }
+
+    synchronized void flush() {
+        List<Segment> current = segments;
+        if (!current.isEmpty())
+            current.get(current.size() - 1).force();
+    }
+
+    //Drops the sealed segments whose results all closed before the cutoff
+    void dropBefore(long cutoff) throws IOException {
+        List<Segment> expired = new ArrayList<>();
+        synchronized (this) {
+            List<Segment> updated = new ArrayList<>();
+            for (Segment s : segments) {
+                if (s.isSealed() && s.getLastClose() < cutoff)
+                    expired.add(s);
+                else
+                    updated.add(s);
+            }
+            if (expired.isEmpty())
+                return;
+            segments = Collections.unmodifiableList(updated);
+        }
+        for (Segment s : expired)
+            s.delete();
+    }
+
+    /*
+     * Merges runs of consecutive sealed segments that fit together in one segment, dropping the results closing before the cutoff
+     * and the older results of windows reported more than once. A sealed segment that fits with no other is rewritten on its own
+     * when it has something to drop. Only the background thread of the store changes sealed segments,
+     * so the run is read without holding the lock, and the lock is only taken to swap the segments.
+     */
+    void compact(long cutoff) throws IOException {
+        List<Segment> current = segments;
+        List<Segment> run = new ArrayList<>();
+        long runBytes = 0;
+        for (Segment s : current) {
+            boolean fits = s.isSealed() && runBytes + s.getSize() <= segmentBytes;
+            if (!fits) {
+                merge(run, cutoff);
+                run = new ArrayList<>();
+                runBytes = 0;
+                if (!s.isSealed())
+                    break;
+            }
+            run.add(s);
+            runBytes += s.getSize();
+        }
+        merge(run, cutoff);
+    }
+
+    private void merge(List<Segment> run, long cutoff) throws IOException {
+        if (run.isEmpty())
+            return;
+        if (run.size() == 1 && run.get(0).getDuplicates() == 0 && run.get(0).getFirstClose() >= cutoff)
+            return;
+        //Last result of every window, in close order
+        Map<Long, Map<Long, Segment.Record>> byClose = new LinkedHashMap<>();
+        for (Segment s : run) {
+            s.scan(cutoff, Long.MAX_VALUE, (open, close, payload) -> {
+                byte[] bytes = new byte[payload.remaining()];
+                payload.get(bytes);
+                byClose.computeIfAbsent(close, c -> new LinkedHashMap<>()).put(open, new Segment.Record(open, close, bytes));
+            });
+        }
+        List<Segment.Record> content = new ArrayList<>();
+        for (Map<Long, Segment.Record> windows : byClose.values())
+            content.addAll(windows.values());
+
+        //The merged file is complete before the log names the segments it replaces
+        Path tmp = dir.resolve(COMPACTION_TMP);
+        if (!content.isEmpty())
+            Segment.write(tmp, content);
+        Path log = dir.resolve(COMPACTION_LOG);
+        StringBuilder ids = new StringBuilder();
+        for (Segment s : run)
+            ids.append(s.getId()).append('\n');
+        Files.write(log, ids.toString().getBytes(StandardCharsets.UTF_8));
+
+        Segment first = run.get(0);
+        Segment merged = content.isEmpty() ? null : Segment.replace(first.getFile(), tmp, indexInterval);
+        synchronized (this) {
+            List<Segment> updated = new ArrayList<>();
+            for (Segment s : segments) {
+                if (s == first && merged != null)
+                    updated.add(merged);
+                else if (!run.contains(s))
+                    updated.add(s);
+            }
+            segments = Collections.unmodifiableList(updated);
+        }
+        for (Segment s : run.subList(merged == null ? 0 : 1, run.size()))
+            s.delete();
+        Files.delete(log);
+    }
+
+    synchronized void close() throws IOException {
+        for (Segment s : segments)
+            s.close();
+    }
+
+    String getTask() {
+        return task;
+    }
+
+    long getNewestClose() {
+        return newestClose;
+    }
+
+    int getSegmentCount() {
+        return segments.size();
+    }
+
+    long getSizeBytes() {
+        long bytes = 0;
+        for (Segment s : segments)
+            bytes += s.getSize();
+        return bytes;
+    }
+}
@@ -0,0 +1,175 @@
+package store;
+
+import codec.RelationCodec;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/*
+ * Embedded append-only store of the window results reported by the Tasks, so that past windows can be queried without replaying
+ * the streams.
+ *
+ * Every Task gets a log in a directory of its own, made of segment files holding the encoded relations (see RelationCodec) in the
+ * order of their window close. A query for the windows of a Task closing in [from, to] skips the segments out of range, jumps to the
+ * first matching record with the sparse index of each segment, and decodes the records straight from the memory-mapped files.
+ *
+ * Results are kept for retentionMillis of event time behind the newest window of their Task (forever if not positive); a background
+ * thread drops expired segments and compacts small ones every compactionPeriodMillis; a failed round is kept in getLastError.
+ *
+ * Appends and queries can come from any thread; appends of the same Task must come in non-decreasing window close order,
+ * as reported by the windows of a Task.
+ */
+public class WindowResultStore<R> implements AutoCloseable {
+
+    public static final int DEFAULT_SEGMENT_BYTES = 16 * 1024 * 1024;
+    public static final int DEFAULT_INDEX_INTERVAL = 4 * 1024;
+
+    private final Path directory;
+    private final RelationCodec<R> codec;
+    private final int segmentBytes;
+    private final int indexInterval;
+    private final long retentionMillis;
+    private final Map<String, TaskLog> logs = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenance;
+    private volatile boolean closed = false;
+    //Failure of the last background maintenance round, null if it succeeded
+    private volatile Exception lastError;
+
+    public WindowResultStore(Path directory, RelationCodec<R> codec) throws IOException {
+        this(directory, codec, DEFAULT_SEGMENT_BYTES, 0, 30_000);
+    }
+
+    public WindowResultStore(Path directory, RelationCodec<R> codec, int segmentBytes, long retentionMillis, long compactionPeriodMillis) throws IOException {
+        if (segmentBytes < 1024)
+            throw new IllegalArgumentException("Segments must be at least 1 KB");
+        this.directory = directory;
+        this.codec = codec;
+        this.segmentBytes = segmentBytes;
+        this.indexInterval = Math.min(DEFAULT_INDEX_INTERVAL, segmentBytes / 16);
+        this.retentionMillis = retentionMillis;
+        Files.createDirectories(directory);
+        //Reopen the logs left by a previous run
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path dir : stream) {
+                String task = URLDecoder.decode(dir.getFileName().toString(), StandardCharsets.UTF_8);
+                logs.put(task, new TaskLog(task, dir, segmentBytes, indexInterval));
+            }
+        }
+        this.maintenance = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "window-store-maintenance");
+            t.setDaemon(true);
+            return t;
+        });
+        if (compactionPeriodMillis > 0)
+            maintenance.scheduleWithFixedDelay(this::maintainQuietly, compactionPeriodMillis, compactionPeriodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private TaskLog log(String task) {
+        return logs.computeIfAbsent(task, t -> {
+            try {
+                return new TaskLog(t, directory.resolve(URLEncoder.encode(t, StandardCharsets.UTF_8)), segmentBytes, indexInterval);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    //Stores the relation reported by the task for the window [open, close)
+    public void append(String task, long open, long close, R relation) {
+        if (closed)
+            throw new IllegalStateException("The store is closed");
+        try {
+            log(task).append(open, close, codec.encode(relation));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    //Windows of the task closing in [fromClose, toClose], in close order
+    public List<StoredWindow<R>> query(String task, long fromClose, long toClose) {
+        List<StoredWindow<R>> res = new ArrayList<>();
+        TaskLog log = logs.get(task);
+        if (log == null || fromClose > toClose)
+            return res;
+        log.scan(fromClose, toClose, (open, close, payload) -> {
+            byte[] bytes = new byte[payload.remaining()];
+            payload.get(bytes);
+            res.add(new StoredWindow<>(task, open, close, codec.decode(bytes)));
+        });
+        return res;
+    }
+
+    public Set<String> getTasks() {
+        return new TreeSet<>(logs.keySet());
+    }
+
+    //Close time of the newest stored window of the task, Long.MIN_VALUE if there is none
+    public long getNewestClose(String task) {
+        TaskLog log = logs.get(task);
+        return log == null ? Long.MIN_VALUE : log.getNewestClose();
+    }
+
+    public int getSegmentCount(String task) {
+        TaskLog log = logs.get(task);
+        return log == null ? 0 : log.getSegmentCount();
+    }
+
+    public long getSizeBytes(String task) {
+        TaskLog log = logs.get(task);
+        return log == null ? 0 : log.getSizeBytes();
+    }
+
+    //Forces the appended results to disk
+    public void flush() {
+        for (TaskLog log : logs.values())
+            log.flush();
+    }
+
+    //Applies the retention and compacts the segments now, on the calling thread
+    public synchronized void maintain() throws IOException {
+        for (TaskLog log : logs.values()) {
+            long cutoff = retentionMillis > 0 && log.getNewestClose() != Long.MIN_VALUE ? log.getNewestClose() - retentionMillis : Long.MIN_VALUE;
+            log.dropBefore(cutoff);
+            log.compact(cutoff);
+        }
+    }
+
+    private void maintainQuietly() {
+        try {
+            maintain();
+            lastError = null;
+        } catch (IOException | RuntimeException e) {
+            //A failed compaction leaves the segments as they were, the next round tries again
+            lastError = e;
+        }
+    }
+
+    public Exception getLastError() {
+        return lastError;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed)
+            return;
+        closed = true;
+        maintenance.shutdownNow();
+        for (TaskLog log : logs.values())
+            log.close();
+    }
+}
@@ -2,10 +2,12 @@ package stream;
 
 import customdatatypes.*;
 import org.streamreasoning.rsp4j.api.stream.data.DataStream;
+import runtime.FlowControlled;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
 
 public class FruitStreamGenerator {
 
@@ -14,7 +16,9 @@ public class FruitStreamGenerator {
     private final Map<String, DataStream<Fruit>> activeStreams;
     private final long TIMEOUT = 1000l;
     private final Random randomGenerator;
-    private boolean isStreaming = false;
+    private volatile boolean isStreaming = false;
+    //Time spent waiting for the downstream operators to have room for new elements
+    private volatile long throttledMillis = 0;
 
     public FruitStreamGenerator(){
         this.activeStreams = new HashMap<>();
@@ -57,8 +61,30 @@ public class FruitStreamGenerator {
         this.isStreaming = false;
     }
 
+    public long getThrottledMillis() {
+        return throttledMillis;
+    }
+
+    //If the stream takes part in flow control, wait until it has room for a new element instead of overflowing its consumers
+    private void throttle(DataStream<Fruit> stream) {
+        if (!(stream instanceof FlowControlled))
+            return;
+        FlowControlled flowControlled = (FlowControlled) stream;
+        long start = System.currentTimeMillis();
+        try {
+            while (this.isStreaming && !flowControlled.awaitCredits(100, TimeUnit.MILLISECONDS)) {
+                //Keep waiting, checking now and then whether the streaming was stopped
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        throttledMillis += System.currentTimeMillis() - start;
+    }
+
     private void generateDataAndAddToStream(DataStream<Fruit> stream, long ts) {
 
+        throttle(stream);
+
         switch (fruit.values()[randomGenerator.nextInt(0, 6)]){
             case APPLE:
                 stream.put(new Apple(randomGenerator.nextFloat(0, 5), fruitStatus[randomGenerator.nextInt(0, 3)]), ts);
@@ -0,0 +1,90 @@
+package tracing;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/*
+ * Local HTTP endpoint exporting the latency distributions of the LatencyTracer, bound to the loopback interface only:
+ *
+ *  - GET /latency           one JSON object with the stages in pipeline order (count, mean, p50, p90, p99 and max in microseconds)
+ *  - GET /latency?text      the same figures as a plain-text table
+ *  - POST /latency/reset    forgets the recorded latencies
+ *
+ * Requests are served by a single daemon thread, so a slow client never competes with the Tasks for more than one core.
+ */
+public class LatencyHttpExporter implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    //Port 0 picks a free port, see getPort
+    public LatencyHttpExporter(int port) throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "latency-http-exporter");
+            t.setDaemon(true);
+            return t;
+        });
+        server.createContext("/latency", this::handle);
+        server.setExecutor(executor);
+    }
+
+    public LatencyHttpExporter start() {
+        server.start();
+        return this;
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            String method = exchange.getRequestMethod();
+            if (path.equals("/latency/reset")) {
+                if (!method.equals("POST")) {
+                    reply(exchange, 405, "text/plain", "Use POST to reset the latencies\n");
+                    return;
+                }
+                LatencyTracer.reset();
+                reply(exchange, 200, "text/plain", "reset\n");
+            } else if (!path.equals("/latency") && !path.equals("/latency/")) {
+                reply(exchange, 404, "text/plain", "Unknown path " + path + "\n");
+            } else if (!method.equals("GET")) {
+                reply(exchange, 405, "text/plain", "Use GET to read the latencies\n");
+            } else if ("text".equals(exchange.getRequestURI().getQuery())) {
+                reply(exchange, 200, "text/plain", LatencyTracer.toText());
+            } else {
+                reply(exchange, 200, "application/json", LatencyTracer.toJson());
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void reply(HttpExchange exchange, int status, String contentType, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length == 0 ? -1 : bytes.length);
+        if (bytes.length > 0) {
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
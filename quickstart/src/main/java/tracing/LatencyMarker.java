@@ -0,0 +1,62 @@
+package tracing;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/*
+ * Latency marker carried by a sampled element: it remembers when the element entered its source stream and, at every stage boundary
+ * it crosses, records in the LatencyTracer the time spent since the previous boundary.
+ *
+ * Each stage is recorded once per marker: an element that is read twice by the same stage (e.g. a window content coalesced twice,
+ * or two Tasks consuming the same stream) contributes the first crossing only.
+ */
+public final class LatencyMarker {
+
+    private final String stream;
+    private final long eventTs;
+    private final long createdNanos;
+    //Time of the last stage boundary crossed by the marker
+    private long lastNanos;
+    private final Set<String> stamped = new HashSet<>(8);
+
+    LatencyMarker(String stream, long eventTs, long createdNanos) {
+        this.stream = stream;
+        this.eventTs = eventTs;
+        this.createdNanos = createdNanos;
+        this.lastNanos = createdNanos;
+    }
+
+    //Records the time since the previous boundary as the latency of the given stage
+    public synchronized void stamp(String stage, long nowNanos) {
+        if (!stamped.add(stage))
+            return;
+        LatencyTracer.record(stage, nowNanos - lastNanos);
+        lastNanos = nowNanos;
+    }
+
+    //Last boundary: records the emission stage and the end-to-end latency of the element
+    synchronized void finish(String stage, long nowNanos) {
+        if (stamped.contains(LatencyTracer.END_TO_END))
+            return;
+        stamp(stage, nowNanos);
+        stamped.add(LatencyTracer.END_TO_END);
+        LatencyTracer.record(LatencyTracer.END_TO_END, nowNanos - createdNanos);
+    }
+
+    public String getStream() {
+        return stream;
+    }
+
+    public long getEventTs() {
+        return eventTs;
+    }
+
+    public long getCreatedNanos() {
+        return createdNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "LatencyMarker{" + stream + " @ " + eventTs + "}";
+    }
+}
@@ -0,0 +1,172 @@
+package tracing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * Event-time latency tracing of the pipeline, in the style of the latency markers of Flink.
+ *
+ * A source stream enabled with enable(stream, interval) attaches a LatencyMarker to one of its elements every interval; the marker
+ * travels with the element through the window, the R2R operators and the R2S operator, and at every stage boundary the time spent
+ * since the previous boundary is recorded in the histogram of that stage:
+ *
+ *  - ingest_queue: from the source stream to the window (time spent in the mailboxes of the runtime, if any)
+ *  - window: from the window to the closing of the window the element was assigned to
+ *  - evaluation_wait: from the window close to the evaluation of the Task
+ *  - coalesce: computation of the 'R' representation of the window content
+ *  - r2r:<result name>: evaluation of each R2R operator, in the order of the DAG
+ *  - r2s: from the last R2R operator to the emission on the output stream
+ *  - end_to_end: from the source stream to the output stream
+ *
+ * Markers are regular elements, so they wait behind the same elements and cross the same operators as the data they sample.
+ * Elements filtered out by an R2R operator never reach the output: they still contribute to the stages they crossed.
+ *
+ * While tracing is off every hook is a single volatile read; while it is on, an element without marker costs a field read.
+ */
+public final class LatencyTracer {
+
+    public static final String INGEST_QUEUE = "ingest_queue";
+    public static final String WINDOW = "window";
+    public static final String EVALUATION_WAIT = "evaluation_wait";
+    public static final String COALESCE = "coalesce";
+    public static final String R2R_PREFIX = "r2r:";
+    public static final String R2S = "r2s";
+    public static final String END_TO_END = "end_to_end";
+
+    private static volatile boolean on = false;
+    //Marker interval of each source stream, and wall-clock time of its next marker
+    private static final Map<String, Long> intervals = new ConcurrentHashMap<>();
+    private static final Map<String, AtomicLong> nextMarker = new ConcurrentHashMap<>();
+    private static final Map<String, LatencyHistogram> stages = new ConcurrentHashMap<>();
+    //Stages in the order they were first recorded, which is the order of the pipeline
+    private static final List<String> order = new CopyOnWriteArrayList<>();
+
+    private LatencyTracer() {
+    }
+
+    public static boolean isOn() {
+        return on;
+    }
+
+    //Starts injecting a marker every intervalMillis in the given source stream
+    public static void enable(String stream, long intervalMillis) {
+        if (intervalMillis <= 0)
+            throw new IllegalArgumentException("Marker interval must be positive");
+        intervals.put(stream, intervalMillis * 1_000_000L);
+        nextMarker.put(stream, new AtomicLong(System.nanoTime()));
+        on = true;
+    }
+
+    //Stops injecting markers in every stream, markers already in flight are not recorded anymore
+    public static void disable() {
+        on = false;
+        intervals.clear();
+        nextMarker.clear();
+    }
+
+    //Forgets the recorded latencies
+    public static void reset() {
+        stages.clear();
+        order.clear();
+    }
+
+    /*
+     * Called by the streams on every put while tracing is on: an element of a source stream may get a new marker,
+     * while a marked element reaching any other stream has been emitted by a Task.
+     */
+    public static void onPut(String stream, Object element, long ts) {
+        if (!(element instanceof Traced))
+            return;
+        Traced traced = (Traced) element;
+        long now = System.nanoTime();
+        AtomicLong next = nextMarker.get(stream);
+        if (next == null) {
+            LatencyMarker marker = traced.getMarker();
+            if (marker != null)
+                marker.finish(R2S, now);
+            return;
+        }
+        long due = next.get();
+        if (traced.getMarker() == null && now - due >= 0 && next.compareAndSet(due, now + intervals.getOrDefault(stream, 0L)))
+            traced.setMarker(new LatencyMarker(stream, ts, now));
+    }
+
+    //Records a stage boundary for the given element, if it carries a marker
+    public static LatencyMarker stamp(Object element, String stage) {
+        if (!(element instanceof Traced))
+            return null;
+        LatencyMarker marker = ((Traced) element).getMarker();
+        if (marker != null)
+            marker.stamp(stage, System.nanoTime());
+        return marker;
+    }
+
+    //Records a stage boundary for every marked element of a relation
+    public static void stampAll(Iterable<?> relation, String stage) {
+        long now = System.nanoTime();
+        for (Object element : relation) {
+            if (element instanceof Traced) {
+                LatencyMarker marker = ((Traced) element).getMarker();
+                if (marker != null)
+                    marker.stamp(stage, now);
+            }
+        }
+    }
+
+    //Records a stage boundary for markers already collected by an operator (e.g. the markers of a window)
+    public static void stampMarkers(List<LatencyMarker> markers, String stage) {
+        long now = System.nanoTime();
+        for (LatencyMarker marker : markers)
+            marker.stamp(stage, now);
+    }
+
+    static void record(String stage, long nanos) {
+        if (!on)
+            return;
+        LatencyHistogram h = stages.get(stage);
+        if (h == null) {
+            h = stages.computeIfAbsent(stage, s -> {
+                order.add(s);
+                return new LatencyHistogram();
+            });
+        }
+        h.record(nanos);
+    }
+
+    //Histogram of a stage, null if no marker crossed it yet
+    public static LatencyHistogram histogram(String stage) {
+        return stages.get(stage);
+    }
+
+    public static List<StageLatency> snapshot() {
+        List<StageLatency> res = new ArrayList<>();
+        for (String stage : order) {
+            LatencyHistogram h = stages.get(stage);
+            if (h != null)
+                res.add(new StageLatency(stage, h));
+        }
+        return res;
+    }
+
+    public static String toJson() {
+        StringBuilder sb = new StringBuilder("{\"tracing\":").append(on).append(",\"stages\":[");
+        List<StageLatency> snapshot = snapshot();
+        for (int i = 0; i < snapshot.size(); i++) {
+            if (i > 0)
+                sb.append(',');
+            sb.append(snapshot.get(i).toJson());
+        }
+        return sb.append("]}").toString();
+    }
+
+    public static String toText() {
+        StringBuilder sb = new StringBuilder();
+        for (StageLatency s : snapshot())
+            sb.append(s).append('\n');
+        return sb.toString();
+    }
+}
@@ -0,0 +1,65 @@
+package tracing;
+
+/*
+ * Immutable summary of the latency distribution of one stage, in microseconds.
+ */
+public final class StageLatency {
+
+    private final String stage;
+    private final long count;
+    private final double mean;
+    private final long p50;
+    private final long p90;
+    private final long p99;
+    private final long max;
+
+    StageLatency(String stage, LatencyHistogram h) {
+        this.stage = stage;
+        this.count = h.getCount();
+        this.mean = h.getMean() / 1_000.0;
+        this.p50 = h.percentile(0.50) / 1_000;
+        this.p90 = h.percentile(0.90) / 1_000;
+        this.p99 = h.percentile(0.99) / 1_000;
+        this.max = h.getMax() / 1_000;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public double getMeanMicros() {
+        return mean;
+    }
+
+    public long getP50Micros() {
+        return p50;
+    }
+
+    public long getP90Micros() {
+        return p90;
+    }
+
+    public long getP99Micros() {
+        return p99;
+    }
+
+    public long getMaxMicros() {
+        return max;
+    }
+
+    String toJson() {
+        return String.format(java.util.Locale.ROOT,
+                "{\"stage\":\"%s\",\"count\":%d,\"mean_us\":%.1f,\"p50_us\":%d,\"p90_us\":%d,\"p99_us\":%d,\"max_us\":%d}",
+                stage.replace("\\", "\\\\").replace("\"", "\\\""), count, mean, p50, p90, p99, max);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(java.util.Locale.ROOT, "%-28s count=%-6d mean=%.1fus p50=%dus p90=%dus p99=%dus max=%dus",
+                stage, count, mean, p50, p90, p99, max);
+    }
+}
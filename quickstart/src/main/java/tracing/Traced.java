@@ -0,0 +1,12 @@
+package tracing;
+
+/*
+ * An element that can carry a LatencyMarker through the pipeline.
+ * Operators only look at the marker while the LatencyTracer is on, so an element that is never sampled costs a null field.
+ */
+public interface Traced {
+
+    LatencyMarker getMarker();
+
+    void setMarker(LatencyMarker marker);
+}
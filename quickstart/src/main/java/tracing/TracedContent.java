@@ -0,0 +1,38 @@
+package tracing;
+
+import org.streamreasoning.rsp4j.api.secret.content.Content;
+
+import java.util.List;
+
+/*
+ * Window content handed to the Task while tracing is on: it delegates to the content of the window, and records for the markers
+ * of the window the time waited between the window close and the evaluation, and the time spent coalescing.
+ */
+public class TracedContent<I, W, R> implements Content<I, W, R> {
+
+    private final Content<I, W, R> content;
+    private final List<LatencyMarker> markers;
+
+    public TracedContent(Content<I, W, R> content, List<LatencyMarker> markers) {
+        this.content = content;
+        this.markers = markers;
+    }
+
+    @Override
+    public int size() {
+        return content.size();
+    }
+
+    @Override
+    public void add(I e) {
+        content.add(e);
+    }
+
+    @Override
+    public R coalesce() {
+        LatencyTracer.stampMarkers(markers, LatencyTracer.EVALUATION_WAIT);
+        R res = content.coalesce();
+        LatencyTracer.stampMarkers(markers, LatencyTracer.COALESCE);
+        return res;
+    }
+}
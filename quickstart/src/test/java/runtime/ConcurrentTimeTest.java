@@ -0,0 +1,142 @@
+package runtime;
+
+import customdatatypes.Apple;
+import customdatatypes.Fruit;
+import customdatatypes.FruitBasket;
+import customdatatypes.FruitPunctuation;
+import customoperators.CustomFilterContentFactory;
+import customoperators.CustomTumblingWindow;
+import org.junit.jupiter.api.Test;
+import org.streamreasoning.rsp4j.api.secret.content.ContentFactory;
+import org.streamreasoning.rsp4j.api.secret.report.Report;
+import org.streamreasoning.rsp4j.api.secret.report.ReportImpl;
+import org.streamreasoning.rsp4j.api.secret.report.strategies.OnWindowClose;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Two tumbling windows share a ConcurrentTime and are fed by two threads, each thread evaluating after every element as the Task
+ * does: an evaluation instant is only released once both streams passed it, so every evaluation reads two complete windows, the
+ * same one on both streams, and each window is evaluated once.
+ */
+class ConcurrentTimeTest {
+
+    private static final long WIDTH = 100;
+    private static final int ELEMENTS = 2_000;
+    //Elements every 10 ms, off the window bounds: 10 per window, the last window stays open
+    private static final int PER_WINDOW = (int) (WIDTH / 10);
+    private static final int CLOSED_WINDOWS = ELEMENTS / PER_WINDOW - 1;
+
+    @Test
+    void evaluationsReadCompleteWindowsOfBothStreams() throws InterruptedException {
+        ConcurrentTime time = new ConcurrentTime(0);
+        CustomTumblingWindow<Fruit, Fruit, FruitBasket> market1 = window(time, "market_one");
+        CustomTumblingWindow<Fruit, Fruit, FruitBasket> market2 = window(time, "market_two");
+        List<Long> evaluated = Collections.synchronizedList(new ArrayList<>());
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch start = new CountDownLatch(1);
+
+        Thread[] feeders = new Thread[2];
+        for (int s = 0; s < 2; s++) {
+            CustomTumblingWindow<Fruit, Fruit, FruitBasket> own = s == 0 ? market1 : market2;
+            int stream = s;
+            feeders[s] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < ELEMENTS; i++) {
+                        long ts = 5 + 10L * i;
+                        own.compute(new Apple(ts / WIDTH, "ripe"), ts);
+                        //The second stream lags behind now and then
+                        if (stream == 1 && i % 7 == 0)
+                            Thread.yield();
+                        while (time.hasEvaluationInstant()) {
+                            time.getEvaluationTime();
+                            long t = time.getEvaluatedTime();
+                            assertTrue(t <= time.getLowWatermark(), "evaluated " + t + " above the low watermark");
+                            FruitBasket one = market1.content(t).coalesce();
+                            FruitBasket two = market2.content(t).coalesce();
+                            assertComplete(one, t / WIDTH - 1);
+                            assertComplete(two, t / WIDTH - 1);
+                            evaluated.add(t);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                }
+            });
+            feeders[s].start();
+        }
+        start.countDown();
+        for (Thread feeder : feeders)
+            feeder.join();
+
+        assertNull(failure.get(), () -> "a feeder failed: " + failure.get());
+        assertEquals(CLOSED_WINDOWS, evaluated.size(), "evaluations " + evaluated);
+        for (int i = 0; i < evaluated.size(); i++)
+            assertEquals(5 + WIDTH * (i + 1), evaluated.get(i));
+    }
+
+    @Test
+    void evaluationWaitsForTheSlowestStream() {
+        ConcurrentTime time = new ConcurrentTime(0);
+        CustomTumblingWindow<Fruit, Fruit, FruitBasket> busy = window(time, "busy");
+        CustomTumblingWindow<Fruit, Fruit, FruitBasket> quiet = window(time, "quiet");
+
+        //The quiet stream registered with its window: the instant at 105 waits for it
+        busy.compute(new Apple(0, "ripe"), 5);
+        busy.compute(new Apple(1, "ripe"), 105);
+        assertEquals(Long.MIN_VALUE, time.getLowWatermark());
+        assertFalse(time.hasEvaluationInstant());
+
+        //A punctuation moves the quiet stream past 105 without adding anything to its window
+        quiet.compute(new FruitPunctuation(), 110);
+        assertEquals(105, time.getLowWatermark());
+        assertTrue(time.hasEvaluationInstant());
+        time.getEvaluationTime();
+        assertEquals(105, time.getEvaluatedTime());
+        assertComplete(busy.content(105).coalesce(), 0, 1);
+        assertEquals(0, quiet.content(105).size());
+        assertFalse(time.hasEvaluationInstant());
+    }
+
+    private static void assertComplete(FruitBasket basket, long window) {
+        assertComplete(basket, window, PER_WINDOW);
+    }
+
+    //Every fruit of the basket was put in the given window, and the basket has all of them
+    private static void assertComplete(FruitBasket basket, long window, int size) {
+        assertEquals(size, basket.getSize(), "window " + window);
+        for (Fruit f : basket)
+            assertEquals(window, (long) f.getWeight(), "window " + window + " has a fruit of another window");
+    }
+
+    private static CustomTumblingWindow<Fruit, Fruit, FruitBasket> window(ConcurrentTime time, String name) {
+        ContentFactory<Fruit, Fruit, FruitBasket> cf = new CustomFilterContentFactory<>(
+                fruit -> fruit,
+                fruit -> {
+                    FruitBasket basket = new FruitBasket();
+                    basket.addFruit(fruit);
+                    return basket;
+                },
+                (a, b) -> {
+                    FruitBasket sum = new FruitBasket();
+                    sum.addAll(a);
+                    sum.addAll(b);
+                    return sum;
+                },
+                new FruitBasket(),
+                fruit -> true);
+        Report report = new ReportImpl();
+        report.add(new OnWindowClose());
+        return new CustomTumblingWindow<>(time, name, cf, report, WIDTH);
+    }
+}
@@ -0,0 +1,54 @@
+package runtime;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Two chained mailboxes in a lane with a single thread: the upstream consumer forwards every element to the stream of the downstream
+ * one, whose mailbox is much smaller. A drain of the upstream mailbox must not wait for the downstream mailbox on the lane thread,
+ * the only thread that can drain it.
+ */
+class PrioritySchedulerTest {
+
+    private static final int ELEMENTS = 500;
+
+    @Test
+    void chainedMailboxesInASingleThreadLane() throws InterruptedException {
+        try (PriorityScheduler scheduler = new PriorityScheduler(1, 1, 1, 8);
+             TaskRuntime runtime = new TaskRuntime(scheduler, 4)) {
+            IngestionStream<Integer> upstream = runtime.stream("upstream");
+            IngestionStream<Integer> downstream = runtime.stream("downstream");
+            List<Integer> received = new CopyOnWriteArrayList<>();
+            //Both consumers have the default service level, so they share the single-threaded INTERACTIVE lane
+            upstream.addConsumer((stream, el, ts) -> {
+                downstream.put(el, ts);
+                //Every element is forwarded twice, so the downstream mailbox fills up faster than the upstream one drains
+                downstream.put(-el, ts);
+            });
+            downstream.addConsumer((stream, el, ts) -> received.add(el));
+
+            assertTimeoutPreemptively(Duration.ofSeconds(20), () -> {
+                for (int i = 1; i <= ELEMENTS; i++)
+                    upstream.put(i, i);
+                assertTrue(runtime.awaitQuiescence(10, TimeUnit.SECONDS), "the lane deadlocked");
+            });
+
+            assertEquals(2 * ELEMENTS, received.size());
+            //The stalled outputs are delivered in order
+            for (int i = 0; i < ELEMENTS; i++) {
+                assertEquals(i + 1, received.get(2 * i));
+                assertEquals(-(i + 1), received.get(2 * i + 1));
+            }
+            for (TaskMailbox<?> mailbox : runtime.getMailboxes())
+                assertEquals(null, mailbox.getLastError());
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package sketches;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Checks the accuracy documented in HyperLogLogSketch: estimates are within three relative standard errors (about 4.9% with the
+ * default precision) of the true number of distinct values, and small cardinalities are nearly exact.
+ */
+class HyperLogLogSketchTest {
+
+    private static final long[] SEEDS = {1, 42, 2024};
+    private static final int[] CARDINALITIES = {20_000, 100_000, 1_000_000};
+
+    @Test
+    void estimatesAreWithinThreeStandardErrors() {
+        for (long seed : SEEDS) {
+            for (int distinct : CARDINALITIES) {
+                HyperLogLogSketch sketch = new HyperLogLogSketch();
+                Random random = new Random(seed);
+                for (int i = 0; i < distinct; i++) {
+                    long value = random.nextLong();
+                    sketch.update(value);
+                    //Repeated values do not change the estimate
+                    if (i % 4 == 0)
+                        sketch.update(value);
+                }
+                assertRelativeError(sketch, distinct, 3 * sketch.relativeStandardError(), seed);
+            }
+        }
+    }
+
+    @Test
+    void smallCardinalitiesAreNearlyExact() {
+        for (long seed : SEEDS) {
+            HyperLogLogSketch sketch = new HyperLogLogSketch();
+            Random random = new Random(seed);
+            for (int i = 0; i < 500; i++)
+                sketch.update("fruit-" + random.nextLong());
+            assertRelativeError(sketch, 500, 0.02, seed);
+        }
+    }
+
+    @Test
+    void mergeIsTheUnionOfTheStreams() {
+        for (long seed : SEEDS) {
+            HyperLogLogSketch left = new HyperLogLogSketch();
+            HyperLogLogSketch right = new HyperLogLogSketch();
+            HyperLogLogSketch both = new HyperLogLogSketch();
+            Random random = new Random(seed);
+            for (int i = 0; i < 100_000; i++) {
+                long value = random.nextLong();
+                //A third of the values are seen by both sketches
+                if (i % 3 != 1)
+                    left.update(value);
+                if (i % 3 != 0)
+                    right.update(value);
+                both.update(value);
+            }
+            assertEquals(both.estimate(), left.merge(right).estimate());
+            assertRelativeError(both, 100_000, 3 * both.relativeStandardError(), seed);
+        }
+    }
+
+    private static void assertRelativeError(HyperLogLogSketch sketch, long distinct, double bound, long seed) {
+        double error = Math.abs(sketch.estimate() - distinct) / (double) distinct;
+        assertTrue(error <= bound, "seed " + seed + ": estimate " + sketch.estimate() + " of " + distinct + " is off by " + error);
+    }
+}
@@ -0,0 +1,90 @@
+package sketches;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Checks the rank error documented in KllQuantileSketch: with the default k, the true rank of every returned quantile is within 1.7%
+ * of the requested one. The values are a shuffled permutation of 0..n-1, so the true rank of a value v is (v + 1) / n.
+ */
+class KllQuantileSketchTest {
+
+    private static final int N = 200_000;
+    private static final double EPSILON = 0.017;
+    private static final long[] SEEDS = {1, 42, 2024};
+
+    @Test
+    void quantilesAreWithinTheRankError() {
+        for (long seed : SEEDS) {
+            KllQuantileSketch sketch = new KllQuantileSketch();
+            for (float v : shuffled(N, seed))
+                sketch.update(v);
+            assertRankError(sketch, N, seed);
+        }
+    }
+
+    @Test
+    void ranksAreWithinTheRankError() {
+        for (long seed : SEEDS) {
+            KllQuantileSketch sketch = new KllQuantileSketch();
+            for (float v : shuffled(N, seed))
+                sketch.update(v);
+            for (int i = 1; i < 100; i++) {
+                float value = (float) i * N / 100 - 1;
+                double trueRank = (value + 1) / N;
+                assertTrue(Math.abs(sketch.getRank(value) - trueRank) <= EPSILON,
+                        "seed " + seed + ": rank of " + value + " is " + sketch.getRank(value) + ", expected " + trueRank);
+            }
+        }
+    }
+
+    @Test
+    void mergedSketchKeepsTheRankError() {
+        for (long seed : SEEDS) {
+            float[] values = shuffled(N, seed);
+            KllQuantileSketch left = new KllQuantileSketch();
+            KllQuantileSketch right = new KllQuantileSketch();
+            for (int i = 0; i < N; i++)
+                (i % 3 == 0 ? left : right).update(values[i]);
+            KllQuantileSketch merged = left.merge(right);
+            assertEquals(N, merged.getN());
+            assertRankError(merged, N, seed);
+        }
+    }
+
+    @Test
+    void minAndMaxAreExact() {
+        KllQuantileSketch sketch = new KllQuantileSketch();
+        for (float v : shuffled(N, 7))
+            sketch.update(v);
+        assertEquals(0f, sketch.getQuantile(0));
+        assertEquals(N - 1f, sketch.getQuantile(1));
+        assertTrue(sketch.retained() < 4 * KllQuantileSketch.DEFAULT_K, "retained " + sketch.retained() + " values");
+    }
+
+    private static void assertRankError(KllQuantileSketch sketch, int n, long seed) {
+        for (int i = 1; i < 100; i++) {
+            double q = i / 100.0;
+            double trueRank = (sketch.getQuantile(q) + 1) / n;
+            assertTrue(Math.abs(trueRank - q) <= EPSILON, "seed " + seed + ": quantile " + q + " has true rank " + trueRank);
+        }
+    }
+
+    private static float[] shuffled(int n, long seed) {
+        float[] values = new float[n];
+        for (int i = 0; i < n; i++)
+            values[i] = i;
+        Random random = new Random(seed);
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            float t = values[i];
+            values[i] = values[j];
+            values[j] = t;
+        }
+        return values;
+    }
+}
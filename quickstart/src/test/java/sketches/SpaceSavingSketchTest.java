@@ -0,0 +1,93 @@
+package sketches;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Checks the bounds documented in SpaceSavingSketch on skewed streams: every count overestimates the true frequency by at most
+ * n / capacity, count - error is a lower bound, and every key more frequent than n / capacity is monitored.
+ */
+class SpaceSavingSketchTest {
+
+    private static final int N = 100_000;
+    private static final int KEYS = 1_000;
+    private static final int CAPACITY = 32;
+    private static final long[] SEEDS = {1, 42, 2024};
+
+    @Test
+    void countsAreWithinTheErrorBound() {
+        for (long seed : SEEDS) {
+            SpaceSavingSketch sketch = new SpaceSavingSketch(CAPACITY);
+            Map<String, Long> truth = new HashMap<>();
+            for (String key : zipf(N, seed)) {
+                sketch.update(key);
+                truth.merge(key, 1L, Long::sum);
+            }
+            assertEquals(N, sketch.getN());
+            assertBounds(sketch, truth, seed);
+        }
+    }
+
+    @Test
+    void mergedSketchKeepsTheErrorBound() {
+        for (long seed : SEEDS) {
+            SpaceSavingSketch left = new SpaceSavingSketch(CAPACITY);
+            SpaceSavingSketch right = new SpaceSavingSketch(CAPACITY);
+            Map<String, Long> truth = new HashMap<>();
+            String[] keys = zipf(N, seed);
+            for (int i = 0; i < N; i++) {
+                //The two halves have different heavy hitters, so the merge has to credit the missing keys
+                String key = i < N / 2 ? keys[i] : "b" + keys[i];
+                (i < N / 2 ? left : right).update(key);
+                truth.merge(key, 1L, Long::sum);
+            }
+            SpaceSavingSketch merged = left.merge(right);
+            assertEquals(N, merged.getN());
+            assertBounds(merged, truth, seed);
+        }
+    }
+
+    private static void assertBounds(SpaceSavingSketch sketch, Map<String, Long> truth, long seed) {
+        long bound = sketch.getN() / CAPACITY;
+        for (SpaceSavingSketch.HeavyHitter h : sketch.topK(CAPACITY)) {
+            long actual = truth.getOrDefault(h.getKey(), 0L);
+            assertTrue(h.getCount() >= actual, "seed " + seed + ": " + h + " underestimates " + actual);
+            assertTrue(h.getCount() - actual <= bound, "seed " + seed + ": " + h + " overestimates " + actual + " by more than " + bound);
+            assertTrue(h.getCount() - h.getError() <= actual, "seed " + seed + ": " + h + " lower bound above " + actual);
+        }
+        for (Map.Entry<String, Long> e : truth.entrySet())
+            if (e.getValue() > bound)
+                assertTrue(sketch.getCount(e.getKey()) > 0, "seed " + seed + ": heavy hitter " + e.getKey() + " is not monitored");
+    }
+
+    //Keys drawn from a Zipf distribution with exponent 1 over KEYS keys
+    private static String[] zipf(int n, long seed) {
+        double[] cumulative = new double[KEYS];
+        double sum = 0;
+        for (int i = 0; i < KEYS; i++) {
+            sum += 1.0 / (i + 1);
+            cumulative[i] = sum;
+        }
+        Random random = new Random(seed);
+        String[] keys = new String[n];
+        for (int i = 0; i < n; i++) {
+            double u = random.nextDouble() * sum;
+            int lo = 0, hi = KEYS - 1;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (cumulative[mid] < u)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            keys[i] = "k" + lo;
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,221 @@
+package store;
+
+import codec.FruitBasketCodec;
+import customdatatypes.Apple;
+import customdatatypes.FruitBasket;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/*
+ * Windows of 100 ms stored by one Task, with segments of 1 KB (about a dozen windows each) and no background maintenance: every
+ * test closes and reopens the store, and checks the windows read back with the ones appended.
+ */
+class WindowResultStoreTest {
+
+    private static final String TASK = "fruit_stats";
+    private static final int SEGMENT_BYTES = 1024;
+    private static final long WIDTH = 100;
+    private static final FruitBasketCodec CODEC = new FruitBasketCodec();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void tornLastRecordIsDroppedOnReopen() throws IOException {
+        try (WindowResultStore<FruitBasket> store = open(0)) {
+            for (int w = 1; w <= 3; w++)
+                append(store, w, w);
+        }
+
+        //The last record of the active segment is cut half-way through its payload
+        Path segment = Segment.segmentPath(dir.resolve(TASK), 0);
+        int last = Segment.HEADER + recordBytes(1) + recordBytes(2);
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(CODEC.encode(basket(3)).length / 2), last + Segment.RECORD_HEADER + 4);
+        }
+
+        try (WindowResultStore<FruitBasket> store = open(0)) {
+            assertCloses(store.query(TASK, 0, Long.MAX_VALUE), 1, 2);
+            assertEquals(close(2), store.getNewestClose(TASK));
+            //The window can be stored again, and the records after it are not mistaken for the torn one
+            append(store, 3, 5);
+            append(store, 4, 4);
+        }
+        try (WindowResultStore<FruitBasket> store = open(0)) {
+            List<StoredWindow<FruitBasket>> windows = store.query(TASK, 0, Long.MAX_VALUE);
+            assertCloses(windows, 1, 2, 3, 4);
+            assertEquals(5, windows.get(2).getRelation().getSize());
+        }
+    }
+
+    @Test
+    void rangeQuerySpansSealedAndActiveSegments() throws IOException {
+        try (WindowResultStore<FruitBasket> store = open(0)) {
+            for (int w = 1; w <= 40; w++)
+                append(store, w, 5);
+            assertTrue(store.getSegmentCount(TASK) >= 3);
+            checkRanges(store);
+        }
+        //Reopened: the sealed segments come back from their saved index, the active one from a scan
+        try (WindowResultStore<FruitBasket> store = open(0)) {
+            checkRanges(store);
+        }
+    }
+
+    private void checkRanges(WindowResultStore<FruitBasket> store) {
+        //Bounds off and on the window closes, the last range ending in the active segment
+        assertCloses(store.query(TASK, close(5) + 50, close(30) - 50), range(6, 29));
+        assertCloses(store.query(TASK, close(11), close(26)), range(11, 26));
+        assertCloses(store.query(TASK, close(20), Long.MAX_VALUE), range(20, 40));
+        assertCloses(store.query(TASK, close(40) + 1, Long.MAX_VALUE));
+        for (StoredWindow<FruitBasket> w : store.query(TASK, 0, Long.MAX_VALUE)) {
+            assertEquals(w.getClose() - WIDTH, w.getOpen());
+            assertEquals(5, w.getRelation().getSize());
+        }
+    }
+
+    @Test
+    void compactionKeepsTheLastReportOfAWindowAndDropsExpiredOnes() throws IOException {
+        //Windows closing more than 25 windows before the newest one expire
+        long retention = 25 * WIDTH;
+        try (WindowResultStore<FruitBasket> store = open(retention)) {
+            for (int w = 1; w <= 40; w++) {
+                append(store, w, 5);
+                //Window 20 is reported again, with a different content
+                if (w == 20)
+                    append(store, w, 6);
+            }
+            assertEquals(41, store.query(TASK, 0, Long.MAX_VALUE).size());
+            int segments = store.getSegmentCount(TASK);
+
+            store.maintain();
+
+            assertTrue(store.getSegmentCount(TASK) < segments);
+            checkCompacted(store);
+        }
+        try (WindowResultStore<FruitBasket> store = open(retention)) {
+            checkCompacted(store);
+        }
+    }
+
+    private void checkCompacted(WindowResultStore<FruitBasket> store) {
+        List<StoredWindow<FruitBasket>> windows = store.query(TASK, 0, Long.MAX_VALUE);
+        assertCloses(windows, range(15, 40));
+        assertEquals(6, store.query(TASK, close(20), close(20)).get(0).getRelation().getSize());
+    }
+
+    @Test
+    void compactionInterruptedBeforeTheReplacementIsRolledBack() throws IOException {
+        try (WindowResultStore<FruitBasket> store = open(0)) {
+            for (int w = 1; w <= 40; w++)
+                append(store, w, 5);
+        }
+        //The merged file was written and the log names the run, then the process died
+        Path taskDir = dir.resolve(TASK);
+        Segment.write(taskDir.resolve("compaction.tmp"), records(taskDir, 0, 1));
+        Files.write(taskDir.resolve("compaction.log"), "0\n1\n".getBytes(StandardCharsets.UTF_8));
+
+        checkRecovered(taskDir);
+        assertTrue(Files.exists(Segment.segmentPath(taskDir, 1)));
+    }
+
+    @Test
+    void compactionInterruptedAfterTheReplacementIsCompleted() throws IOException {
+        try (WindowResultStore<FruitBasket> store = open(0)) {
+            for (int w = 1; w <= 40; w++)
+                append(store, w, 5);
+        }
+        //The merged file replaced the first segment of the run, then the process died before deleting the second one
+        Path taskDir = dir.resolve(TASK);
+        Path tmp = taskDir.resolve("compaction.tmp");
+        Segment.write(tmp, records(taskDir, 0, 1));
+        Files.write(taskDir.resolve("compaction.log"), "0\n1\n".getBytes(StandardCharsets.UTF_8));
+        Path first = Segment.segmentPath(taskDir, 0);
+        Files.delete(first.resolveSibling(first.getFileName().toString().replace(".seg", ".idx")));
+        Files.move(tmp, first, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        checkRecovered(taskDir);
+        assertFalse(Files.exists(Segment.segmentPath(taskDir, 1)));
+    }
+
+    //Every window is read back exactly once, and the compaction files are gone
+    private void checkRecovered(Path taskDir) throws IOException {
+        try (WindowResultStore<FruitBasket> store = open(0)) {
+            assertCloses(store.query(TASK, 0, Long.MAX_VALUE), range(1, 40));
+            append(store, 41, 5);
+            assertEquals(close(41), store.getNewestClose(TASK));
+        }
+        assertFalse(Files.exists(taskDir.resolve("compaction.log")));
+        assertFalse(Files.exists(taskDir.resolve("compaction.tmp")));
+    }
+
+    private WindowResultStore<FruitBasket> open(long retentionMillis) throws IOException {
+        return new WindowResultStore<>(dir, CODEC, SEGMENT_BYTES, retentionMillis, 0);
+    }
+
+    //Window w is [(w - 1) * WIDTH, w * WIDTH)
+    private static void append(WindowResultStore<FruitBasket> store, int w, int fruits) {
+        store.append(TASK, close(w) - WIDTH, close(w), basket(fruits));
+    }
+
+    private static long close(int w) {
+        return w * WIDTH;
+    }
+
+    private static FruitBasket basket(int fruits) {
+        FruitBasket basket = new FruitBasket();
+        for (int i = 0; i < fruits; i++)
+            basket.addFruit(new Apple(1 + i, "ripe"));
+        return basket;
+    }
+
+    private static int recordBytes(int fruits) {
+        return Segment.RECORD_HEADER + CODEC.encode(basket(fruits)).length;
+    }
+
+    //Records of the given sealed segments, in order
+    private static List<Segment.Record> records(Path taskDir, long... ids) throws IOException {
+        List<Segment.Record> records = new ArrayList<>();
+        for (long id : ids) {
+            Segment s = Segment.open(Segment.segmentPath(taskDir, id), false, 0, WindowResultStore.DEFAULT_INDEX_INTERVAL);
+            s.scan(Long.MIN_VALUE, Long.MAX_VALUE, (open, close, payload) -> {
+                byte[] bytes = new byte[payload.remaining()];
+                payload.get(bytes);
+                records.add(new Segment.Record(open, close, bytes));
+            });
+        }
+        return records;
+    }
+
+    private static int[] range(int from, int to) {
+        int[] windows = new int[to - from + 1];
+        for (int i = 0; i < windows.length; i++)
+            windows[i] = from + i;
+        return windows;
+    }
+
+    private static void assertCloses(List<StoredWindow<FruitBasket>> windows, int... expected) {
+        List<Long> closes = new ArrayList<>();
+        for (StoredWindow<FruitBasket> w : windows)
+            closes.add(w.getClose());
+        List<Long> expectedCloses = new ArrayList<>();
+        for (int w : expected)
+            expectedCloses.add(close(w));
+        assertEquals(expectedCloses, closes);
+    }
+}